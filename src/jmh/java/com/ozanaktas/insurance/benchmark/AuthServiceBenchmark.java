@@ -0,0 +1,61 @@
+package com.ozanaktas.insurance.benchmark;
+
+import com.ozanaktas.insurance.model.Customer;
+import com.ozanaktas.insurance.model.User;
+import com.ozanaktas.insurance.repository.ConcurrentUserRepository;
+import com.ozanaktas.insurance.service.AuthService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Successful and failed logins against user directories of increasing size, and
+ * per-request authentication with a session token issued at login.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AuthServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private AuthService authService;
+    private String[] tokens;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ConcurrentUserRepository users = new ConcurrentUserRepository();
+        for (int i = 0; i < size; i++) {
+            users.save(new Customer("user" + i, "secret" + i, "User " + i));
+        }
+        authService = new AuthService(users);
+
+        tokens = new String[Math.min(size, 1000)];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = authService.startSession("user" + i, "secret" + i).token();
+        }
+    }
+
+    @Benchmark
+    public AuthService.LoginResult loginSuccess() {
+        int i = ThreadLocalRandom.current().nextInt(size);
+        return authService.loginWithMessage("user" + i, "secret" + i);
+    }
+
+    @Benchmark
+    public AuthService.LoginResult loginWrongPassword() {
+        int i = ThreadLocalRandom.current().nextInt(size);
+        return authService.loginWithMessage("user" + i, "wrong");
+    }
+
+    @Benchmark
+    public Optional<User> authenticateToken() {
+        return authService.authenticate(tokens[ThreadLocalRandom.current().nextInt(tokens.length)]);
+    }
+}
@@ -0,0 +1,60 @@
+package com.ozanaktas.insurance.benchmark;
+
+import com.ozanaktas.insurance.event.ChangeEvent;
+import com.ozanaktas.insurance.event.ChangeEventBus;
+import com.ozanaktas.insurance.model.Policy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A burst of {@code burst} policy updates spread over {@code keys} policies, published and
+ * then delivered as the FX thread would: one coalesced batch holding one event per policy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ChangeEventBusBenchmark {
+
+    @Param({"1000", "10000"})
+    int burst;
+
+    @Param({"10", "1000"})
+    int keys;
+
+    private final Queue<Runnable> fxQueue = new ArrayDeque<>();
+    private ChangeEventBus bus;
+    private List<ChangeEvent<Policy>> events;
+    private int delivered;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bus = new ChangeEventBus(fxQueue::add);
+        bus.subscribe(Policy.class, batch -> delivered += batch.size());
+
+        events = new ArrayList<>(burst);
+        for (int i = 0; i < burst; i++) {
+            Policy p = Datasets.policy(i % keys);
+            events.add(ChangeEvent.updated(p.getPolicyNo(), p));
+        }
+    }
+
+    @Benchmark
+    public int publishAndDeliver() {
+        for (ChangeEvent<Policy> e : events) {
+            bus.publish(Policy.class, e);
+        }
+        Runnable task;
+        while ((task = fxQueue.poll()) != null) {
+            task.run();
+        }
+        return delivered;
+    }
+}
@@ -0,0 +1,76 @@
+package com.ozanaktas.insurance.benchmark;
+
+import com.ozanaktas.insurance.service.ClaimProcessingEngine;
+import com.ozanaktas.insurance.service.ClaimQueueService;
+import com.ozanaktas.insurance.service.UndoService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall time for the claim engine to drain a backlog of {@link #BACKLOG} claims with
+ * 1..N workers. Each claim burns {@code work} CPU tokens in the handler to stand in for
+ * adjuster logic; with {@code work = 0} the run measures queue and archive overhead only.
+ * One service lives for the whole trial and the backlog is refilled before each run.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class ClaimEngineBenchmark {
+
+    static final int BACKLOG = 100_000;
+
+    @Param({"1", "2", "4", "8"})
+    int workers;
+
+    @Param({"0", "500"})
+    int work;
+
+    private ClaimQueueService claimQueueService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        claimQueueService = new ClaimQueueService(new UndoService());
+    }
+
+    @Setup(Level.Invocation)
+    public void refill() {
+        for (int i = 0; i < BACKLOG; i++) {
+            claimQueueService.submitClaim(Datasets.claim(next++));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        claimQueueService.close();
+    }
+
+    @Benchmark
+    public long drainBacklog() throws InterruptedException {
+        ClaimProcessingEngine engine = new ClaimProcessingEngine(claimQueueService,
+                c -> Blackhole.consumeCPU(work), workers);
+        engine.start();
+        while (engine.processedCount() < BACKLOG) {
+            Thread.onSpinWait();
+        }
+        engine.stop(1, TimeUnit.SECONDS);
+        return engine.processedCount();
+    }
+
+    /**
+     * Single-threaded baseline through the batch API, no engine.
+     */
+    @Benchmark
+    public int processNextBatch() {
+        int done = 0;
+        while (done < BACKLOG) {
+            done += claimQueueService.processNextBatch(ClaimProcessingEngine.DEFAULT_BATCH_SIZE).size();
+        }
+        return done;
+    }
+}
@@ -0,0 +1,50 @@
+package com.ozanaktas.insurance.benchmark;
+
+import com.ozanaktas.insurance.model.Claim;
+import com.ozanaktas.insurance.service.ClaimFraudDetector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fraud-signal assessment on intake with {@code keys} customers already tracked (ten
+ * policies each). Intake has to keep up with 50,000 claims per second, i.e. stay well
+ * under 20 us per claim.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClaimFraudBenchmark {
+
+    @Param({"10000", "100000"})
+    int keys;
+
+    private ClaimFraudDetector detector;
+    private Claim[] claims;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        detector = new ClaimFraudDetector();
+        claims = new Claim[keys * Datasets.POLICIES_PER_CUSTOMER];
+        for (int i = 0; i < claims.length; i++) {
+            claims[i] = Datasets.claim(i);
+            detector.assess(claims[i]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    @Threads(2)
+    public Set<ClaimFraudDetector.Signal> assess(Cursor cursor) {
+        Claim claim = claims[cursor.next++ % claims.length];
+        return detector.assess(claim);
+    }
+}
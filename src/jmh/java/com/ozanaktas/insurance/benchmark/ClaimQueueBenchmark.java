@@ -0,0 +1,72 @@
+package com.ozanaktas.insurance.benchmark;
+
+import com.ozanaktas.insurance.model.Claim;
+import com.ozanaktas.insurance.service.ClaimQueueService;
+import com.ozanaktas.insurance.service.UndoService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Claim intake and processing with a queue of {@code size} claims already waiting.
+ * Each process step re-submits a fresh claim so the backlog stays at {@code size};
+ * plain submits grow it over the trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ClaimQueueBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private ClaimQueueService claimQueueService;
+    private UndoService undoService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        undoService = new UndoService();
+        claimQueueService = new ClaimQueueService(undoService);
+        for (next = 0; next < size; next++) {
+            claimQueueService.submitClaim(Datasets.claim(next));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        claimQueueService.close();
+    }
+
+    @Benchmark
+    public void submitClaim() {
+        claimQueueService.submitClaim(Datasets.claim(next++));
+    }
+
+    @Benchmark
+    public Optional<Claim> processNext() {
+        claimQueueService.submitClaim(Datasets.claim(next++));
+        return claimQueueService.processNext();
+    }
+
+    /**
+     * Wall time to take 10^6 claims into an empty queue.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public int intakeMillionClaims() {
+        try (ClaimQueueService fresh = new ClaimQueueService(new UndoService())) {
+            for (int i = 0; i < 1_000_000; i++) {
+                fresh.submitClaim(Datasets.claim(i));
+            }
+            return fresh.queuedCount();
+        }
+    }
+}
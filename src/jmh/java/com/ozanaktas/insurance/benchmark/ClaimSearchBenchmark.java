@@ -0,0 +1,73 @@
+package com.ozanaktas.insurance.benchmark;
+
+import com.ozanaktas.insurance.model.Claim;
+import com.ozanaktas.insurance.service.ClaimQueueService;
+import com.ozanaktas.insurance.service.UndoService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-text search over {@code size} queued claim descriptions (first page of 50 results),
+ * and the cost of making a new claim searchable.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ClaimSearchBenchmark {
+
+    static final int PAGE = 50;
+
+    private static final String[] WORDS = {
+            "flood", "water", "basement", "rear-end", "collision", "fire", "smoke", "theft",
+            "hail", "windscreen", "storm", "roof", "burst", "pipe", "kitchen", "parking"
+    };
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    private ClaimQueueService claimQueueService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        claimQueueService = new ClaimQueueService(new UndoService());
+        for (next = 0; next < size; next++) {
+            claimQueueService.submitClaim(claim(next));
+        }
+    }
+
+    /**
+     * Three words per claim; a word is in roughly one claim in five.
+     */
+    private static Claim claim(int i) {
+        String description = WORDS[i % WORDS.length] + " and " + WORDS[(i / 7) % WORDS.length]
+                + ", " + WORDS[(i / 53) % WORDS.length] + " damage";
+        return new Claim(Datasets.customer(i), Datasets.policyNo(i), description, 100 + (i % 10_000));
+    }
+
+    @Benchmark
+    public List<Claim> singleWord() {
+        return claimQueueService.searchClaims("flood", PAGE);
+    }
+
+    @Benchmark
+    public List<Claim> twoWords() {
+        return claimQueueService.searchClaims("water basement", PAGE);
+    }
+
+    @Benchmark
+    public List<Claim> orWithExclusion() {
+        return claimQueueService.searchClaims("flood OR rear-end -parking", PAGE);
+    }
+
+    @Benchmark
+    public List<Claim> submitThenFind() {
+        claimQueueService.submitClaim(claim(next++));
+        return claimQueueService.searchClaims("storm roof", 1);
+    }
+}
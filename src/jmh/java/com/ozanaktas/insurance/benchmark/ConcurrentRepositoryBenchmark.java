@@ -0,0 +1,53 @@
+package com.ozanaktas.insurance.benchmark;
+
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.repository.ConcurrentPolicyRepository;
+import com.ozanaktas.insurance.repository.PolicyRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mixed read/write throughput on one shared {@link ConcurrentPolicyRepository}.
+ * Run with {@code -t 1}, {@code -t 2}, ... {@code -t N} to see scaling across cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentRepositoryBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    // Percentage of operations that are writes
+    @Param({"10", "50"})
+    int writePercent;
+
+    private PolicyRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new ConcurrentPolicyRepository();
+        Datasets.fill(repository, size);
+    }
+
+    @Benchmark
+    public Object mixed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(size);
+
+        int op = random.nextInt(100);
+        if (op < writePercent) {
+            repository.save(Datasets.policy(i));
+            return null;
+        }
+        if (op % 2 == 0) {
+            return repository.findByPolicyNo(Datasets.policyNo(i));
+        }
+        return repository.findByCustomerUsername(Datasets.customer(i));
+    }
+}
@@ -0,0 +1,47 @@
+package com.ozanaktas.insurance.benchmark;
+
+import com.ozanaktas.insurance.model.Claim;
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.repository.PolicyRepository;
+
+import java.time.LocalDate;
+
+/**
+ * Synthetic data shared by the benchmarks. Every customer owns {@link #POLICIES_PER_CUSTOMER}
+ * policies, so per-customer work should stay flat as the total book grows.
+ */
+final class Datasets {
+
+    static final int POLICIES_PER_CUSTOMER = 10;
+
+    private static final InsuranceType[] TYPES = InsuranceType.values();
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    private Datasets() {
+    }
+
+    static String policyNo(int i) {
+        return "POL-" + (i + 1);
+    }
+
+    static String customer(int i) {
+        return "customer" + (i / POLICIES_PER_CUSTOMER);
+    }
+
+    static Policy policy(int i) {
+        LocalDate start = START.plusDays(i % 365);
+        return new Policy(policyNo(i), customer(i), TYPES[i % TYPES.length],
+                500 + (i % 5000), start, start.plusYears(1));
+    }
+
+    static void fill(PolicyRepository repository, int size) {
+        for (int i = 0; i < size; i++) {
+            repository.save(policy(i));
+        }
+    }
+
+    static Claim claim(int i) {
+        return new Claim(customer(i), policyNo(i), "Benchmark claim " + i, 100 + (i % 10_000));
+    }
+}
@@ -0,0 +1,79 @@
+package com.ozanaktas.insurance.benchmark;
+
+import com.ozanaktas.insurance.model.Customer;
+import com.ozanaktas.insurance.repository.ConcurrentUserRepository;
+import com.ozanaktas.insurance.service.AuthService;
+import com.ozanaktas.insurance.service.LoginThrottle;
+import com.ozanaktas.insurance.service.SessionManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of login throttling on the success path, and legitimate login throughput while
+ * other threads flood the service with failed attempts across many usernames.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginThrottleBenchmark {
+
+    static final int USERS = 10_000;
+
+    private LoginThrottle throttle;
+    private AuthService authService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ConcurrentUserRepository users = new ConcurrentUserRepository();
+        for (int i = 0; i < USERS; i++) {
+            users.save(new Customer("user" + i, "secret" + i, "User " + i));
+        }
+        throttle = new LoginThrottle();
+        authService = new AuthService(users, new SessionManager(), throttle);
+
+        // Real users have logged in before, which marks them trusted
+        for (int i = 0; i < USERS; i++) {
+            authService.loginWithMessage("user" + i, "secret" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        throttle.close();
+    }
+
+    /**
+     * Throttle bookkeeping alone for one successful login: acquire plus give-back.
+     */
+    @Benchmark
+    public LoginThrottle.Verdict throttleSuccessPath() {
+        String username = "user" + ThreadLocalRandom.current().nextInt(USERS);
+        LoginThrottle.Verdict verdict = throttle.acquire(username);
+        throttle.onSuccess(username, verdict);
+        return verdict;
+    }
+
+    @Benchmark
+    @Group("flood")
+    @GroupThreads(3)
+    public AuthService.LoginResult attacker() {
+        return authService.loginWithMessage("victim" + ThreadLocalRandom.current().nextInt(1_000_000), "guess");
+    }
+
+    @Benchmark
+    @Group("flood")
+    @GroupThreads(1)
+    public AuthService.LoginResult legitimate() {
+        int i = ThreadLocalRandom.current().nextInt(USERS);
+        AuthService.LoginResult result = authService.loginWithMessage("user" + i, "secret" + i);
+        if (!result.success()) {
+            throw new IllegalStateException("Legitimate login rejected: " + result.message());
+        }
+        return result;
+    }
+}
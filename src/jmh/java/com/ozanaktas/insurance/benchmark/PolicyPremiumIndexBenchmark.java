@@ -0,0 +1,55 @@
+package com.ozanaktas.insurance.benchmark;
+
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.service.PolicyPremiumIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Underwriting queries on the premium index. Percentiles and range counts should grow
+ * with log(size); top-N with N only.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PolicyPremiumIndexBenchmark {
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    private PolicyPremiumIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Policy> policies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            policies.add(Datasets.policy(i));
+        }
+        index = new PolicyPremiumIndex();
+        index.addAll(policies);
+    }
+
+    @Benchmark
+    public OptionalDouble percentileByType() {
+        return index.percentile(InsuranceType.HOME, ThreadLocalRandom.current().nextDouble(0.01, 1.0));
+    }
+
+    @Benchmark
+    public int countBetween1kAnd5k() {
+        return index.countByPremiumBetween(1_000, 5_000);
+    }
+
+    @Benchmark
+    public List<Policy> top100() {
+        return index.top(100);
+    }
+}
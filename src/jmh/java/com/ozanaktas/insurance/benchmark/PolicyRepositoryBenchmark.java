@@ -0,0 +1,73 @@
+package com.ozanaktas.insurance.benchmark;
+
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.repository.ConcurrentPolicyRepository;
+import com.ozanaktas.insurance.repository.InMemoryPolicyRepository;
+import com.ozanaktas.insurance.repository.PolicyRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded save / lookup / customer query cost against books of increasing size.
+ * {@code findByCustomerUsername} should stay flat across {@code size} thanks to the customer index;
+ * the date queries should cost in proportion to the rows they return (about size/365 per day).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PolicyRepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"inMemory", "concurrent"})
+    String implementation;
+
+    private PolicyRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = implementation.equals("inMemory")
+                ? new InMemoryPolicyRepository()
+                : new ConcurrentPolicyRepository();
+        Datasets.fill(repository, size);
+    }
+
+    private int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(size);
+    }
+
+    @Benchmark
+    public void saveOverwrite() {
+        repository.save(Datasets.policy(randomIndex()));
+    }
+
+    @Benchmark
+    public Optional<Policy> findByPolicyNo() {
+        return repository.findByPolicyNo(Datasets.policyNo(randomIndex()));
+    }
+
+    @Benchmark
+    public List<Policy> findByCustomerUsername() {
+        return repository.findByCustomerUsername(Datasets.customer(randomIndex()));
+    }
+
+    @Benchmark
+    public List<Policy> findByEndDateOneDay() {
+        LocalDate day = Datasets.policy(randomIndex()).getEndDate();
+        return repository.findByEndDateBetween(day, day);
+    }
+
+    @Benchmark
+    public int findActiveOn() {
+        return repository.findActiveOn(Datasets.policy(randomIndex()).getStartDate()).size();
+    }
+}
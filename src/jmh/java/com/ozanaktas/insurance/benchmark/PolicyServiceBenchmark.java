@@ -0,0 +1,56 @@
+package com.ozanaktas.insurance.benchmark;
+
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.repository.ConcurrentPolicyRepository;
+import com.ozanaktas.insurance.service.PolicyService;
+import com.ozanaktas.insurance.service.UndoService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Policy number allocation and policy creation against books of increasing size.
+ * Neither should depend on {@code size}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PolicyServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private final LocalDate start = LocalDate.of(2025, 1, 1);
+    private final LocalDate end = start.plusYears(1);
+
+    private PolicyService policyService;
+    private UndoService undoService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ConcurrentPolicyRepository repository = new ConcurrentPolicyRepository();
+        Datasets.fill(repository, size);
+        policyService = new PolicyService(repository);
+        undoService = new UndoService();
+    }
+
+    @Setup(Level.Iteration)
+    public void clearUndo() {
+        undoService.clear();
+    }
+
+    @Benchmark
+    public String generateNextPolicyNo() {
+        return policyService.generateNextPolicyNo();
+    }
+
+    @Benchmark
+    public Policy createPolicyWithUndo() {
+        return policyService.createPolicyWithUndo("customer0", InsuranceType.HOME, 1200, start, end, undoService);
+    }
+}
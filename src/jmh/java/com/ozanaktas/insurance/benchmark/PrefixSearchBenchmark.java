@@ -0,0 +1,71 @@
+package com.ozanaktas.insurance.benchmark;
+
+import com.ozanaktas.insurance.model.Customer;
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.model.Role;
+import com.ozanaktas.insurance.model.User;
+import com.ozanaktas.insurance.repository.ConcurrentPolicyRepository;
+import com.ozanaktas.insurance.repository.ConcurrentUserRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search-as-you-type lookups (20 suggestions) on {@code size} entries. Sample mode reports
+ * the p99 and p99.9 latency a typing user would see; the target is under 1 ms at 5M.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class PrefixSearchBenchmark {
+
+    static final int SUGGESTIONS = 20;
+
+    @Param({"1000000", "5000000"})
+    int size;
+
+    private ConcurrentPolicyRepository policies;
+    private ConcurrentUserRepository users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        policies = new ConcurrentPolicyRepository();
+        Datasets.fill(policies, size);
+
+        // One customer per ten policies, as in the rest of the datasets
+        users = new ConcurrentUserRepository();
+        for (int i = 0; i < size; i += Datasets.POLICIES_PER_CUSTOMER) {
+            users.save(new Customer(Datasets.customer(i), "secret", "Customer Number" + i));
+        }
+    }
+
+    /**
+     * What a user has typed so far: the first 5 to 8 characters of a real policy number.
+     */
+    private static String typedPrefix(String full) {
+        int len = Math.min(full.length(), 5 + ThreadLocalRandom.current().nextInt(4));
+        return full.substring(0, len);
+    }
+
+    @Benchmark
+    public List<Policy> policyNumberPrefix() {
+        String policyNo = Datasets.policyNo(ThreadLocalRandom.current().nextInt(size));
+        return policies.findByPolicyNoPrefix(typedPrefix(policyNo), SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<User> usernamePrefix() {
+        String username = Datasets.customer(ThreadLocalRandom.current().nextInt(size));
+        return users.searchByPrefix(Role.CUSTOMER, typedPrefix(username), SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<User> fullNameWordPrefix() {
+        return users.searchByPrefix(Role.CUSTOMER, "numb", SUGGESTIONS);
+    }
+}
@@ -0,0 +1,55 @@
+package com.ozanaktas.insurance.benchmark;
+
+import com.ozanaktas.insurance.service.UndoService;
+import com.ozanaktas.insurance.service.UndoableAction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Push + undo round trips on a stack that already holds {@code depth} actions.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class UndoServiceBenchmark {
+
+    @Param({"10", "10000"})
+    int depth;
+
+    private UndoService undoService;
+
+    private static final UndoableAction NO_OP = new UndoableAction() {
+        @Override
+        public String description() {
+            return "No-op";
+        }
+
+        @Override
+        public void undo() {
+        }
+
+        @Override
+        public long retainedBytes() {
+            return 0;
+        }
+    };
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        undoService = new UndoService(depth + 1, Long.MAX_VALUE);
+        for (int i = 0; i < depth; i++) {
+            undoService.push(NO_OP);
+        }
+    }
+
+    @Benchmark
+    public Optional<String> pushAndUndo() {
+        undoService.push(NO_OP);
+        return undoService.undoLast();
+    }
+}
@@ -0,0 +1,63 @@
+package com.ozanaktas.insurance.benchmark;
+
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.repository.WalPolicyRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sustained durable writes per second over a book of {@code size} policies already in the
+ * log. Each save overwrites a random policy and waits for its fsync; with several threads
+ * ({@code -t N}) saves share group commits.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class WalPolicyRepositoryBenchmark {
+
+    // Policies per saveAll while filling, so setup does not pay one fsync per policy
+    private static final int FILL_BATCH = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private Path logFile;
+    private WalPolicyRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        logFile = Files.createTempFile("policies-bench", ".wal");
+        repository = new WalPolicyRepository(logFile);
+
+        List<Policy> batch = new ArrayList<>(FILL_BATCH);
+        for (int i = 0; i < size; i++) {
+            batch.add(Datasets.policy(i));
+            if (batch.size() == FILL_BATCH || i == size - 1) {
+                repository.saveAll(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repository.close();
+        Files.deleteIfExists(logFile);
+    }
+
+    @Benchmark
+    public void save() {
+        repository.save(Datasets.policy(ThreadLocalRandom.current().nextInt(size)));
+    }
+}
@@ -1,19 +1,20 @@
 package com.ozanaktas.insurance;
 
+import com.ozanaktas.insurance.event.ChangeEventBus;
 import com.ozanaktas.insurance.model.Admin;
 import com.ozanaktas.insurance.model.Agent;
 import com.ozanaktas.insurance.model.Customer;
 import com.ozanaktas.insurance.model.InsuranceType;
 import com.ozanaktas.insurance.model.Policy;
 import com.ozanaktas.insurance.model.User;
-import com.ozanaktas.insurance.repository.InMemoryPolicyRepository;
-import com.ozanaktas.insurance.repository.InMemoryUserRepository;
-import com.ozanaktas.insurance.repository.PolicyRepository;
+import com.ozanaktas.insurance.repository.ConcurrentUserRepository;
 import com.ozanaktas.insurance.repository.UserRepository;
+import com.ozanaktas.insurance.repository.WalPolicyRepository;
 import com.ozanaktas.insurance.service.AuthService;
 import com.ozanaktas.insurance.service.ClaimQueueService;
 import com.ozanaktas.insurance.service.PolicyService;
-import com.ozanaktas.insurance.service.UndoService;
+import com.ozanaktas.insurance.service.ProcessedClaimArchive;
+import com.ozanaktas.insurance.service.UndoRegistry;
 import com.ozanaktas.insurance.ui.ClaimsQueueView;
 import com.ozanaktas.insurance.ui.CreateClaimView;
 import com.ozanaktas.insurance.ui.CreatePolicyView;
@@ -23,10 +24,13 @@ import com.ozanaktas.insurance.ui.LoginView;
 import com.ozanaktas.insurance.ui.ManageEmployeesView;
 import com.ozanaktas.insurance.ui.MyPoliciesView;
 import com.ozanaktas.insurance.ui.ReportsView;
+import com.ozanaktas.insurance.ui.SearchExecutor;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.nio.file.Path;
 import java.time.LocalDate;
 
 public class MainApp extends Application {
@@ -34,27 +38,45 @@ public class MainApp extends Application {
     private Stage stage;
 
     private AuthService authService;
-    private UndoService undoService;
+    private UndoRegistry undoRegistry;
     private ClaimQueueService claimQueueService;
     private PolicyService policyService;
     private UserRepository userRepository;
+    private WalPolicyRepository policyRepository;
+    private ChangeEventBus eventBus;
+    private SearchExecutor searchExecutor;
 
     @Override
     public void start(Stage stage) {
         this.stage = stage;
 
         // Repos
-        this.userRepository = new InMemoryUserRepository();
+        this.userRepository = new ConcurrentUserRepository();
         seedDemoUsers(this.userRepository);
 
-        PolicyRepository policyRepo = new InMemoryPolicyRepository();
-        this.policyService = new PolicyService(policyRepo);
-        seedDemoPolicies();
+        // Policies survive restarts: the log is replayed here and demo rows are only seeded once
+        this.policyRepository = new WalPolicyRepository(Path.of("data", "policies.wal"));
+        this.policyService = new PolicyService(policyRepository);
+        if (policyService.getStatistics().totalCount() == 0) {
+            seedDemoPolicies();
+        }
 
         // Services
         this.authService = new AuthService(this.userRepository);
-        this.undoService = new UndoService();
-        this.claimQueueService = new ClaimQueueService(undoService);
+        this.undoRegistry = new UndoRegistry();
+        // No default undo stack: every processing path (processNext, processNextBatch, an engine)
+        // is given the undoRegistry stack of the user who started it
+        this.claimQueueService = new ClaimQueueService(null, new ProcessedClaimArchive(),
+                claim -> policyService.getByPolicyNo(claim.getPolicyNo()).map(Policy::getType).orElse(null));
+
+        // Changes reach the screens in batches on the FX thread; wired after seeding so startup publishes nothing
+        this.eventBus = new ChangeEventBus(Platform::runLater);
+        userRepository.setEventBus(eventBus);
+        policyRepository.setEventBus(eventBus);
+        claimQueueService.setEventBus(eventBus);
+
+        // Search-as-you-type lookups of every screen share one background thread
+        this.searchExecutor = new SearchExecutor();
 
         stage.setTitle("Insurance Policy Manager");
         showLogin();
@@ -88,11 +110,6 @@ public class MainApp extends Application {
     }
 
     private void showLogin() {
-       
-        if (undoService != null) {
-            undoService.clear();
-        }
-
         var view = new LoginView(authService, this::showDashboard).getView();
         stage.setScene(new Scene(view, 520, 360));
     }
@@ -118,34 +135,41 @@ public class MainApp extends Application {
                 onClaimsQueue,       
                 onMyPolicies,         
                 onCreateClaim,        
-                this::showLogin       
+                () -> logout(user)
         ).getView();
 
         stage.setScene(new Scene(view, 640, 420));
     }
 
+    private void logout(User user) {
+        undoRegistry.release(user.getUsername());
+        showLogin();
+    }
+
     private void showClaimsQueue(User user) {
-        var view = new ClaimsQueueView(claimQueueService, undoService, () -> showDashboard(user)).getView();
+        var view = new ClaimsQueueView(claimQueueService, undoRegistry.forUser(user.getUsername()), eventBus,
+                searchExecutor, () -> showDashboard(user)).getView();
         stage.setScene(new Scene(view, 820, 520));
     }
 
     private void showCreateClaim(User user) {
-        var view = new CreateClaimView(user, claimQueueService, policyService, () -> showDashboard(user)).getView();
+        var view = new CreateClaimView(user, claimQueueService, policyService, searchExecutor, () -> showDashboard(user)).getView();
         stage.setScene(new Scene(view, 640, 520));
     }
 
     private void showMyPolicies(User user) {
-        var view = new MyPoliciesView(user, policyService, undoService, () -> showDashboard(user)).getView();
+        var view = new MyPoliciesView(user, policyService, undoRegistry.forUser(user.getUsername()), eventBus,
+                () -> showDashboard(user)).getView();
         stage.setScene(new Scene(view, 820, 520));
     }
 
     private void showCreatePolicy(User user) {
-        var view = new CreatePolicyView(user, policyService, undoService, () -> showDashboard(user)).getView();
+        var view = new CreatePolicyView(user, policyService, undoRegistry.forUser(user.getUsername()), () -> showDashboard(user)).getView();
         stage.setScene(new Scene(view, 760, 540));
     }
 
     private void showCustomerManagement(User user) {
-        var view = new CustomerManagementView(user, userRepository, () -> showDashboard(user)).getView();
+        var view = new CustomerManagementView(user, userRepository, searchExecutor, () -> showDashboard(user)).getView();
         stage.setScene(new Scene(view, 760, 600));
     }
 
@@ -154,18 +178,32 @@ public class MainApp extends Application {
                 user,
                 policyService,
                 claimQueueService,
-                undoService,
+                undoRegistry,
                 userRepository,
+                eventBus,
                 () -> showDashboard(user)
         ).getView();
         stage.setScene(new Scene(view, 760, 520));
     }
 
     private void showManageEmployees(User user) {
-        var view = new ManageEmployeesView(user, userRepository, () -> showDashboard(user)).getView();
+        var view = new ManageEmployeesView(user, userRepository, searchExecutor, () -> showDashboard(user)).getView();
         stage.setScene(new Scene(view, 760, 620));
     }
 
+    @Override
+    public void stop() {
+        if (searchExecutor != null) {
+            searchExecutor.close();
+        }
+        if (policyRepository != null) {
+            policyRepository.close();
+        }
+        if (claimQueueService != null) {
+            claimQueueService.close();
+        }
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
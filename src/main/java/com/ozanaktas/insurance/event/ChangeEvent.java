@@ -0,0 +1,50 @@
+package com.ozanaktas.insurance.event;
+
+/**
+ * One change to an entity, published on a {@link ChangeEventBus}.
+ *
+ * @param key   the entity's identity (policy number, username, claim id)
+ * @param value the entity after the change, or as it was when it was removed
+ */
+public record ChangeEvent<T>(Kind kind, String key, T value) {
+
+    public enum Kind { ADDED, UPDATED, REMOVED }
+
+    public static <T> ChangeEvent<T> added(String key, T value) {
+        return new ChangeEvent<>(Kind.ADDED, key, value);
+    }
+
+    public static <T> ChangeEvent<T> updated(String key, T value) {
+        return new ChangeEvent<>(Kind.UPDATED, key, value);
+    }
+
+    public static <T> ChangeEvent<T> removed(String key, T value) {
+        return new ChangeEvent<>(Kind.REMOVED, key, value);
+    }
+
+    /**
+     * The single event with the same effect as this one followed by {@code next} (same key),
+     * or null if the two cancel out.
+     */
+    ChangeEvent<T> then(ChangeEvent<T> next) {
+        if (kind == Kind.ADDED) {
+            if (next.kind == Kind.REMOVED) return null;
+            return added(key, next.value);
+        }
+        if (kind == Kind.REMOVED && next.kind == Kind.ADDED) {
+            return updated(key, next.value);
+        }
+        return next;
+    }
+
+    /**
+     * This event restated against the entity's {@code current} value (null if it no longer
+     * exists), or null if there is nothing left to report.
+     */
+    ChangeEvent<T> refresh(T current) {
+        if (current == null) {
+            return kind == Kind.ADDED ? null : removed(key, value);
+        }
+        return kind == Kind.ADDED ? added(key, current) : updated(key, current);
+    }
+}
@@ -0,0 +1,167 @@
+package com.ozanaktas.insurance.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * In-process bus for entity changes, typed by the entity class.
+ * <p>
+ * Publishing is cheap and safe from any thread: the event is queued and, if no delivery
+ * is pending yet, one delivery task is handed to the delivery executor (the FX thread's
+ * {@code Platform::runLater} in the app). That task takes everything queued by then and
+ * coalesces it per entity, so a claim added and processed in the same burst arrives as one
+ * event, and a hundred changes cost one UI pass. Subscribers receive their events as one
+ * list per delivery, in publish order, on the delivery thread.
+ * <p>
+ * Events for a type nobody subscribes to are dropped at once.
+ * <p>
+ * Writers publish after their write has landed, so two writers to the same entity may
+ * publish in the opposite order. A type with a registered {@link #refreshFrom source}
+ * has each coalesced event restated against the entity's value at delivery time, so the
+ * last delivery for an entity always shows what the source holds.
+ */
+public class ChangeEventBus {
+
+    /**
+     * Stops delivery to one subscriber.
+     */
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private record Pending(Class<?> type, ChangeEvent<?> event) {
+    }
+
+    private record EntityKey(Class<?> type, String key) {
+    }
+
+    private final Executor delivery;
+
+    private final Map<Class<?>, List<Subscriber<?>>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Function<String, ?>> sources = new ConcurrentHashMap<>();
+    private final Queue<Pending> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean deliveryScheduled = new AtomicBoolean();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+
+    public ChangeEventBus(Executor delivery) {
+        this.delivery = delivery;
+    }
+
+    public <T> void publish(Class<T> type, ChangeEvent<T> event) {
+        List<Subscriber<?>> listeners = subscribers.get(type);
+        if (listeners == null || listeners.isEmpty()) return;
+
+        pending.add(new Pending(type, event));
+        published.increment();
+        if (deliveryScheduled.compareAndSet(false, true)) {
+            delivery.execute(this::deliver);
+        }
+    }
+
+    /**
+     * @param listener receives each delivery's coalesced events for {@code type}
+     */
+    public <T> Subscription subscribe(Class<T> type, Consumer<List<ChangeEvent<T>>> listener) {
+        Subscriber<T> subscriber = new Subscriber<>(listener);
+        List<Subscriber<?>> listeners = subscribers.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>());
+        listeners.add(subscriber);
+        return () -> listeners.remove(subscriber);
+    }
+
+    /**
+     * @param current looks up an entity's current value by key, or null if it is gone;
+     *                called on the delivery thread
+     */
+    public <T> void refreshFrom(Class<T> type, Function<String, T> current) {
+        sources.put(type, current);
+    }
+
+    /**
+     * Events accepted for delivery, before coalescing.
+     */
+    public long publishedCount() { return published.sum(); }
+
+    /**
+     * Events handed to subscribers after coalescing, counted once per delivery.
+     */
+    public long deliveredCount() { return delivered.sum(); }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void deliver() {
+        // Cleared first: anything published from here on schedules another delivery
+        deliveryScheduled.set(false);
+
+        Map<EntityKey, ChangeEvent> latest = new LinkedHashMap<>();
+        Pending p;
+        while ((p = pending.poll()) != null) {
+            EntityKey key = new EntityKey(p.type(), p.event().key());
+            ChangeEvent previous = latest.get(key);
+            if (previous == null) {
+                latest.put(key, p.event());
+                continue;
+            }
+            ChangeEvent merged = previous.then(p.event());
+            if (merged == null) {
+                latest.remove(key);
+            } else {
+                latest.put(key, merged);
+            }
+        }
+        if (latest.isEmpty()) return;
+
+        Map<Class<?>, List<ChangeEvent<?>>> byType = new LinkedHashMap<>();
+        int count = 0;
+        for (Map.Entry<EntityKey, ChangeEvent> e : latest.entrySet()) {
+            ChangeEvent event = e.getValue();
+            Function source = sources.get(e.getKey().type());
+            if (source != null) {
+                event = event.refresh(source.apply(e.getKey().key()));
+                if (event == null) continue;
+            }
+            byType.computeIfAbsent(e.getKey().type(), t -> new ArrayList<>()).add(event);
+            count++;
+        }
+        if (count == 0) return;
+        delivered.add(count);
+
+        for (Map.Entry<Class<?>, List<ChangeEvent<?>>> e : byType.entrySet()) {
+            List<ChangeEvent<?>> events = Collections.unmodifiableList(e.getValue());
+            for (Subscriber subscriber : subscribers.getOrDefault(e.getKey(), List.of())) {
+                subscriber.accept(events);
+            }
+        }
+    }
+
+    private static final class Subscriber<T> {
+        private final Consumer<List<ChangeEvent<T>>> listener;
+
+        Subscriber(Consumer<List<ChangeEvent<T>>> listener) {
+            this.listener = listener;
+        }
+
+        void accept(List<ChangeEvent<T>> events) {
+            try {
+                listener.accept(events);
+            } catch (RuntimeException ex) {
+                // One broken view must not stop the others from updating
+                Thread t = Thread.currentThread();
+                t.getUncaughtExceptionHandler().uncaughtException(t, ex);
+            }
+        }
+    }
+}
@@ -23,6 +23,18 @@ public class Claim {
         this.status = ClaimStatus.IN_QUEUE;
     }
 
+    // Rebuilds a stored claim with its original id and timestamp
+    public Claim(UUID id, String customerUsername, String policyNo, String description, double amount,
+                 LocalDateTime createdAt, ClaimStatus status) {
+        this.id = id;
+        this.customerUsername = customerUsername;
+        this.policyNo = policyNo;
+        this.description = description;
+        this.amount = amount;
+        this.createdAt = createdAt;
+        this.status = status;
+    }
+
     public UUID getId() { return id; }
     public String getCustomerUsername() { return customerUsername; }
     public String getPolicyNo() { return policyNo; }
@@ -2,5 +2,6 @@ package com.ozanaktas.insurance.model;
 
 public enum ClaimStatus {
     IN_QUEUE,
-    PROCESSED
+    PROCESSED,
+    FAILED
 }
\ No newline at end of file
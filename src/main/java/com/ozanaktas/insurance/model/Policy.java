@@ -47,6 +47,16 @@ public class Policy {
         this.status = (status == null) ? PolicyStatus.ACTIVE : status;
     }
 
+    /**
+     * A copy of this policy with another status, for saving a status change without
+     * editing the instance a repository holds.
+     */
+    public Policy withStatus(PolicyStatus status) {
+        Policy copy = new Policy(policyNo, customerUsername, type, premium, startDate, endDate);
+        copy.setStatus(status);
+        return copy;
+    }
+
     
     @Override
     public boolean equals(Object o) {
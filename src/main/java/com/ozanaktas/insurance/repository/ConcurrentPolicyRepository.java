@@ -0,0 +1,217 @@
+package com.ozanaktas.insurance.repository;
+
+import com.ozanaktas.insurance.event.ChangeEvent;
+import com.ozanaktas.insurance.event.ChangeEventBus;
+import com.ozanaktas.insurance.model.Policy;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe policy repository. Reads never lock, except {@link #findActiveOn(LocalDate)},
+ * which takes the date index's read lock; writes go through
+ * {@link ConcurrentHashMap#compute}, which only locks the affected bin,
+ * so the customer index is updated atomically with the primary entry.
+ * Iteration in {@link #findAll()} is weakly consistent.
+ */
+public class ConcurrentPolicyRepository implements PolicyRepository {
+
+    private final ConcurrentMap<String, Policy> map = new ConcurrentHashMap<>();
+
+    // Whole book ordered by policy number, for keyset pagination
+    private final ConcurrentSkipListMap<String, Policy> ordered = new ConcurrentSkipListMap<>();
+
+    // Secondary index: customer username -> that customer's policies, sorted by policy number
+    private final ConcurrentMap<String, ConcurrentSkipListMap<String, Policy>> byCustomer = new ConcurrentHashMap<>();
+
+    private final PolicyDateIndex dates = new PolicyDateIndex(true);
+
+    private volatile ChangeEventBus eventBus;
+
+    @Override
+    public Optional<Policy> save(Policy policy) {
+        if (policy == null || policy.getPolicyNo() == null) return Optional.empty();
+        String policyNo = policy.getPolicyNo().trim();
+
+        Policy[] replaced = {null};
+        map.compute(policyNo, (k, previous) -> {
+            if (previous != null) {
+                unindex(k, previous);
+                replaced[0] = previous;
+            }
+            index(k, policy);
+            return policy;
+        });
+        publish(replaced[0] != null ? ChangeEvent.updated(policyNo, policy) : ChangeEvent.added(policyNo, policy));
+        return Optional.ofNullable(replaced[0]);
+    }
+
+    @Override
+    public List<Policy> saveAll(Collection<Policy> policies) {
+        List<Policy> replaced = new ArrayList<>();
+        if (policies == null) return replaced;
+        for (Policy p : policies) {
+            save(p).ifPresent(replaced::add);
+        }
+        return replaced;
+    }
+
+    @Override
+    public Optional<Policy> findByPolicyNo(String policyNo) {
+        if (policyNo == null) return Optional.empty();
+        return Optional.ofNullable(map.get(policyNo.trim()));
+    }
+
+    @Override
+    public boolean existsByPolicyNo(String policyNo) {
+        if (policyNo == null) return false;
+        return map.containsKey(policyNo.trim());
+    }
+
+    @Override
+    public boolean deleteByPolicyNo(String policyNo) {
+        if (policyNo == null) return false;
+
+        String no = policyNo.trim();
+        Policy[] removed = {null};
+        map.computeIfPresent(no, (k, previous) -> {
+            unindex(k, previous);
+            removed[0] = previous;
+            return null;
+        });
+        if (removed[0] == null) return false;
+
+        publish(ChangeEvent.removed(no, removed[0]));
+        return true;
+    }
+
+    @Override
+    public List<Policy> findByCustomerUsername(String customerUsername) {
+        if (customerUsername == null) return new ArrayList<>();
+
+        ConcurrentSkipListMap<String, Policy> policies = byCustomer.get(customerUsername);
+        if (policies == null) return new ArrayList<>();
+
+        return new ArrayList<>(policies.values());
+    }
+
+    @Override
+    public int countByCustomerUsername(String customerUsername) {
+        if (customerUsername == null) return 0;
+
+        NavigableMap<String, Policy> policies = byCustomer.get(customerUsername);
+        return policies == null ? 0 : policies.size();
+    }
+
+    @Override
+    public Slice<Policy> findSlice(String afterPolicyNo, int limit) {
+        return page(ordered, afterPolicyNo, limit);
+    }
+
+    @Override
+    public Slice<Policy> findSliceByCustomerUsername(String customerUsername, String afterPolicyNo, int limit) {
+        if (customerUsername == null) return Slice.empty();
+
+        NavigableMap<String, Policy> policies = byCustomer.get(customerUsername);
+        if (policies == null) return Slice.empty();
+        return page(policies, afterPolicyNo, limit);
+    }
+
+    @Override
+    public List<Policy> findByPolicyNoPrefix(String prefix, int limit) {
+        return withPrefix(ordered, prefix, limit);
+    }
+
+    @Override
+    public List<Policy> findByCustomerUsernameAndPolicyNoPrefix(String customerUsername, String prefix, int limit) {
+        if (customerUsername == null) return new ArrayList<>();
+
+        NavigableMap<String, Policy> policies = byCustomer.get(customerUsername);
+        if (policies == null) return new ArrayList<>();
+        return withPrefix(policies, prefix, limit);
+    }
+
+    private static List<Policy> withPrefix(NavigableMap<String, Policy> source, String prefix, int limit) {
+        List<Policy> result = new ArrayList<>();
+        if (limit <= 0) return result;
+
+        String p = prefix == null ? "" : prefix.trim();
+        // Every key starting with p sorts in [p, p + '\uffff')
+        for (Policy policy : source.subMap(p, true, p + Character.MAX_VALUE, false).values()) {
+            if (result.size() >= limit) break;
+            result.add(policy);
+        }
+        return result;
+    }
+
+    private static Slice<Policy> page(NavigableMap<String, Policy> source, String afterPolicyNo, int limit) {
+        NavigableMap<String, Policy> from = (afterPolicyNo == null)
+                ? source
+                : source.tailMap(afterPolicyNo.trim(), false);
+        return Slice.of(from.values(), limit, Policy::getPolicyNo);
+    }
+
+    @Override
+    public List<Policy> findByEndDateBetween(LocalDate from, LocalDate to) {
+        return dates.endingBetween(from, to);
+    }
+
+    @Override
+    public List<Policy> findActiveOn(LocalDate date) {
+        return dates.activeOn(date);
+    }
+
+    @Override
+    public List<Policy> findAll() {
+        return new ArrayList<>(map.values());
+    }
+
+    @Override
+    public void forEachPolicy(Consumer<? super Policy> action) {
+        map.values().forEach(action);
+    }
+
+    private void index(String policyNo, Policy policy) {
+        ordered.put(policyNo, policy);
+        dates.add(policyNo, policy);
+
+        String customer = policy.getCustomerUsername();
+        if (customer == null) return;
+
+        byCustomer.compute(customer, (k, policies) -> {
+            if (policies == null) policies = new ConcurrentSkipListMap<>();
+            policies.put(policyNo, policy);
+            return policies;
+        });
+    }
+
+    private void unindex(String policyNo, Policy policy) {
+        ordered.remove(policyNo);
+        dates.remove(policyNo, policy);
+
+        String customer = policy.getCustomerUsername();
+        if (customer == null) return;
+
+        byCustomer.computeIfPresent(customer, (k, policies) -> {
+            policies.remove(policyNo);
+            return policies.isEmpty() ? null : policies;
+        });
+    }
+
+    @Override
+    public void setEventBus(ChangeEventBus eventBus) {
+        this.eventBus = eventBus;
+        // Events are published after compute() returns, so delivery re-reads the current row
+        if (eventBus != null) eventBus.refreshFrom(Policy.class, map::get);
+    }
+
+    // Called outside compute(): subscribers may read this repository
+    private void publish(ChangeEvent<Policy> event) {
+        ChangeEventBus bus = eventBus;
+        if (bus != null) bus.publish(Policy.class, event);
+    }
+}
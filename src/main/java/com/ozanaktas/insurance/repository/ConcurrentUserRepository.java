@@ -0,0 +1,171 @@
+package com.ozanaktas.insurance.repository;
+
+import com.ozanaktas.insurance.event.ChangeEvent;
+import com.ozanaktas.insurance.event.ChangeEventBus;
+import com.ozanaktas.insurance.model.Role;
+import com.ozanaktas.insurance.model.User;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe user repository backed by a {@link ConcurrentHashMap}:
+ * lock-free reads, per-bin writes and weakly consistent iteration.
+ * Users are also partitioned by {@link Role} into sorted skip lists with
+ * per-role counters, updated inside the same {@code compute()} as the primary entry.
+ */
+public class ConcurrentUserRepository implements UserRepository {
+
+    private final ConcurrentMap<String, User> users = new ConcurrentHashMap<>();
+
+    private final NavigableSet<String> usernames = new ConcurrentSkipListSet<>();
+    private final Map<Role, ConcurrentSkipListMap<String, User>> byRole = new EnumMap<>(Role.class);
+
+    // ConcurrentSkipListMap.size() walks the whole list, so counts are kept separately
+    private final Map<Role, AtomicInteger> roleCounts = new EnumMap<>(Role.class);
+
+    private final UserNameIndex names = new UserNameIndex(true);
+
+    private final List<Consumer<String>> deletionListeners = new CopyOnWriteArrayList<>();
+
+    private volatile ChangeEventBus eventBus;
+
+    public ConcurrentUserRepository() {
+        for (Role role : Role.values()) {
+            byRole.put(role, new ConcurrentSkipListMap<>());
+            roleCounts.put(role, new AtomicInteger());
+        }
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        if (username == null) return Optional.empty();
+        return Optional.ofNullable(users.get(username.trim()));
+    }
+
+    @Override
+    public void save(User user) {
+        if (user == null || user.getUsername() == null) return;
+        String username = user.getUsername().trim();
+
+        boolean[] replaced = {false};
+        users.compute(username, (k, previous) -> {
+            if (previous != null) {
+                unindex(k, previous);
+                replaced[0] = true;
+            }
+            index(k, user);
+            return user;
+        });
+        publish(replaced[0] ? ChangeEvent.updated(username, user) : ChangeEvent.added(username, user));
+    }
+
+    @Override
+    public boolean existsByUsername(String username) {
+        if (username == null) return false;
+        return users.containsKey(username.trim());
+    }
+
+    @Override
+    public List<User> findAll() {
+        return new ArrayList<>(users.values());
+    }
+
+    @Override
+    public List<User> findByRole(Role role) {
+        if (role == null) return new ArrayList<>();
+        return new ArrayList<>(byRole.get(role).values());
+    }
+
+    @Override
+    public List<User> findByRole(Role role, String afterUsername, int limit) {
+        List<User> page = new ArrayList<>();
+        if (role == null || limit <= 0) return page;
+
+        ConcurrentSkipListMap<String, User> partition = byRole.get(role);
+        Collection<User> from = (afterUsername == null)
+                ? partition.values()
+                : partition.tailMap(afterUsername.trim(), false).values();
+
+        for (User u : from) {
+            if (page.size() >= limit) break;
+            page.add(u);
+        }
+        return page;
+    }
+
+    @Override
+    public int countByRole(Role role) {
+        if (role == null) return 0;
+        return roleCounts.get(role).get();
+    }
+
+    @Override
+    public List<User> searchByPrefix(Role role, String prefix, int limit) {
+        return names.search(role, prefix, limit);
+    }
+
+    public List<String> findAllUsernames() {
+        return new ArrayList<>(usernames);
+    }
+
+    @Override
+    public boolean deleteByUsername(String username) {
+        if (username == null) return false;
+
+        String u = username.trim();
+        User[] removed = {null};
+        users.computeIfPresent(u, (k, previous) -> {
+            unindex(k, previous);
+            removed[0] = previous;
+            return null;
+        });
+        if (removed[0] == null) return false;
+
+        // Outside compute(): listeners may touch other maps
+        deletionListeners.forEach(l -> l.accept(u));
+        publish(ChangeEvent.removed(u, removed[0]));
+        return true;
+    }
+
+    @Override
+    public void addDeletionListener(Consumer<String> listener) {
+        if (listener != null) deletionListeners.add(listener);
+    }
+
+    @Override
+    public void setEventBus(ChangeEventBus eventBus) {
+        this.eventBus = eventBus;
+        // Events are published after compute() returns, so delivery re-reads the current row
+        if (eventBus != null) eventBus.refreshFrom(User.class, users::get);
+    }
+
+    private void publish(ChangeEvent<User> event) {
+        ChangeEventBus bus = eventBus;
+        if (bus != null) bus.publish(User.class, event);
+    }
+
+    private void index(String username, User user) {
+        usernames.add(username);
+        names.add(username, user);
+        if (user.getRole() == null) return;
+
+        byRole.get(user.getRole()).put(username, user);
+        roleCounts.get(user.getRole()).incrementAndGet();
+    }
+
+    private void unindex(String username, User user) {
+        usernames.remove(username);
+        names.remove(username, user);
+        if (user.getRole() == null) return;
+
+        byRole.get(user.getRole()).remove(username);
+        roleCounts.get(user.getRole()).decrementAndGet();
+    }
+}
@@ -1,17 +1,49 @@
 package com.ozanaktas.insurance.repository;
 
+import com.ozanaktas.insurance.event.ChangeEvent;
+import com.ozanaktas.insurance.event.ChangeEventBus;
 import com.ozanaktas.insurance.model.Policy;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class InMemoryPolicyRepository implements PolicyRepository {
 
     private final Map<String, Policy> map = new HashMap<>();
 
+    // Whole book ordered by policy number, for keyset pagination
+    private final NavigableMap<String, Policy> ordered = new TreeMap<>();
+
+    // Secondary index: customer username -> that customer's policies, kept sorted by policy number
+    private final Map<String, NavigableMap<String, Policy>> byCustomer = new HashMap<>();
+
+    private final PolicyDateIndex dates = new PolicyDateIndex(false);
+
+    private ChangeEventBus eventBus;
+
+    @Override
+    public Optional<Policy> save(Policy policy) {
+        if (policy == null || policy.getPolicyNo() == null) return Optional.empty();
+        String policyNo = policy.getPolicyNo().trim();
+
+        Policy previous = map.put(policyNo, policy);
+        if (previous != null) {
+            unindex(policyNo, previous);
+        }
+        index(policyNo, policy);
+        publish(previous == null ? ChangeEvent.added(policyNo, policy) : ChangeEvent.updated(policyNo, policy));
+        return Optional.ofNullable(previous);
+    }
+
     @Override
-    public void save(Policy policy) {
-        if (policy == null || policy.getPolicyNo() == null) return;
-        map.put(policy.getPolicyNo().trim(), policy);
+    public List<Policy> saveAll(Collection<Policy> policies) {
+        List<Policy> replaced = new ArrayList<>();
+        if (policies == null) return replaced;
+        for (Policy p : policies) {
+            save(p).ifPresent(replaced::add);
+        }
+        return replaced;
     }
 
     @Override
@@ -29,24 +61,135 @@ public class InMemoryPolicyRepository implements PolicyRepository {
     @Override
     public boolean deleteByPolicyNo(String policyNo) {
         if (policyNo == null) return false;
-        return map.remove(policyNo.trim()) != null;
+        String no = policyNo.trim();
+
+        Policy removed = map.remove(no);
+        if (removed == null) return false;
+
+        unindex(no, removed);
+        publish(ChangeEvent.removed(no, removed));
+        return true;
     }
 
     @Override
     public List<Policy> findByCustomerUsername(String customerUsername) {
-        List<Policy> res = new ArrayList<>();
-        for (Policy p : map.values()) {
-            if (p.getCustomerUsername().equals(customerUsername)) {
-                res.add(p);
-            }
+        if (customerUsername == null) return new ArrayList<>();
+
+        NavigableMap<String, Policy> policies = byCustomer.get(customerUsername);
+        if (policies == null) return new ArrayList<>();
+
+        // Already ordered by policy number, no sort needed
+        return new ArrayList<>(policies.values());
+    }
+
+    @Override
+    public int countByCustomerUsername(String customerUsername) {
+        if (customerUsername == null) return 0;
+
+        NavigableMap<String, Policy> policies = byCustomer.get(customerUsername);
+        return policies == null ? 0 : policies.size();
+    }
+
+    @Override
+    public Slice<Policy> findSlice(String afterPolicyNo, int limit) {
+        return page(ordered, afterPolicyNo, limit);
+    }
+
+    @Override
+    public Slice<Policy> findSliceByCustomerUsername(String customerUsername, String afterPolicyNo, int limit) {
+        if (customerUsername == null) return Slice.empty();
+
+        NavigableMap<String, Policy> policies = byCustomer.get(customerUsername);
+        if (policies == null) return Slice.empty();
+        return page(policies, afterPolicyNo, limit);
+    }
+
+    @Override
+    public List<Policy> findByPolicyNoPrefix(String prefix, int limit) {
+        return withPrefix(ordered, prefix, limit);
+    }
+
+    @Override
+    public List<Policy> findByCustomerUsernameAndPolicyNoPrefix(String customerUsername, String prefix, int limit) {
+        if (customerUsername == null) return new ArrayList<>();
+
+        NavigableMap<String, Policy> policies = byCustomer.get(customerUsername);
+        if (policies == null) return new ArrayList<>();
+        return withPrefix(policies, prefix, limit);
+    }
+
+    private static List<Policy> withPrefix(NavigableMap<String, Policy> source, String prefix, int limit) {
+        List<Policy> result = new ArrayList<>();
+        if (limit <= 0) return result;
+
+        String p = prefix == null ? "" : prefix.trim();
+        // Every key starting with p sorts in [p, p + '\uffff')
+        for (Policy policy : source.subMap(p, true, p + Character.MAX_VALUE, false).values()) {
+            if (result.size() >= limit) break;
+            result.add(policy);
         }
-        
-        res.sort(Comparator.comparing(Policy::getPolicyNo));
-        return res;
+        return result;
+    }
+
+    private static Slice<Policy> page(NavigableMap<String, Policy> source, String afterPolicyNo, int limit) {
+        NavigableMap<String, Policy> from = (afterPolicyNo == null)
+                ? source
+                : source.tailMap(afterPolicyNo.trim(), false);
+        return Slice.of(from.values(), limit, Policy::getPolicyNo);
+    }
+
+    @Override
+    public List<Policy> findByEndDateBetween(LocalDate from, LocalDate to) {
+        return dates.endingBetween(from, to);
+    }
+
+    @Override
+    public List<Policy> findActiveOn(LocalDate date) {
+        return dates.activeOn(date);
     }
 
     @Override
     public List<Policy> findAll() {
         return new ArrayList<>(map.values());
     }
-}
\ No newline at end of file
+
+    @Override
+    public void forEachPolicy(Consumer<? super Policy> action) {
+        map.values().forEach(action);
+    }
+
+    private void index(String policyNo, Policy policy) {
+        ordered.put(policyNo, policy);
+        dates.add(policyNo, policy);
+
+        String customer = policy.getCustomerUsername();
+        if (customer == null) return;
+
+        byCustomer.computeIfAbsent(customer, k -> new TreeMap<>()).put(policyNo, policy);
+    }
+
+    private void unindex(String policyNo, Policy policy) {
+        ordered.remove(policyNo);
+        dates.remove(policyNo, policy);
+
+        String customer = policy.getCustomerUsername();
+        if (customer == null) return;
+
+        NavigableMap<String, Policy> policies = byCustomer.get(customer);
+        if (policies == null) return;
+
+        policies.remove(policyNo);
+        if (policies.isEmpty()) {
+            byCustomer.remove(customer);
+        }
+    }
+
+    @Override
+    public void setEventBus(ChangeEventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    private void publish(ChangeEvent<Policy> event) {
+        if (eventBus != null) eventBus.publish(Policy.class, event);
+    }
+}
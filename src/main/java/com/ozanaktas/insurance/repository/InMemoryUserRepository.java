@@ -1,13 +1,33 @@
 package com.ozanaktas.insurance.repository;
 
+import com.ozanaktas.insurance.event.ChangeEvent;
+import com.ozanaktas.insurance.event.ChangeEventBus;
+import com.ozanaktas.insurance.model.Role;
 import com.ozanaktas.insurance.model.User;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 public class InMemoryUserRepository implements UserRepository {
 
     private final Map<String, User> users = new HashMap<>();
 
+    // Sorted views, maintained on save/delete so readers never sort
+    private final NavigableSet<String> usernames = new TreeSet<>();
+    private final Map<Role, NavigableMap<String, User>> byRole = new EnumMap<>(Role.class);
+
+    private final UserNameIndex names = new UserNameIndex(false);
+
+    private final List<Consumer<String>> deletionListeners = new ArrayList<>();
+
+    private ChangeEventBus eventBus;
+
+    public InMemoryUserRepository() {
+        for (Role role : Role.values()) {
+            byRole.put(role, new TreeMap<>());
+        }
+    }
+
     @Override
     public Optional<User> findByUsername(String username) {
         if (username == null) return Optional.empty();
@@ -17,7 +37,21 @@ public class InMemoryUserRepository implements UserRepository {
     @Override
     public void save(User user) {
         if (user == null || user.getUsername() == null) return;
-        users.put(user.getUsername().trim(), user);
+        String username = user.getUsername().trim();
+
+        User previous = users.put(username, user);
+        if (previous != null && previous.getRole() != null) {
+            byRole.get(previous.getRole()).remove(username);
+        }
+        if (previous != null) {
+            names.remove(username, previous);
+        }
+        if (user.getRole() != null) {
+            byRole.get(user.getRole()).put(username, user);
+        }
+        names.add(username, user);
+        usernames.add(username);
+        publish(previous == null ? ChangeEvent.added(username, user) : ChangeEvent.updated(username, user));
     }
 
     @Override
@@ -31,15 +65,73 @@ public class InMemoryUserRepository implements UserRepository {
         return new ArrayList<>(users.values());
     }
 
+    @Override
+    public List<User> findByRole(Role role) {
+        if (role == null) return new ArrayList<>();
+        return new ArrayList<>(byRole.get(role).values());
+    }
+
+    @Override
+    public List<User> findByRole(Role role, String afterUsername, int limit) {
+        List<User> page = new ArrayList<>();
+        if (role == null || limit <= 0) return page;
+
+        NavigableMap<String, User> partition = byRole.get(role);
+        Collection<User> from = (afterUsername == null)
+                ? partition.values()
+                : partition.tailMap(afterUsername.trim(), false).values();
+
+        for (User u : from) {
+            if (page.size() >= limit) break;
+            page.add(u);
+        }
+        return page;
+    }
+
+    @Override
+    public int countByRole(Role role) {
+        if (role == null) return 0;
+        return byRole.get(role).size();
+    }
+
     public List<String> findAllUsernames() {
-        List<String> list = new ArrayList<>(users.keySet());
-        Collections.sort(list);
-        return list;
+        return new ArrayList<>(usernames);
     }
 
     @Override
     public boolean deleteByUsername(String username) {
         if (username == null) return false;
-        return users.remove(username.trim()) != null;
+        String u = username.trim();
+
+        User removed = users.remove(u);
+        if (removed == null) return false;
+
+        if (removed.getRole() != null) {
+            byRole.get(removed.getRole()).remove(u);
+        }
+        usernames.remove(u);
+        names.remove(u, removed);
+        deletionListeners.forEach(l -> l.accept(u));
+        publish(ChangeEvent.removed(u, removed));
+        return true;
+    }
+
+    @Override
+    public List<User> searchByPrefix(Role role, String prefix, int limit) {
+        return names.search(role, prefix, limit);
+    }
+
+    @Override
+    public void addDeletionListener(Consumer<String> listener) {
+        if (listener != null) deletionListeners.add(listener);
+    }
+
+    @Override
+    public void setEventBus(ChangeEventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    private void publish(ChangeEvent<User> event) {
+        if (eventBus != null) eventBus.publish(User.class, event);
     }
-}
\ No newline at end of file
+}
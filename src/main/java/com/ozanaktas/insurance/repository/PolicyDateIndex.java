@@ -0,0 +1,248 @@
+package com.ozanaktas.insurance.repository;
+
+import com.ozanaktas.insurance.model.Policy;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Policies ordered by end date, and an interval tree of policy terms, for range queries
+ * that should not scan the whole book. End-date keys are (date, policy number) so many
+ * policies can share a date.
+ * <p>
+ * "Active on D" means {@code start <= D <= end}, where a null start or end leaves that
+ * side of the term open, as in the column store. Terms live in a treap keyed by (start
+ * day, policy number) whose nodes also store the latest end day in their subtree, so a
+ * lookup skips every subtree that has ended before D or starts after it. Finding the k
+ * active policies costs O((k + 1) log n), however long the longest term.
+ * A policy without an end date never ends, so it is not in the end-date order.
+ * <p>
+ * Each policy number is indexed once: adding it again replaces the earlier entry, and
+ * removal goes by number. The tree is guarded by a read-write lock like the premium
+ * index; writers update the end-date order under the same lock, and in the concurrent
+ * variant it is read without one.
+ */
+final class PolicyDateIndex {
+
+    private static final long OPEN_START = Long.MIN_VALUE;
+    private static final long OPEN_END = Long.MAX_VALUE;
+
+    private final boolean concurrent;
+    private final NavigableMap<DateKey, Policy> byEnd;
+    private final Map<String, Node> byPolicyNo = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+
+    PolicyDateIndex(boolean concurrent) {
+        this.concurrent = concurrent;
+        this.byEnd = concurrent ? new ConcurrentSkipListMap<>() : new TreeMap<>();
+    }
+
+    void add(String policyNo, Policy policy) {
+        if (policyNo == null || policy == null) return;
+
+        lock.writeLock().lock();
+        try {
+            unlink(policyNo);
+            Node node = new Node(policyNo, policy);
+            byPolicyNo.put(policyNo, node);
+            root = insert(root, node);
+            if (policy.getEndDate() != null) {
+                byEnd.put(new DateKey(policy.getEndDate(), policyNo), policy);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes whatever is indexed under {@code policyNo}; {@code policy} is the caller's
+     * copy and only identifies it.
+     */
+    void remove(String policyNo, Policy policy) {
+        if (policyNo == null) return;
+
+        lock.writeLock().lock();
+        try {
+            unlink(policyNo);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Policies whose end date is in {@code [from, to]}, ordered by end date.
+     */
+    List<Policy> endingBetween(LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) return new ArrayList<>();
+
+        if (concurrent) {
+            return new ArrayList<>(byEnd.subMap(new DateKey(from, ""), true, new DateKey(to, null), true).values());
+        }
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(byEnd.subMap(new DateKey(from, ""), true, new DateKey(to, null), true).values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Policies with {@code start <= date <= end}, ordered by start date; a null start or
+     * end is open.
+     */
+    List<Policy> activeOn(LocalDate date) {
+        List<Policy> result = new ArrayList<>();
+        if (date == null) return result;
+
+        lock.readLock().lock();
+        try {
+            collectActive(root, date.toEpochDay(), result);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return byPolicyNo.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void unlink(String policyNo) {
+        Node old = byPolicyNo.remove(policyNo);
+        if (old == null) return;
+
+        root = delete(root, old.start, policyNo);
+        if (old.policy.getEndDate() != null) {
+            byEnd.remove(new DateKey(old.policy.getEndDate(), policyNo));
+        }
+    }
+
+    private static void collectActive(Node n, long day, List<Policy> out) {
+        if (n == null || n.maxEnd < day) return;
+
+        collectActive(n.left, day, out);
+        // In-order: this node and everything to its right start after the day
+        if (n.start > day) return;
+        if (n.end >= day) out.add(n.policy);
+        collectActive(n.right, day, out);
+    }
+
+    private static final class Node {
+        final long start;
+        final long end;
+        final String policyNo;
+        final Policy policy;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        long maxEnd;
+        Node left;
+        Node right;
+
+        Node(String policyNo, Policy policy) {
+            this.start = policy.getStartDate() == null ? OPEN_START : policy.getStartDate().toEpochDay();
+            this.end = policy.getEndDate() == null ? OPEN_END : policy.getEndDate().toEpochDay();
+            this.policyNo = policyNo;
+            this.policy = policy;
+            this.maxEnd = end;
+        }
+
+        int compareTo(long otherStart, String otherPolicyNo) {
+            int c = Long.compare(start, otherStart);
+            return c != 0 ? c : policyNo.compareTo(otherPolicyNo);
+        }
+    }
+
+    /**
+     * BST insert, then rotate the new node up while it out-prioritizes its parent.
+     */
+    private static Node insert(Node n, Node node) {
+        if (n == null) return node;
+        if (n.compareTo(node.start, node.policyNo) > 0) {
+            n.left = insert(n.left, node);
+            if (n.left.priority > n.priority) return rotateRight(n);
+        } else {
+            n.right = insert(n.right, node);
+            if (n.right.priority > n.priority) return rotateLeft(n);
+        }
+        update(n);
+        return n;
+    }
+
+    private static Node delete(Node n, long start, String policyNo) {
+        if (n == null) return null;
+        int c = n.compareTo(start, policyNo);
+        if (c == 0) return merge(n.left, n.right);
+        if (c > 0) {
+            n.left = delete(n.left, start, policyNo);
+        } else {
+            n.right = delete(n.right, start, policyNo);
+        }
+        update(n);
+        return n;
+    }
+
+    private static Node rotateRight(Node n) {
+        Node l = n.left;
+        n.left = l.right;
+        l.right = n;
+        update(n);
+        update(l);
+        return l;
+    }
+
+    private static Node rotateLeft(Node n) {
+        Node r = n.right;
+        n.right = r.left;
+        r.left = n;
+        update(n);
+        update(r);
+        return r;
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private static void update(Node n) {
+        long max = n.end;
+        if (n.left != null) max = Math.max(max, n.left.maxEnd);
+        if (n.right != null) max = Math.max(max, n.right.maxEnd);
+        n.maxEnd = max;
+    }
+
+    /**
+     * A null policy number sorts after every real one, so it bounds the end of a date.
+     */
+    record DateKey(LocalDate date, String policyNo) implements Comparable<DateKey> {
+        @Override
+        public int compareTo(DateKey o) {
+            int c = date.compareTo(o.date);
+            if (c != 0) return c;
+            if (policyNo == null) return o.policyNo == null ? 0 : 1;
+            if (o.policyNo == null) return -1;
+            return policyNo.compareTo(o.policyNo);
+        }
+    }
+}
@@ -1,12 +1,31 @@
 package com.ozanaktas.insurance.repository;
 
+import com.ozanaktas.insurance.event.ChangeEventBus;
 import com.ozanaktas.insurance.model.Policy;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface PolicyRepository {
-    void save(Policy policy);
+
+    /**
+     * Stores {@code policy} under its policy number.
+     *
+     * @return the policy it replaced, read in the same atomic step as the write
+     */
+    Optional<Policy> save(Policy policy);
+
+    /**
+     * Saves a batch of policies in one call, so implementations can amortize
+     * locking, indexing or log writes across the batch.
+     *
+     * @return every policy the batch replaced, in batch order; a policy number repeated
+     *         in the batch replaces its own earlier entry
+     */
+    List<Policy> saveAll(Collection<Policy> policies);
 
     Optional<Policy> findByPolicyNo(String policyNo);
 
@@ -17,5 +36,53 @@ public interface PolicyRepository {
 
     List<Policy> findByCustomerUsername(String customerUsername);
 
+    int countByCustomerUsername(String customerUsername);
+
+    /**
+     * Keyset page of the whole book ordered by policy number, starting after
+     * {@code afterPolicyNo} (null for the first page).
+     */
+    Slice<Policy> findSlice(String afterPolicyNo, int limit);
+
+    /**
+     * Keyset page of one customer's policies ordered by policy number.
+     */
+    Slice<Policy> findSliceByCustomerUsername(String customerUsername, String afterPolicyNo, int limit);
+
+    /**
+     * Up to {@code limit} policies whose number starts with {@code prefix}, in policy-number
+     * order. A range lookup on the sorted book, for search-as-you-type.
+     */
+    List<Policy> findByPolicyNoPrefix(String prefix, int limit);
+
+    /**
+     * Like {@link #findByPolicyNoPrefix} but only among one customer's policies.
+     */
+    List<Policy> findByCustomerUsernameAndPolicyNoPrefix(String customerUsername, String prefix, int limit);
+
+    /**
+     * Policies whose end date falls in {@code [from, to]} (inclusive), ordered by end date.
+     * Answered from a date index, not a scan. A policy without an end date never ends.
+     */
+    List<Policy> findByEndDateBetween(LocalDate from, LocalDate to);
+
+    /**
+     * Policies in force on {@code date} by their dates ({@code start <= date <= end}),
+     * whatever their status. A null start or end date leaves that side of the term open.
+     */
+    List<Policy> findActiveOn(LocalDate date);
+
     List<Policy> findAll();
+
+    /**
+     * Visits every policy without copying the book into a list, for streaming readers
+     * such as exports. Concurrent implementations iterate weakly consistently.
+     */
+    void forEachPolicy(Consumer<? super Policy> action);
+
+    /**
+     * Publishes every later save and delete as a {@code Policy} change event on {@code eventBus}
+     * (null stops publishing).
+     */
+    void setEventBus(ChangeEventBus eventBus);
 }
\ No newline at end of file
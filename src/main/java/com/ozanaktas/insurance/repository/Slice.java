@@ -0,0 +1,38 @@
+package com.ozanaktas.insurance.repository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated query. {@code nextKey} is the sort key of the last row
+ * and is passed back as the "after" argument to fetch the following page; it is null
+ * when there are no more rows.
+ */
+public record Slice<T>(List<T> content, String nextKey) {
+
+    public boolean hasNext() {
+        return nextKey != null;
+    }
+
+    public static <T> Slice<T> empty() {
+        return new Slice<>(new ArrayList<>(), null);
+    }
+
+    /**
+     * Takes up to {@code limit} rows from an already positioned, ordered source.
+     */
+    static <T> Slice<T> of(Iterable<T> source, int limit, Function<T, String> key) {
+        if (limit <= 0) return empty();
+
+        List<T> content = new ArrayList<>(Math.min(limit, 256));
+        Iterator<T> it = source.iterator();
+        while (content.size() < limit && it.hasNext()) {
+            content.add(it.next());
+        }
+
+        String nextKey = (it.hasNext() && !content.isEmpty()) ? key.apply(content.get(content.size() - 1)) : null;
+        return new Slice<>(content, nextKey);
+    }
+}
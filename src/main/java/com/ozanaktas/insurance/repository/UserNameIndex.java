@@ -0,0 +1,97 @@
+package com.ozanaktas.insurance.repository;
+
+import com.ozanaktas.insurance.model.Role;
+import com.ozanaktas.insurance.model.User;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Case-insensitive prefix index over usernames and full names, partitioned by role.
+ * <p>
+ * Each user is stored under several search terms: the username, the full name and every
+ * word of the full name, so "ve" finds "Ali Veli". Keys are {@code term + '\0' + username},
+ * which keeps keys unique and makes a prefix query one sorted range lookup.
+ */
+final class UserNameIndex {
+
+    private static final char SEPARATOR = '\0';
+
+    private final Map<Role, NavigableMap<String, User>> byRole = new EnumMap<>(Role.class);
+
+    UserNameIndex(boolean concurrent) {
+        for (Role role : Role.values()) {
+            byRole.put(role, concurrent ? new ConcurrentSkipListMap<>() : new TreeMap<>());
+        }
+    }
+
+    void add(String username, User user) {
+        if (user.getRole() == null) return;
+
+        NavigableMap<String, User> terms = byRole.get(user.getRole());
+        for (String term : termsOf(username, user)) {
+            terms.put(term + SEPARATOR + username, user);
+        }
+    }
+
+    void remove(String username, User user) {
+        if (user.getRole() == null) return;
+
+        NavigableMap<String, User> terms = byRole.get(user.getRole());
+        for (String term : termsOf(username, user)) {
+            terms.remove(term + SEPARATOR + username);
+        }
+    }
+
+    /**
+     * Up to {@code limit} distinct users matching {@code prefix}; {@code role} null searches all roles.
+     */
+    List<User> search(Role role, String prefix, int limit) {
+        if (limit <= 0) return new ArrayList<>();
+
+        String p = prefix == null ? "" : prefix.trim().toLowerCase(Locale.ROOT);
+        if (role != null) {
+            return search(byRole.get(role), p, limit);
+        }
+
+        List<User> all = new ArrayList<>();
+        for (NavigableMap<String, User> terms : byRole.values()) {
+            all.addAll(search(terms, p, limit));
+        }
+        all.sort(Comparator.comparing(User::getUsername));
+        return all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all;
+    }
+
+    private static List<User> search(NavigableMap<String, User> terms, String prefix, int limit) {
+        // A user can match through several terms; keep the first hit only
+        Map<String, User> hits = new LinkedHashMap<>();
+        for (User u : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            hits.putIfAbsent(u.getUsername(), u);
+            if (hits.size() >= limit) break;
+        }
+        return new ArrayList<>(hits.values());
+    }
+
+    private static List<String> termsOf(String username, User user) {
+        List<String> terms = new ArrayList<>(4);
+        terms.add(username.toLowerCase(Locale.ROOT));
+
+        String fullName = user.getFullName();
+        if (fullName != null && !fullName.isBlank()) {
+            String name = fullName.trim().toLowerCase(Locale.ROOT);
+            terms.add(name);
+            for (String word : name.split("\\s+")) {
+                if (!terms.contains(word)) terms.add(word);
+            }
+        }
+        return terms;
+    }
+}
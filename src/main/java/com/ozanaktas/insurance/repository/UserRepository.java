@@ -1,9 +1,12 @@
 package com.ozanaktas.insurance.repository;
 
+import com.ozanaktas.insurance.event.ChangeEventBus;
+import com.ozanaktas.insurance.model.Role;
 import com.ozanaktas.insurance.model.User;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserRepository {
 
@@ -13,8 +16,39 @@ public interface UserRepository {
 
     List<User> findAll();
 
+    /**
+     * Users with the given role, sorted by username.
+     */
+    List<User> findByRole(Role role);
+
+    /**
+     * One page of users with the given role, sorted by username, starting after
+     * {@code afterUsername} (or from the beginning when it is null).
+     */
+    List<User> findByRole(Role role, String afterUsername, int limit);
+
+    int countByRole(Role role);
+
+    /**
+     * Up to {@code limit} users whose username, full name or any word of the full name
+     * starts with {@code prefix} (case-insensitive). {@code role} null searches every role.
+     */
+    List<User> searchByPrefix(Role role, String prefix, int limit);
+
     void save(User user);
 
     
     boolean deleteByUsername(String username);
-}
\ No newline at end of file
+
+    /**
+     * Registers a callback that receives the username of every user removed by
+     * {@link #deleteByUsername(String)}, after the removal.
+     */
+    void addDeletionListener(Consumer<String> listener);
+
+    /**
+     * Publishes every later save and delete as a {@code User} change event on {@code eventBus}
+     * (null stops publishing).
+     */
+    void setEventBus(ChangeEventBus eventBus);
+}
@@ -0,0 +1,492 @@
+package com.ozanaktas.insurance.repository;
+
+import com.ozanaktas.insurance.event.ChangeEventBus;
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.model.PolicyStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Durable policy repository: every change is appended to a checksummed write-ahead log
+ * before {@link #save} / {@link #deleteByPolicyNo} return, and the log is replayed into an
+ * in-memory repository on startup. Reads are served entirely from memory.
+ * <p>
+ * Appends are group-committed: a single writer thread drains all pending records,
+ * writes them with one gathering {@link FileChannel#write(ByteBuffer[])} and shares one
+ * {@code force()} between every caller in the batch.
+ * <p>
+ * Record layout: {@code int length | int crc32 | payload}. A torn or corrupt tail
+ * (e.g. after a crash mid-write) is truncated during recovery.
+ * <p>
+ * Changes are applied in memory when they are queued, so the log order matches the memory
+ * order. If the log cannot be written, every change that was not made durable is rolled back
+ * in memory (newest first), its caller gets the error, and the repository refuses further
+ * writes: memory never holds a change a restart would lose. A rollback restores the
+ * previous instance with the status it had when the change was queued, so a status change
+ * should be saved as a new instance ({@link Policy#withStatus}) rather than by editing the
+ * held one before calling {@link #save}.
+ */
+public class WalPolicyRepository implements PolicyRepository, AutoCloseable {
+
+    private static final byte OP_SAVE = 1;
+    private static final byte OP_DELETE = 2;
+
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_BATCH = 4096;
+
+    private static final PendingWrite SHUTDOWN = new PendingWrite(null, null, null);
+
+    private final PolicyRepository delegate;
+    private final FileChannel channel;
+    private final BlockingQueue<PendingWrite> pending = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    // Keeps log order identical to the order changes are applied in memory
+    private final Object appendLock = new Object();
+
+    private boolean closed; // guarded by appendLock
+    private RuntimeException failure; // guarded by appendLock; set once the log can no longer be written
+
+    // End of the last record known to be on disk; the writer truncates back to it after a failed write
+    private long durablePosition;
+
+    public WalPolicyRepository(Path logFile) {
+        this(logFile, new ConcurrentPolicyRepository());
+    }
+
+    public WalPolicyRepository(Path logFile, PolicyRepository delegate) {
+        this.delegate = delegate;
+        try {
+            Path parent = logFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.channel = FileChannel.open(logFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            recover();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open policy log: " + logFile, ex);
+        }
+
+        this.writer = new Thread(this::writeLoop, "policy-wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public Optional<Policy> save(Policy policy) {
+        if (policy == null || policy.getPolicyNo() == null) return Optional.empty();
+
+        CompletableFuture<Void> done;
+        Optional<Policy> replaced;
+        synchronized (appendLock) {
+            done = append(encodeSave(policy), rollbackOf(policy.getPolicyNo().trim()));
+            replaced = delegate.save(policy);
+        }
+        await(done);
+        return replaced;
+    }
+
+    /**
+     * Logs the whole batch before returning; its records are queued together, so they
+     * normally land in a single group commit.
+     */
+    @Override
+    public List<Policy> saveAll(Collection<Policy> policies) {
+        List<Policy> replaced = new ArrayList<>();
+        if (policies == null || policies.isEmpty()) return replaced;
+
+        List<CompletableFuture<Void>> done = new ArrayList<>(policies.size());
+        synchronized (appendLock) {
+            for (Policy p : policies) {
+                if (p == null || p.getPolicyNo() == null) continue;
+                done.add(append(encodeSave(p), rollbackOf(p.getPolicyNo().trim())));
+                delegate.save(p).ifPresent(replaced::add);
+            }
+        }
+        for (CompletableFuture<Void> d : done) {
+            await(d);
+        }
+        return replaced;
+    }
+
+    @Override
+    public Optional<Policy> findByPolicyNo(String policyNo) {
+        return delegate.findByPolicyNo(policyNo);
+    }
+
+    /**
+     * Events come from the in-memory delegate; replaying the log before this is called publishes nothing.
+     */
+    @Override
+    public void setEventBus(ChangeEventBus eventBus) {
+        delegate.setEventBus(eventBus);
+    }
+
+    @Override
+    public boolean existsByPolicyNo(String policyNo) {
+        return delegate.existsByPolicyNo(policyNo);
+    }
+
+    @Override
+    public boolean deleteByPolicyNo(String policyNo) {
+        if (policyNo == null) return false;
+        String no = policyNo.trim();
+
+        CompletableFuture<Void> done;
+        synchronized (appendLock) {
+            if (!delegate.existsByPolicyNo(no)) return false;
+            done = append(encodeDelete(no), rollbackOf(no));
+            delegate.deleteByPolicyNo(no);
+        }
+        await(done);
+        return true;
+    }
+
+    @Override
+    public List<Policy> findByCustomerUsername(String customerUsername) {
+        return delegate.findByCustomerUsername(customerUsername);
+    }
+
+    @Override
+    public int countByCustomerUsername(String customerUsername) {
+        return delegate.countByCustomerUsername(customerUsername);
+    }
+
+    @Override
+    public Slice<Policy> findSlice(String afterPolicyNo, int limit) {
+        return delegate.findSlice(afterPolicyNo, limit);
+    }
+
+    @Override
+    public Slice<Policy> findSliceByCustomerUsername(String customerUsername, String afterPolicyNo, int limit) {
+        return delegate.findSliceByCustomerUsername(customerUsername, afterPolicyNo, limit);
+    }
+
+    @Override
+    public List<Policy> findByPolicyNoPrefix(String prefix, int limit) {
+        return delegate.findByPolicyNoPrefix(prefix, limit);
+    }
+
+    @Override
+    public List<Policy> findByCustomerUsernameAndPolicyNoPrefix(String customerUsername, String prefix, int limit) {
+        return delegate.findByCustomerUsernameAndPolicyNoPrefix(customerUsername, prefix, limit);
+    }
+
+    @Override
+    public List<Policy> findByEndDateBetween(LocalDate from, LocalDate to) {
+        return delegate.findByEndDateBetween(from, to);
+    }
+
+    @Override
+    public List<Policy> findActiveOn(LocalDate date) {
+        return delegate.findActiveOn(date);
+    }
+
+    @Override
+    public List<Policy> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public void forEachPolicy(Consumer<? super Policy> action) {
+        delegate.forEachPolicy(action);
+    }
+
+    /**
+     * Flushes pending records and closes the log. Further writes fail.
+     */
+    @Override
+    public void close() {
+        synchronized (appendLock) {
+            if (closed) return;
+            closed = true;
+            // Queued after every accepted record, so the writer flushes them all before stopping
+            pending.add(SHUTDOWN);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // --- log writing ---
+
+    private CompletableFuture<Void> append(ByteBuffer record, Runnable rollback) {
+        if (failure != null) {
+            throw new IllegalStateException("Policy log is no longer writable", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Policy log is closed");
+        }
+        PendingWrite write = new PendingWrite(record, new CompletableFuture<>(), rollback);
+        pending.add(write);
+        return write.done;
+    }
+
+    /**
+     * Restores the in-memory entry for {@code policyNo} as it is now, before a change is applied.
+     * The status is the one mutable field, so its current value is kept with the instance.
+     */
+    private Runnable rollbackOf(String policyNo) {
+        Policy previous = delegate.findByPolicyNo(policyNo).orElse(null);
+        if (previous == null) {
+            return () -> delegate.deleteByPolicyNo(policyNo);
+        }
+        PolicyStatus status = previous.getStatus();
+        return () -> {
+            previous.setStatus(status);
+            delegate.save(previous);
+        };
+    }
+
+    private static void await(CompletableFuture<Void> done) {
+        try {
+            done.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw ex;
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.clear();
+                batch.add(pending.take());
+                pending.drainTo(batch, MAX_BATCH - 1);
+
+                boolean shutdown = batch.remove(SHUTDOWN);
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+                if (shutdown) return;
+            }
+        } catch (InterruptedException ex) {
+            fail(batch, new IllegalStateException("Policy log writer was interrupted", ex));
+        } catch (IOException ex) {
+            fail(batch, new UncheckedIOException("Policy log write failed", ex));
+        } catch (RuntimeException | Error ex) {
+            fail(batch, new IllegalStateException("Policy log writer failed", ex));
+            if (ex instanceof Error error) throw error;
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+        long remaining = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            buffers[i] = batch.get(i).record;
+            remaining += buffers[i].remaining();
+        }
+
+        long end = durablePosition + remaining;
+        while (remaining > 0) {
+            remaining -= channel.write(buffers);
+        }
+        channel.force(false);
+        durablePosition = end;
+
+        for (PendingWrite w : batch) {
+            w.done.complete(null);
+        }
+    }
+
+    /**
+     * Called once, by the writer as it stops: refuses further writes, rolls back every change
+     * that did not reach the disk (newest first) and fails its caller.
+     */
+    private void fail(List<PendingWrite> batch, RuntimeException cause) {
+        synchronized (appendLock) {
+            failure = cause;
+
+            List<PendingWrite> lost = new ArrayList<>(batch);
+            pending.drainTo(lost);
+            lost.remove(SHUTDOWN);
+
+            for (int i = lost.size() - 1; i >= 0; i--) {
+                try {
+                    lost.get(i).rollback.run();
+                } catch (RuntimeException ex) {
+                    cause.addSuppressed(ex);
+                }
+            }
+            for (PendingWrite w : lost) {
+                w.done.completeExceptionally(cause);
+            }
+        }
+
+        // Best effort: drop a partly written batch so a restart replays only what callers saw succeed
+        try {
+            channel.truncate(durablePosition);
+        } catch (IOException | RuntimeException ex) {
+            cause.addSuppressed(ex);
+        }
+    }
+
+    // --- recovery ---
+
+    private void recover() throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(header, position);
+            header.flip();
+
+            int length = header.getInt();
+            int crc = header.getInt();
+            if (length <= 0 || position + HEADER_BYTES + length > size) break;
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, position + HEADER_BYTES);
+            payload.flip();
+            if (checksum(payload) != crc) break;
+
+            replay(payload);
+            position += HEADER_BYTES + length;
+        }
+
+        if (position < size) {
+            // Torn or corrupt tail: drop it so new records start at a clean boundary
+            channel.truncate(position);
+            channel.force(true);
+        }
+        channel.position(position);
+        durablePosition = position;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) throw new IOException("Unexpected end of policy log");
+        }
+    }
+
+    private void replay(ByteBuffer payload) {
+        byte op = payload.get();
+        if (op == OP_SAVE) {
+            delegate.save(decodePolicy(payload));
+        } else if (op == OP_DELETE) {
+            delegate.deleteByPolicyNo(readString(payload));
+        }
+    }
+
+    // --- encoding ---
+
+    private static ByteBuffer encodeSave(Policy p) {
+        byte[] no = bytes(p.getPolicyNo());
+        byte[] customer = bytes(p.getCustomerUsername());
+
+        int length = 1 + stringBytes(no) + stringBytes(customer) + 1 + 8 + 8 + 8 + 1;
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        payload.put(OP_SAVE);
+        putString(payload, no);
+        putString(payload, customer);
+        payload.put(p.getType() == null ? -1 : (byte) p.getType().ordinal());
+        payload.putDouble(p.getPremium());
+        payload.putLong(p.getStartDate() == null ? Long.MIN_VALUE : p.getStartDate().toEpochDay());
+        payload.putLong(p.getEndDate() == null ? Long.MIN_VALUE : p.getEndDate().toEpochDay());
+        payload.put((byte) p.getStatus().ordinal());
+        payload.flip();
+        return frame(payload);
+    }
+
+    private static ByteBuffer encodeDelete(String policyNo) {
+        byte[] no = bytes(policyNo);
+        ByteBuffer payload = ByteBuffer.allocate(1 + stringBytes(no));
+        payload.put(OP_DELETE);
+        putString(payload, no);
+        payload.flip();
+        return frame(payload);
+    }
+
+    private static Policy decodePolicy(ByteBuffer payload) {
+        String no = readString(payload);
+        String customer = readString(payload);
+        byte type = payload.get();
+        double premium = payload.getDouble();
+        long start = payload.getLong();
+        long end = payload.getLong();
+        byte status = payload.get();
+
+        Policy p = new Policy(no, customer,
+                type < 0 ? null : InsuranceType.values()[type],
+                premium,
+                start == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(start),
+                end == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(end));
+        p.setStatus(PolicyStatus.values()[status]);
+        return p;
+    }
+
+    private static ByteBuffer frame(ByteBuffer payload) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.remaining());
+        record.putInt(payload.remaining());
+        record.putInt(checksum(payload));
+        record.put(payload);
+        record.flip();
+        return record;
+    }
+
+    private static int checksum(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private static byte[] bytes(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringBytes(byte[] b) {
+        return 4 + (b == null ? 0 : b.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] b) {
+        if (b == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(b.length);
+        buffer.put(b);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        byte[] b = new byte[length];
+        buffer.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private record PendingWrite(ByteBuffer record, CompletableFuture<Void> done, Runnable rollback) {
+    }
+}
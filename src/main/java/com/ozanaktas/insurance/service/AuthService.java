@@ -8,9 +8,21 @@ import java.util.Optional;
 public class AuthService {
 
     private final UserRepository userRepository;
+    private final SessionManager sessions;
+    private final LoginThrottle throttle;
 
     public AuthService(UserRepository userRepository) {
+        this(userRepository, new SessionManager(), new LoginThrottle());
+    }
+
+    public AuthService(UserRepository userRepository, SessionManager sessions, LoginThrottle throttle) {
         this.userRepository = userRepository;
+        this.sessions = sessions;
+        this.throttle = throttle;
+        // Sessions resolve the user on every request, so updates show at once and a deleted
+        // user neither stays signed in through an old token nor gets a new one
+        sessions.setUserResolver(userRepository::findByUsername);
+        userRepository.addDeletionListener(sessions::invalidateUser);
     }
 
     
@@ -20,6 +32,16 @@ public class AuthService {
 
     
     public LoginResult loginWithMessage(String username, String password) {
+        return loginWithMessage(username, password, null);
+    }
+
+    /**
+     * Like {@link #loginWithMessage(String, String)}, naming the {@code source} of the
+     * attempt (e.g. a client address). Failures count against the username from every
+     * source, but a source the user has signed in from before keeps its own budget, so
+     * guesses from elsewhere cannot lock the user out of it.
+     */
+    public LoginResult loginWithMessage(String username, String password, String source) {
         String u = (username == null) ? "" : username.trim();
         String p = (password == null) ? "" : password;
 
@@ -30,6 +52,14 @@ public class AuthService {
             return LoginResult.failure("Password cannot be empty.");
         }
 
+        LoginThrottle.Verdict verdict = throttle.acquire(u, source);
+        if (verdict == LoginThrottle.Verdict.USER_LIMITED) {
+            return LoginResult.failure("Too many failed attempts. Try again later.");
+        }
+        if (verdict == LoginThrottle.Verdict.OVERLOADED) {
+            return LoginResult.failure("Too many login attempts right now. Try again shortly.");
+        }
+
         Optional<User> userOpt = userRepository.findByUsername(u);
         if (userOpt.isEmpty()) {
             return LoginResult.failure("User not found.");
@@ -40,17 +70,54 @@ public class AuthService {
             return LoginResult.failure("Wrong password.");
         }
 
+        throttle.onSuccess(u, source, verdict);
         return LoginResult.success(user);
     }
 
+    /**
+     * Checks credentials once and, on success, returns a result carrying a session token.
+     * Later requests present the token to {@link #authenticate(String)} instead.
+     */
+    public LoginResult startSession(String username, String password) {
+        return startSession(username, password, null);
+    }
+
+    public LoginResult startSession(String username, String password, String source) {
+        LoginResult result = loginWithMessage(username, password, source);
+        if (!result.success()) return result;
+        return sessions.issue(result.user())
+                .map(result::withToken)
+                .orElseGet(() -> LoginResult.failure("User not found."));
+    }
+
+    public Optional<User> authenticate(String token) {
+        return sessions.validate(token);
+    }
+
+    public boolean logout(String token) {
+        return sessions.invalidate(token);
+    }
+
+    public SessionManager getSessions() {
+        return sessions;
+    }
+
+    public LoginThrottle getThrottle() {
+        return throttle;
+    }
+
     
-    public static record LoginResult(boolean success, User user, String message) {
+    public static record LoginResult(boolean success, User user, String message, String token) {
         public static LoginResult success(User user) {
-            return new LoginResult(true, user, "Login successful.");
+            return new LoginResult(true, user, "Login successful.", null);
         }
 
         public static LoginResult failure(String message) {
-            return new LoginResult(false, null, message);
+            return new LoginResult(false, null, message, null);
+        }
+
+        public LoginResult withToken(String token) {
+            return new LoginResult(success, user, message, token);
         }
 
         public Optional<User> userOpt() {
@@ -0,0 +1,314 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.Claim;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streaming velocity checks on claim intake, per customer and per policy.
+ * <p>
+ * Each customer and each policy has a sliding window of time buckets kept in a ring:
+ * claim count and total amount per bucket, with running totals that are corrected as
+ * buckets fall out of the window, plus a short ring of recent amount and description
+ * fingerprints. Assessing a claim therefore costs two map lookups and a fixed amount of
+ * work however many claims were seen, and memory is a fixed size per active key. Windows
+ * that have seen no claim for a whole window length are dropped by a sweep that runs on
+ * the intake path at most once per bucket length. The sweep retires a window before
+ * removing it, and a claim that finds its window retired starts a fresh one, so no claim
+ * is counted in a window that has left the map.
+ */
+public class ClaimFraudDetector {
+
+    public enum Signal {
+        CUSTOMER_CLAIM_COUNT,
+        CUSTOMER_TOTAL_AMOUNT,
+        CUSTOMER_REPEATED_AMOUNT,
+        CUSTOMER_REPEATED_DESCRIPTION,
+        POLICY_CLAIM_COUNT,
+        POLICY_TOTAL_AMOUNT,
+        POLICY_REPEATED_AMOUNT,
+        POLICY_REPEATED_DESCRIPTION
+    }
+
+    /**
+     * What one customer or policy may do within the window before its claims are flagged.
+     *
+     * @param maxDuplicates earlier claims in the window that may share a claim's amount
+     *                      or description; 0 flags the first repeat, 1 the second
+     */
+    public record Limits(int maxClaims, double maxAmount, int maxDuplicates) {
+    }
+
+    private static final Signal[] SIGNALS = Signal.values();
+    private static final int POLICY_SHIFT = 4;
+
+    // Returned by Window.add instead of signal bits when the sweep got to the window first
+    private static final int RETIRED = -1;
+
+    // Recent fingerprints remembered per key; a key with more claims than this trips the count limit anyway
+    private static final int FINGERPRINTS = 16;
+
+    private final int buckets;
+    private final long bucketMillis;
+    private final Limits customerLimits;
+    private final Limits policyLimits;
+
+    private final Map<String, Window> customers = new ConcurrentHashMap<>();
+    private final Map<String, Window> policies = new ConcurrentHashMap<>();
+
+    private final LongAdder assessed = new LongAdder();
+    private final LongAdder flagged = new LongAdder();
+    private final AtomicLong lastSweepBucket = new AtomicLong();
+
+    private final long epochNanos = System.nanoTime();
+
+    /**
+     * A 24-hour window in hourly buckets. A customer may file 5 claims totalling 50,000
+     * and a policy 3 claims totalling 25,000. One repeat of an amount or description is
+     * allowed, as a resubmitted or round-figure claim is common; the second is flagged.
+     */
+    public ClaimFraudDetector() {
+        this(Duration.ofHours(24), 24, new Limits(5, 50_000, 1), new Limits(3, 25_000, 1));
+    }
+
+    public ClaimFraudDetector(Duration window, int buckets, Limits customerLimits, Limits policyLimits) {
+        if (buckets <= 0 || window.toMillis() < buckets) {
+            throw new IllegalArgumentException("Window must be at least one millisecond per bucket");
+        }
+        this.buckets = buckets;
+        this.bucketMillis = window.toMillis() / buckets;
+        this.customerLimits = customerLimits;
+        this.policyLimits = policyLimits;
+    }
+
+    /**
+     * Records a claim that has just arrived and returns the signals it raises (empty if none).
+     */
+    public Set<Signal> assess(Claim claim) {
+        long bucket = currentBucket();
+        sweepIfDue(bucket);
+
+        long cents = Math.round(claim.getAmount() * 100);
+        int description = fingerprint(claim.getDescription());
+
+        int mask = 0;
+        if (claim.getCustomerUsername() != null) {
+            mask |= observe(customers, claim.getCustomerUsername(), bucket, cents, description, customerLimits);
+        }
+        if (claim.getPolicyNo() != null) {
+            mask |= observe(policies, claim.getPolicyNo(), bucket, cents, description, policyLimits) << POLICY_SHIFT;
+        }
+
+        assessed.increment();
+        if (mask == 0) return Collections.emptySet();
+
+        flagged.increment();
+        Set<Signal> signals = EnumSet.noneOf(Signal.class);
+        for (int i = 0; i < SIGNALS.length; i++) {
+            if ((mask & (1 << i)) != 0) signals.add(SIGNALS[i]);
+        }
+        return signals;
+    }
+
+    public long assessedCount() { return assessed.sum(); }
+    public long flaggedCount() { return flagged.sum(); }
+    public int trackedCustomers() { return customers.size(); }
+    public int trackedPolicies() { return policies.size(); }
+
+    private int observe(Map<String, Window> windows, String key, long bucket, long cents, int description,
+                        Limits limits) {
+        while (true) {
+            Window w = windows.get(key);
+            if (w == null) {
+                w = windows.computeIfAbsent(key, k -> new Window(buckets, bucket));
+            }
+            int bits = w.add(bucket, cents, description, limits);
+            if (bits != RETIRED) return bits;
+            // Retired after we looked it up: it held nothing within the window, so start afresh
+            windows.remove(key, w);
+        }
+    }
+
+    private void sweepIfDue(long bucket) {
+        long last = lastSweepBucket.get();
+        if (bucket <= last || !lastSweepBucket.compareAndSet(last, bucket)) return;
+
+        // Only one caller per bucket gets here; a window idle for a whole window length holds nothing
+        sweep(bucket - buckets);
+    }
+
+    /**
+     * Drops the windows whose latest claim is in bucket {@code oldest} or earlier.
+     */
+    void sweep(long oldest) {
+        sweep(customers, oldest);
+        sweep(policies, oldest);
+    }
+
+    private static void sweep(Map<String, Window> windows, long oldest) {
+        windows.forEach((key, w) -> {
+            // Removed only once retired, so a claim racing the sweep either lands first or sees it
+            if (w.retireIfIdle(oldest)) {
+                windows.remove(key, w);
+            }
+        });
+    }
+
+    private long currentBucket() {
+        return (System.nanoTime() - epochNanos) / 1_000_000 / bucketMillis;
+    }
+
+    /**
+     * Case- and punctuation-insensitive hash of a description, computed without copying it.
+     */
+    private static int fingerprint(String text) {
+        if (text == null) return 0;
+
+        int h = 1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                h = 31 * h + Character.toLowerCase(c);
+            }
+        }
+        return h;
+    }
+
+    private static int signalBits(int count, long totalCents, int sameAmount, int sameDescription, Limits limits) {
+        int mask = 0;
+        if (count > limits.maxClaims()) mask |= 1;
+        if (totalCents > Math.round(limits.maxAmount() * 100)) mask |= 1 << 1;
+        if (sameAmount > limits.maxDuplicates()) mask |= 1 << 2;
+        if (sameDescription > limits.maxDuplicates()) mask |= 1 << 3;
+        return mask;
+    }
+
+    /**
+     * Sliding window for one key. Most policies only ever see one claim, so a key whose
+     * window holds a single claim keeps it in plain fields; the rings are allocated when
+     * a second claim arrives within the window.
+     */
+    private static final class Window {
+        private final int buckets;
+        private long lastBucket;
+
+        private boolean empty = true;
+        private boolean retired;
+        private long onlyCents;
+        private int onlyDescription;
+        private Rings rings;
+
+        Window(int buckets, long bucket) {
+            this.buckets = buckets;
+            this.lastBucket = bucket;
+        }
+
+        /**
+         * Retires the window if its latest claim is in bucket {@code oldest} or earlier.
+         * Checked and set under the same lock as {@link #add}, so the retirement and a
+         * claim being added cannot interleave; a retired window never takes another claim.
+         */
+        synchronized boolean retireIfIdle(long oldest) {
+            if (retired || lastBucket > oldest) return false;
+            retired = true;
+            return true;
+        }
+
+        /**
+         * Adds one claim and returns the local signal bits: count, amount, repeated amount,
+         * repeated description. Returns {@link #RETIRED} without adding if the window is retired.
+         */
+        synchronized int add(long bucket, long amountCents, int description, Limits limits) {
+            if (retired) return RETIRED;
+            if (rings == null) {
+                if (empty || bucket - lastBucket >= buckets) {
+                    empty = false;
+                    lastBucket = Math.max(lastBucket, bucket);
+                    onlyCents = amountCents;
+                    onlyDescription = description;
+                    return signalBits(1, amountCents, 0, 0, limits);
+                }
+                rings = new Rings(buckets);
+                rings.add(lastBucket, onlyCents, onlyDescription, limits);
+            }
+            lastBucket = Math.max(lastBucket, bucket);
+            return rings.add(bucket, amountCents, description, limits);
+        }
+    }
+
+    /**
+     * Claim count and amount per bucket, and the fingerprints of the latest claims.
+     * Slot {@code b % buckets} holds bucket {@code b} for the buckets in
+     * {@code (lastBucket - buckets, lastBucket]}; older slots are cleared as time moves on,
+     * at most one pass over the ring per claim.
+     */
+    private static final class Rings {
+        private final int[] counts;
+        private final long[] cents;
+        private long lastBucket = Long.MIN_VALUE;
+        private int totalCount;
+        private long totalCents;
+
+        private final long[] recentCents = new long[FINGERPRINTS];
+        private final int[] recentDescriptions = new int[FINGERPRINTS];
+        private final long[] recentBuckets = new long[FINGERPRINTS];
+        private int recentNext;
+
+        Rings(int buckets) {
+            this.counts = new int[buckets];
+            this.cents = new long[buckets];
+            Arrays.fill(recentBuckets, Long.MIN_VALUE);
+        }
+
+        int add(long bucket, long amountCents, int description, Limits limits) {
+            advance(bucket);
+
+            int slot = (int) (lastBucket % counts.length);
+            counts[slot]++;
+            cents[slot] += amountCents;
+            totalCount++;
+            totalCents += amountCents;
+
+            int sameAmount = 0, sameDescription = 0;
+            long oldest = lastBucket - counts.length;
+            for (int i = 0; i < FINGERPRINTS; i++) {
+                if (recentBuckets[i] <= oldest) continue;
+                if (recentCents[i] == amountCents) sameAmount++;
+                if (recentDescriptions[i] == description) sameDescription++;
+            }
+            recentCents[recentNext] = amountCents;
+            recentDescriptions[recentNext] = description;
+            recentBuckets[recentNext] = lastBucket;
+            recentNext = (recentNext + 1) % FINGERPRINTS;
+
+            return signalBits(totalCount, totalCents, sameAmount, sameDescription, limits);
+        }
+
+        private void advance(long bucket) {
+            if (bucket <= lastBucket) return;
+            if (lastBucket == Long.MIN_VALUE) {
+                // Fresh rings are all zero
+                lastBucket = bucket;
+                return;
+            }
+
+            long steps = Math.min(bucket - lastBucket, counts.length);
+            for (long b = bucket - steps + 1; b <= bucket; b++) {
+                int slot = (int) (b % counts.length);
+                totalCount -= counts[slot];
+                totalCents -= cents[slot];
+                counts[slot] = 0;
+                cents[slot] = 0;
+            }
+            lastBucket = bucket;
+        }
+    }
+}
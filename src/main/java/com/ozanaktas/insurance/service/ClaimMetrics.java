@@ -0,0 +1,144 @@
+package com.ozanaktas.insurance.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Queue-wait latency and throughput of the claim queue.
+ * <p>
+ * Waits go into a log-linear histogram: exact below 16 µs, then 8 sub-buckets per power of
+ * two, so any percentile is within 12.5% of the true value. Recording is one index
+ * calculation and one atomic increment, with no allocation and no locks. Rates come from a
+ * ring of one-second slots covering the last minute.
+ */
+public class ClaimMetrics {
+
+    private static final int LINEAR = 16;
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = LINEAR + (64 - 4) * SUB_BUCKETS;
+
+    static final int WINDOW_SECONDS = 60;
+
+    private final AtomicLongArray waitCounts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong waitTotal = new AtomicLong();
+    private final AtomicLong waitMaxMicros = new AtomicLong();
+
+    private final RateWindow processed = new RateWindow();
+    private final RateWindow submitted = new RateWindow();
+
+    public void recordSubmitted() {
+        submitted.add(System.nanoTime());
+    }
+
+    public void recordProcessed(Duration queueWait) {
+        long micros = Math.max(0, queueWait.toNanos() / 1_000);
+        waitCounts.incrementAndGet(bucketOf(micros));
+        waitTotal.incrementAndGet();
+        waitMaxMicros.accumulateAndGet(micros, Math::max);
+        processed.add(System.nanoTime());
+    }
+
+    /**
+     * Queue wait at quantile {@code q} (0..1), rounded up to its bucket's upper bound.
+     */
+    public Duration waitPercentile(double q) {
+        long total = waitTotal.get();
+        if (total == 0) return Duration.ZERO;
+
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += waitCounts.get(i);
+            if (seen >= rank) {
+                return Duration.ofNanos(Math.min(upperBound(i), waitMaxMicros.get()) * 1_000);
+            }
+        }
+        return Duration.ofNanos(waitMaxMicros.get() * 1_000);
+    }
+
+    public Duration maxWait() {
+        return Duration.ofNanos(waitMaxMicros.get() * 1_000);
+    }
+
+    public long processedCount() {
+        return waitTotal.get();
+    }
+
+    /**
+     * Claims processed per second over the last minute.
+     */
+    public double processedPerSecond() {
+        return processed.perSecond(System.nanoTime());
+    }
+
+    /**
+     * Claims submitted per second over the last minute; above the processing rate the backlog is growing.
+     */
+    public double submittedPerSecond() {
+        return submitted.perSecond(System.nanoTime());
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(processedCount(), waitPercentile(0.50), waitPercentile(0.99),
+                waitPercentile(0.999), maxWait(), processedPerSecond(), submittedPerSecond());
+    }
+
+    public record Snapshot(long processed, Duration p50, Duration p99, Duration p999, Duration max,
+                           double processedPerSecond, double submittedPerSecond) {
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < LINEAR) return (int) micros;
+        int exp = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exp - 4) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR) return bucket;
+        int exp = (bucket - LINEAR) / SUB_BUCKETS + 4;
+        int sub = (bucket - LINEAR) % SUB_BUCKETS;
+        long base = 1L << exp;
+        long step = base >>> SUB_BITS;
+        return base + (sub + 1) * step - 1;
+    }
+
+    /**
+     * Counts per wall-clock second in a ring; a slot is reset when a new second claims it.
+     */
+    private static final class RateWindow {
+        private final AtomicLongArray counts = new AtomicLongArray(WINDOW_SECONDS);
+        private final AtomicLongArray seconds = new AtomicLongArray(WINDOW_SECONDS);
+        private final long originNanos = System.nanoTime();
+
+        void add(long nowNanos) {
+            long second = (nowNanos - originNanos) / 1_000_000_000L + 1;
+            int slot = (int) (second % WINDOW_SECONDS);
+            long stamped = seconds.get(slot);
+            if (stamped != second && seconds.compareAndSet(slot, stamped, second)) {
+                counts.set(slot, 0);
+            }
+            counts.incrementAndGet(slot);
+        }
+
+        /**
+         * Average over the completed seconds of the window (the current second is partial).
+         */
+        double perSecond(long nowNanos) {
+            long current = (nowNanos - originNanos) / 1_000_000_000L + 1;
+            long span = Math.min(WINDOW_SECONDS - 1, current - 1);
+            if (span <= 0) return 0;
+
+            long sum = 0;
+            for (int i = 0; i < WINDOW_SECONDS; i++) {
+                long s = seconds.get(i);
+                if (s < current && s >= current - span) {
+                    sum += counts.get(i);
+                }
+            }
+            return (double) sum / span;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.Claim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Drains a {@link ClaimQueueService} with a pool of workers.
+ * <p>
+ * A dispatcher thread takes claims off the queue in batches and routes each one to a
+ * lane chosen by its policy number. Every lane is a single-thread executor, so claims on
+ * the same policy are handled one after another in the order they leave the queue while
+ * different policies run in parallel. After the handler returns the claim is completed through the queue
+ * service, which archives it and pushes the usual undo action onto the engine's undo stack,
+ * e.g. that of the user who started it.
+ * <p>
+ * A claim whose handler throws is retried on its lane straight away, ahead of the later
+ * claims on that policy, up to {@code maxAttempts} times in all; then it is handed to
+ * {@link ClaimQueueService#markFailed(Claim)} and the lane moves on.
+ */
+public class ClaimProcessingEngine {
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private static final long IDLE_PARK_MILLIS = 5;
+
+    private final ClaimQueueService queueService;
+    private final Consumer<Claim> handler;
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final ThreadFactory threadFactory;
+    private final UndoService undo;
+
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+
+    private ExecutorService[] lanes;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    public ClaimProcessingEngine(ClaimQueueService queueService, Consumer<Claim> handler, int workers) {
+        this(queueService, handler, workers, DEFAULT_BATCH_SIZE, namedDaemonThreads("claim-worker"));
+    }
+
+    /**
+     * @param handler       work done per claim before it is marked processed (may be a no-op)
+     * @param threadFactory creates the dispatcher and lane threads
+     */
+    public ClaimProcessingEngine(ClaimQueueService queueService, Consumer<Claim> handler, int workers,
+                                 int batchSize, ThreadFactory threadFactory) {
+        this(queueService, handler, workers, batchSize, DEFAULT_MAX_ATTEMPTS, threadFactory);
+    }
+
+    /**
+     * @param maxAttempts times the handler is tried on one claim before it is marked failed
+     */
+    public ClaimProcessingEngine(ClaimQueueService queueService, Consumer<Claim> handler, int workers,
+                                 int batchSize, int maxAttempts, ThreadFactory threadFactory) {
+        this(queueService, handler, workers, batchSize, maxAttempts, threadFactory, null);
+    }
+
+    /**
+     * @param undo stack the undo of each completed claim is pushed to, e.g.
+     *             {@link UndoRegistry#forUser(String)} of the user who started the engine;
+     *             null uses the queue service's default stack
+     */
+    public ClaimProcessingEngine(ClaimQueueService queueService, Consumer<Claim> handler, int workers,
+                                 int batchSize, int maxAttempts, ThreadFactory threadFactory,
+                                 UndoService undo) {
+        if (workers <= 0 || batchSize <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("Workers, batch size and attempts must be > 0");
+        }
+        this.queueService = queueService;
+        this.handler = handler == null ? c -> { } : handler;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.threadFactory = threadFactory;
+        this.undo = undo;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+
+        lanes = new ExecutorService[workers];
+        for (int i = 0; i < workers; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+        dispatcher = threadFactory.newThread(this::dispatchLoop);
+        dispatcher.start();
+    }
+
+    /**
+     * Stops taking new claims, lets the lanes finish what was already dispatched and
+     * waits up to {@code timeout} in all. The dispatcher is stopped before the lanes shut
+     * down; if it is still dispatching when they do, the claims the lanes refuse go back
+     * to the head of the queue.
+     */
+    public synchronized boolean stop(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!running) return true;
+        running = false;
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        dispatcher.interrupt();
+        dispatcher.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+
+        boolean drained = !dispatcher.isAlive();
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            long left = deadline - System.nanoTime();
+            drained &= lane.awaitTermination(Math.max(left, 0), TimeUnit.NANOSECONDS);
+        }
+        return drained;
+    }
+
+    public boolean isRunning() { return running; }
+
+    public long processedCount() { return processedCount.get(); }
+
+    /**
+     * Claims given up on after {@code maxAttempts} failed attempts.
+     */
+    public long failedCount() { return failedCount.get(); }
+
+    /**
+     * Failed attempts that were retried.
+     */
+    public long retryCount() { return retryCount.get(); }
+
+    private void dispatchLoop() {
+        while (running) {
+            List<Claim> batch = queueService.pollBatch(batchSize);
+            if (batch.isEmpty()) {
+                try {
+                    Thread.sleep(IDLE_PARK_MILLIS);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                continue;
+            }
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(List<Claim> batch) {
+        // Group the batch per lane first so each lane gets one task per batch, not one per claim
+        List<List<Claim>> perLane = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            perLane.add(new ArrayList<>());
+        }
+        for (Claim c : batch) {
+            perLane.get(laneOf(c)).add(c);
+        }
+
+        for (int i = 0; i < workers; i++) {
+            List<Claim> claims = perLane.get(i);
+            if (claims.isEmpty()) continue;
+            try {
+                lanes[i].execute(() -> {
+                    for (Claim c : claims) {
+                        handle(c);
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                // Lanes were shut down by stop(); last first keeps each policy's order at the head
+                for (int j = claims.size() - 1; j >= 0; j--) {
+                    queueService.requeue(claims.get(j));
+                }
+            }
+        }
+    }
+
+    private void handle(Claim claim) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                handler.accept(claim);
+            } catch (RuntimeException ex) {
+                if (attempt < maxAttempts) {
+                    retryCount.incrementAndGet();
+                    continue;
+                }
+                failedCount.incrementAndGet();
+                queueService.markFailed(claim);
+                return;
+            }
+            if (undo != null) {
+                queueService.completeProcessing(claim, undo);
+            } else {
+                queueService.completeProcessing(claim);
+            }
+            processedCount.incrementAndGet();
+            return;
+        }
+    }
+
+    private int laneOf(Claim claim) {
+        String policyNo = claim.getPolicyNo();
+        int h = policyNo == null ? 0 : policyNo.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), workers);
+    }
+
+    static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
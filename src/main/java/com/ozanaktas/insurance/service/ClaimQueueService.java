@@ -1,84 +1,395 @@
 package com.ozanaktas.insurance.service;
 
+import com.ozanaktas.insurance.event.ChangeEvent;
+import com.ozanaktas.insurance.event.ChangeEventBus;
 import com.ozanaktas.insurance.model.Claim;
 import com.ozanaktas.insurance.model.ClaimStatus;
+import com.ozanaktas.insurance.model.InsuranceType;
 
-import java.util.ArrayDeque;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Deque;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
-public class ClaimQueueService {
+/**
+ * Claim queue with undoable processing. Safe for concurrent producers and consumers.
+ * Queued claims are sharded by insurance type and amount band (see {@link ShardedClaimQueue});
+ * each shard serves larger claims first within an age bound, keeps each policy's claims in
+ * submission order, and the shards are served in a weighted rotation.
+ * Closing the service closes its {@link ProcessedClaimArchive}.
+ */
+public class ClaimQueueService implements AutoCloseable {
+
+    private static final int STREAM_PAGE_SIZE = 1024;
+
+    // Extra ids searchClaims asks the text index for, on top of a quarter of the limit
+    private static final int SEARCH_SLACK = 8;
+
+    private final ShardedClaimQueue queue;
+
+    // Processed claims in processing order: recent ones on the heap, older ones spilled to disk
+    private final ProcessedClaimArchive processed;
+
+    // Claims not yet processed (queued or taken by a worker) by id, for duplicate checks and lookups
+    private final Map<UUID, Claim> openById = new ConcurrentHashMap<>();
+
+    // Dead letters: claims a processing engine gave up on, in the order they failed
+    private final Map<UUID, Claim> failed = Collections.synchronizedMap(new LinkedHashMap<>());
 
-    private final Deque<Claim> queue = new ArrayDeque<>();
-    private final List<Claim> processed = new ArrayList<>();
     private final UndoService undoService;
 
+    private final ClaimMetrics metrics = new ClaimMetrics();
+
+    // Every submitted claim's description, queued or processed
+    private final ClaimTextIndex textIndex = new ClaimTextIndex();
+
+    private final ClaimFraudDetector fraudDetector;
+
+    // Fraud signals of open claims that raised any; processing takes the entry along into its undo
+    private final Map<UUID, Set<ClaimFraudDetector.Signal>> flagged = new ConcurrentHashMap<>();
+
+    private volatile ChangeEventBus eventBus;
+
+    /**
+     * @param undoService stack for the undo of claims processed without naming one, e.g. by
+     *                    {@link #processNextBatch(int)} or a {@link ClaimProcessingEngine};
+     *                    null leaves those completions without undo
+     */
     public ClaimQueueService(UndoService undoService) {
+        this(undoService, new ProcessedClaimArchive());
+    }
+
+    public ClaimQueueService(UndoService undoService, ProcessedClaimArchive processed) {
+        this(undoService, processed, claim -> null);
+    }
+
+    /**
+     * @param typeResolver insurance type of a claim's policy, used for sharding;
+     *                     may return null for an unknown policy
+     */
+    public ClaimQueueService(UndoService undoService, ProcessedClaimArchive processed,
+                             Function<Claim, InsuranceType> typeResolver) {
+        this(undoService, processed, typeResolver, new ClaimFraudDetector());
+    }
+
+    public ClaimQueueService(UndoService undoService, ProcessedClaimArchive processed,
+                             Function<Claim, InsuranceType> typeResolver, ClaimFraudDetector fraudDetector) {
         this.undoService = undoService;
+        this.processed = processed;
+        this.queue = new ShardedClaimQueue(typeResolver);
+        this.fraudDetector = fraudDetector;
     }
 
     public void submitClaim(Claim claim) {
         if (claim == null) return;
 
-        if (containsClaimId(claim.getId())) {
+        if (isDuplicate(claim)) {
+            return;
+        }
+        // putIfAbsent makes the duplicate check atomic for concurrent submitters
+        if (openById.putIfAbsent(claim.getId(), claim) != null) {
             return;
         }
 
         claim.setStatus(ClaimStatus.IN_QUEUE);
+        Set<ClaimFraudDetector.Signal> signals = fraudDetector.assess(claim);
+        if (!signals.isEmpty()) {
+            flagged.put(claim.getId(), signals);
+        }
+        textIndex.add(claim);
         queue.addLast(claim);
+        metrics.recordSubmitted();
+        publish(ChangeEvent.added(claim.getId().toString(), claim));
     }
 
     public Optional<Claim> processNext() {
-        Claim next = queue.pollFirst();
+        return processNext(undoService);
+    }
+
+    /**
+     * Processes the next claim and records its undo on {@code undo}, e.g. the stack of
+     * the user who pressed the button.
+     */
+    public Optional<Claim> processNext(UndoService undo) {
+        Claim next = poll();
         if (next == null) return Optional.empty();
 
+        completeProcessing(next, undo);
+        return Optional.of(next);
+    }
+
+    /**
+     * Processes up to {@code max} claims in serving order and returns them.
+     */
+    public List<Claim> processNextBatch(int max) {
+        return processNextBatch(max, undoService);
+    }
+
+    /**
+     * Processes up to {@code max} claims in serving order and records their undo on
+     * {@code undo}, e.g. the stack of the user who started the batch.
+     */
+    public List<Claim> processNextBatch(int max, UndoService undo) {
+        List<Claim> batch = pollBatch(max);
+        for (Claim c : batch) {
+            completeProcessing(c, undo);
+        }
+        return batch;
+    }
+
+    /**
+     * Takes up to {@code max} claims off the queue without processing them,
+     * for engines that hand claims to workers. Each one must later be passed to
+     * {@link #completeProcessing(Claim)}; until then it still counts as open.
+     */
+    public List<Claim> pollBatch(int max) {
+        List<Claim> batch = new ArrayList<>(Math.min(Math.max(max, 0), 1024));
+        while (batch.size() < max) {
+            Claim next = poll();
+            if (next == null) break;
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    /**
+     * Marks a claim taken from the queue as processed, archives it and, if the service
+     * has a default undo stack, registers the undo action that returns it to the head
+     * of its shard.
+     */
+    public void completeProcessing(Claim next) {
+        completeProcessing(next, undoService);
+    }
+
+    /**
+     * Like {@link #completeProcessing(Claim)}, but records the undo on {@code undo};
+     * null leaves the completion without undo.
+     */
+    public void completeProcessing(Claim next, UndoService undo) {
+        UUID id = next.getId();
+        int shard = queue.release(id);
+        openById.remove(id);
+        Set<ClaimFraudDetector.Signal> signals = flagged.remove(id);
         next.setStatus(ClaimStatus.PROCESSED);
         processed.add(next);
+        if (next.getCreatedAt() != null) {
+            metrics.recordProcessed(Duration.between(next.getCreatedAt(), LocalDateTime.now()));
+        }
+        publish(ChangeEvent.updated(id.toString(), next));
+        if (undo == null) return;
 
-        undoService.push(new UndoableAction() {
+        // Captures only the id: the archive hands the claim back on undo, even once it is on disk
+        undo.push(new UndoableAction() {
             @Override
             public String description() {
-                return "Undid processing claim " + next.getId().toString().substring(0, 8) + " (returned to queue)";
+                return "Undid processing claim " + id.toString().substring(0, 8) + " (returned to queue)";
             }
 
             @Override
             public void undo() {
-               
-                processed.remove(next);
-                next.setStatus(ClaimStatus.IN_QUEUE);
-                
-                if (!queue.contains(next)) {
-                    queue.addFirst(next);
-                }
+                // Only a claim that is still processed can go back; otherwise it is already queued
+                processed.remove(id).ifPresent(claim -> {
+                    claim.setStatus(ClaimStatus.IN_QUEUE);
+                    openById.put(id, claim);
+                    if (signals != null) flagged.put(id, signals);
+                    queue.addFirst(claim, shard);
+                    publish(ChangeEvent.updated(id.toString(), claim));
+                });
+            }
+
+            @Override
+            public long retainedBytes() {
+                // Plus the shard index and the small EnumSet of a flagged claim
+                return UndoService.ACTION_OVERHEAD_BYTES + UndoService.UUID_BYTES + UndoService.INT_BYTES
+                        + (signals != null ? UndoService.SMALL_ENUM_SET_BYTES : 0);
             }
         });
+    }
 
-        return Optional.of(next);
+    /**
+     * Returns a claim taken with {@link #pollBatch(int)} to the head of its shard unprocessed,
+     * so it is served again before later claims. To return several, pass them last first.
+     */
+    public void requeue(Claim claim) {
+        if (claim == null || !openById.containsKey(claim.getId())) return;
+        queue.addFirst(claim);
     }
 
-    private boolean containsClaimId(UUID id) {
-        if (id == null) return false;
+    /**
+     * Moves a claim taken with {@link #pollBatch(int)} that could not be processed to the
+     * dead letters with status FAILED. It is no longer open and has no undo.
+     */
+    public void markFailed(Claim claim) {
+        if (claim == null || openById.remove(claim.getId()) == null) return;
+
+        queue.release(claim.getId());
+        flagged.remove(claim.getId());
+        claim.setStatus(ClaimStatus.FAILED);
+        failed.put(claim.getId(), claim);
+        publish(ChangeEvent.updated(claim.getId().toString(), claim));
+    }
 
-        for (Claim c : queue) {
-            if (id.equals(c.getId())) return true;
+    /**
+     * Claims that failed processing, oldest failure first.
+     */
+    public List<Claim> getFailedClaims() {
+        synchronized (failed) {
+            return new ArrayList<>(failed.values());
         }
-        for (Claim c : processed) {
-            if (id.equals(c.getId())) return true;
+    }
+
+    public int failedCount() { return failed.size(); }
+
+    /**
+     * Drops a dead letter for good: it is no longer found by id or by search.
+     *
+     * @return whether {@code id} was a dead letter
+     */
+    public boolean discardFailed(UUID id) {
+        if (id == null) return false;
+
+        Claim claim = failed.remove(id);
+        if (claim == null) return false;
+
+        textIndex.remove(id);
+        publish(ChangeEvent.removed(id.toString(), claim));
+        return true;
+    }
+
+    private Claim poll() {
+        return queue.poll();
+    }
+
+    public Optional<Claim> findById(UUID id) {
+        if (id == null) return Optional.empty();
+
+        Claim open = openById.get(id);
+        if (open != null) return Optional.of(open);
+        Claim dead = failed.get(id);
+        if (dead != null) return Optional.of(dead);
+        return processed.find(id);
+    }
+
+    /**
+     * Queued and processed claims whose description matches {@code query}, newest first.
+     * Words are ANDed, {@code OR} separates alternatives and {@code -word} excludes,
+     * e.g. {@code "flood OR water -basement"}; see {@link ClaimTextIndex}.
+     */
+    public List<Claim> searchClaims(String query, int limit) {
+        List<Claim> result = new ArrayList<>();
+        if (limit <= 0) return result;
+
+        // A hit can be missing from every map for a moment, e.g. while an undo moves it back
+        // to the queue; ask for more ids than needed and more again if that was not enough
+        int fetch = (int) Math.min(Integer.MAX_VALUE, limit + (long) limit / 4 + SEARCH_SLACK);
+        while (true) {
+            List<UUID> ids = textIndex.search(query, fetch);
+            result.clear();
+            for (UUID id : ids) {
+                findById(id).ifPresent(result::add);
+                if (result.size() == limit) return result;
+            }
+            if (ids.size() < fetch || fetch == Integer.MAX_VALUE) return result;
+            fetch = (int) Math.min(Integer.MAX_VALUE, fetch * 2L);
         }
-        return false;
     }
 
+    /**
+     * Fraud signals the claim raised on intake, while it is open; empty if none.
+     */
+    public Set<ClaimFraudDetector.Signal> getFraudSignals(UUID id) {
+        Set<ClaimFraudDetector.Signal> signals = id == null ? null : flagged.get(id);
+        return signals != null ? signals : Set.of();
+    }
+
+    public int flaggedOpenCount() { return flagged.size(); }
+
+    public ClaimFraudDetector getFraudDetector() { return fraudDetector; }
+
+    /**
+     * Publishes submissions, processing and undone processing as {@code Claim} change events
+     * (null stops publishing). A processed claim is an update whose status is PROCESSED.
+     */
+    public void setEventBus(ChangeEventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    private void publish(ChangeEvent<Claim> event) {
+        ChangeEventBus bus = eventBus;
+        if (bus != null) bus.publish(Claim.class, event);
+    }
+
+    public int indexedTermCount() { return textIndex.termCount(); }
+    public long indexedPostingBytes() { return textIndex.postingBytes(); }
+
+    private boolean isDuplicate(Claim claim) {
+        if (claim.getId() == null) return false;
+
+        // Open claims are caught atomically by putIfAbsent in submitClaim. Only this service
+        // marks claims PROCESSED; the archive check also catches a copy whose status was reset
+        return claim.getStatus() == ClaimStatus.PROCESSED
+                || failed.containsKey(claim.getId())
+                || processed.contains(claim.getId());
+    }
+
+    /**
+     * Queued claims in the order they will be served.
+     */
     public List<Claim> getQueueSnapshot() {
-        return new ArrayList<>(queue);
+        return queue.snapshot();
     }
 
+    /**
+     * All processed claims, oldest first. This reads the whole archive including the
+     * on-disk tier; screens should prefer {@link #getProcessedPage(int, int)}.
+     */
     public List<Claim> getProcessedSnapshot() {
-        return new ArrayList<>(processed);
+        return processed.page(0, Integer.MAX_VALUE);
+    }
+
+    public List<Claim> getProcessedPage(int offset, int limit) {
+        return processed.page(offset, limit);
+    }
+
+    public void forEachQueued(Consumer<? super Claim> action) {
+        queue.forEach(action);
+    }
+
+    /**
+     * Visits processed claims oldest first, reading the archive page by page so
+     * memory use does not depend on how many claims have been processed.
+     */
+    public void forEachProcessed(Consumer<? super Claim> action) {
+        int offset = 0;
+        while (true) {
+            List<Claim> page = processed.page(offset, STREAM_PAGE_SIZE);
+            page.forEach(action);
+            if (page.size() < STREAM_PAGE_SIZE) return;
+            offset += page.size();
+        }
     }
 
+    /**
+     * Queue-wait percentiles (time from claim creation to processing) and throughput.
+     */
+    public ClaimMetrics getMetrics() { return metrics; }
+
     public int queuedCount() { return queue.size(); }
+
+    public int queuedCount(InsuranceType type, int amountBand) { return queue.size(type, amountBand); }
     public int processedCount() { return processed.size(); }
-}
\ No newline at end of file
+
+    @Override
+    public void close() {
+        processed.close();
+    }
+}
@@ -0,0 +1,443 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.Claim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over claim descriptions for boolean full-text search.
+ * <p>
+ * Every claim gets an increasing document number when it is added. Descriptions are
+ * lowercased and split into words of letters and digits; a hyphenated word such as
+ * "rear-end" is indexed both whole and as its parts. Each word maps to the sorted list
+ * of documents containing it, stored as variable-length encoded gaps in a byte array
+ * (usually one byte per entry), so adding a claim only appends to a few lists.
+ * <p>
+ * Query syntax: words are ANDed, {@code OR} (upper case) separates alternatives and a
+ * leading {@code -} or {@code NOT} excludes a word, e.g. {@code water OR flood -basement}.
+ * <p>
+ * A claim stays indexed whether it is queued or processed. Removing one only marks its
+ * documents deleted, and searches skip them; once a quarter of the documents are deleted
+ * the posting lists are rewritten without them and the rest renumbered.
+ */
+final class ClaimTextIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    // Fewer deletions than this are never worth a rewrite
+    private static final int MIN_COMPACT_DELETIONS = 1024;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    // Claim id by document number, split into its two halves to avoid a UUID object per claim
+    private long[] idHigh = new long[1024];
+    private long[] idLow = new long[1024];
+    private int documents;
+
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void add(Claim claim) {
+        if (claim == null || claim.getId() == null) return;
+
+        // Tokenize outside the lock; writers only hold it to append
+        Set<String> words = indexTerms(claim.getDescription());
+
+        lock.writeLock().lock();
+        try {
+            int doc = documents++;
+            if (doc == idHigh.length) {
+                idHigh = Arrays.copyOf(idHigh, doc * 2);
+                idLow = Arrays.copyOf(idLow, doc * 2);
+            }
+            idHigh[doc] = claim.getId().getMostSignificantBits();
+            idLow[doc] = claim.getId().getLeastSignificantBits();
+
+            for (String word : words) {
+                postings.computeIfAbsent(word, w -> new Postings()).append(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every document of the claim with {@code id}. This scans the document ids,
+     * so it is meant for claims leaving the service for good, not for every status change.
+     *
+     * @return whether the claim was indexed
+     */
+    boolean remove(UUID id) {
+        if (id == null) return false;
+
+        long high = id.getMostSignificantBits();
+        long low = id.getLeastSignificantBits();
+        lock.writeLock().lock();
+        try {
+            boolean found = false;
+            for (int doc = 0; doc < documents; doc++) {
+                if (idHigh[doc] == high && idLow[doc] == low && !deleted.get(doc)) {
+                    deleted.set(doc);
+                    deletedCount++;
+                    found = true;
+                }
+            }
+            if (deletedCount >= MIN_COMPACT_DELETIONS && deletedCount * 4 >= documents) {
+                compact();
+            }
+            return found;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of up to {@code limit} claims matching {@code query}, most recently added first.
+     */
+    List<UUID> search(String query, int limit) {
+        List<Clause> clauses = parse(query);
+        if (clauses.isEmpty() || limit <= 0) return new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            int[] matches = EMPTY;
+            for (Clause clause : clauses) {
+                matches = union(matches, evaluate(clause));
+            }
+
+            // Several documents can hold the same id if a claim was submitted twice
+            Set<UUID> ids = new LinkedHashSet<>();
+            for (int i = matches.length - 1; i >= 0 && ids.size() < limit; i--) {
+                if (deleted.get(matches[i])) continue;
+                ids.add(new UUID(idHigh[matches[i]], idLow[matches[i]]));
+            }
+            return new ArrayList<>(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Documents not removed.
+     */
+    int documentCount() {
+        lock.readLock().lock();
+        try {
+            return documents - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bytes used by the encoded posting lists, without the term map itself.
+     */
+    long postingBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Postings p : postings.values()) {
+                bytes += p.length;
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites every posting list without the deleted documents, numbering the remaining
+     * ones densely in their old order. Caller holds the write lock.
+     */
+    private void compact() {
+        int[] renumbered = new int[documents];
+        int live = 0;
+        for (int doc = 0; doc < documents; doc++) {
+            if (deleted.get(doc)) {
+                renumbered[doc] = -1;
+            } else {
+                idHigh[live] = idHigh[doc];
+                idLow[live] = idLow[doc];
+                renumbered[doc] = live++;
+            }
+        }
+
+        for (Iterator<Postings> it = postings.values().iterator(); it.hasNext(); ) {
+            Postings old = it.next();
+            Postings kept = old.renumber(renumbered);
+            // Every list is rewritten: even one that lost nothing has new numbers
+            if (kept.count == 0) {
+                it.remove();
+            } else {
+                old.replaceWith(kept);
+            }
+        }
+
+        documents = live;
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    // ---- query evaluation (caller holds the read lock) ----
+
+    private int[] evaluate(Clause clause) {
+        // A clause made only of exclusions would match nearly everything; it matches nothing
+        if (clause.required.isEmpty()) return EMPTY;
+
+        int[] result = allOf(clause.required);
+        for (List<String> excluded : clause.excluded) {
+            if (result.length == 0) break;
+            result = difference(result, allOf(excluded));
+        }
+        return result;
+    }
+
+    /**
+     * Documents containing every one of {@code words}, intersecting the shortest lists first.
+     */
+    private int[] allOf(List<String> words) {
+        List<Postings> lists = new ArrayList<>(words.size());
+        for (String word : words) {
+            Postings p = postings.get(word);
+            if (p == null) return EMPTY;
+            lists.add(p);
+        }
+        lists.sort(Comparator.comparingInt(p -> p.count));
+
+        int[] result = lists.get(0).decode();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = lists.get(i).retain(result);
+        }
+        return result;
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0) return b;
+        if (b.length == 0) return a;
+
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) out[n++] = a[i++];
+            else if (a[i] > b[j]) out[n++] = b[j++];
+            else {
+                out[n++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) out[n++] = a[i++];
+        while (j < b.length) out[n++] = b[j++];
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] difference(int[] a, int[] b) {
+        if (b.length == 0) return a;
+
+        int[] out = new int[a.length];
+        int j = 0, n = 0;
+        for (int doc : a) {
+            while (j < b.length && b[j] < doc) j++;
+            if (j == b.length || b[j] != doc) out[n++] = doc;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // ---- tokenizing and parsing ----
+
+    /**
+     * All words a description is indexed under: whole words and the parts of hyphenated ones.
+     */
+    private static Set<String> indexTerms(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String word : words(text)) {
+            terms.add(word);
+            if (word.indexOf('-') >= 0) {
+                for (String part : word.split("-")) {
+                    if (!part.isEmpty()) terms.add(part);
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Lowercased runs of letters and digits; a hyphen between two of them stays in the word.
+     */
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) return words;
+
+        String s = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= s.length(); i++) {
+            char c = i < s.length() ? s.charAt(i) : ' ';
+            boolean inWord = Character.isLetterOrDigit(c)
+                    || (c == '-' && start >= 0 && i + 1 < s.length() && Character.isLetterOrDigit(s.charAt(i + 1)));
+            if (inWord) {
+                if (start < 0) start = i;
+            } else if (start >= 0) {
+                words.add(s.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static List<Clause> parse(String query) {
+        List<Clause> clauses = new ArrayList<>();
+        if (query == null || query.isBlank()) return clauses;
+
+        Clause clause = new Clause();
+        boolean negateNext = false;
+        for (String token : query.trim().split("\\s+")) {
+            if (token.equals("OR")) {
+                if (!clause.isEmpty()) clauses.add(clause);
+                clause = new Clause();
+                negateNext = false;
+                continue;
+            }
+            if (token.equals("NOT")) {
+                negateNext = true;
+                continue;
+            }
+
+            boolean negate = negateNext;
+            if (token.startsWith("-")) {
+                negate = true;
+                token = token.substring(1);
+            }
+            negateNext = false;
+
+            // "o'brien" becomes "o" and "brien", which must then all occur
+            List<String> words = words(token);
+            if (words.isEmpty()) continue;
+            if (negate) {
+                clause.excluded.add(words);
+            } else {
+                clause.required.addAll(words);
+            }
+        }
+        if (!clause.isEmpty()) clauses.add(clause);
+        return clauses;
+    }
+
+    private static final class Clause {
+        final List<String> required = new ArrayList<>();
+        final List<List<String>> excluded = new ArrayList<>();
+
+        boolean isEmpty() {
+            return required.isEmpty() && excluded.isEmpty();
+        }
+    }
+
+    /**
+     * Sorted document numbers as gaps from the previous one, 7 bits per byte with the
+     * high bit marking that another byte follows.
+     */
+    static final class Postings {
+        byte[] bytes = new byte[4];
+        int length;
+        int count;
+        int last = -1;
+
+        void append(int doc) {
+            if (doc == last) return;
+
+            int gap = doc - last;
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 5));
+            }
+            while ((gap & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            bytes[length++] = (byte) gap;
+            last = doc;
+            count++;
+        }
+
+        int[] decode() {
+            int[] docs = new int[count];
+            int pos = 0, doc = -1;
+            for (int n = 0; n < count; n++) {
+                int gap = 0, shift = 0;
+                byte b;
+                do {
+                    b = bytes[pos++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                doc += gap;
+                docs[n] = doc;
+            }
+            return docs;
+        }
+
+        /**
+         * A new list with each document mapped through {@code renumbered}, leaving out
+         * those mapped to -1. The mapping must keep the order.
+         */
+        Postings renumber(int[] renumbered) {
+            Postings out = new Postings();
+            for (int doc : decode()) {
+                if (renumbered[doc] >= 0) out.append(renumbered[doc]);
+            }
+            return out;
+        }
+
+        void replaceWith(Postings other) {
+            bytes = other.bytes;
+            length = other.length;
+            count = other.count;
+            last = other.last;
+        }
+
+        /**
+         * The documents of {@code candidates} (sorted) that are also in this list,
+         * decoding only as far as the last candidate.
+         */
+        int[] retain(int[] candidates) {
+            int[] out = new int[candidates.length];
+            int pos = 0, doc = -1, decoded = 0, n = 0;
+            for (int candidate : candidates) {
+                while (doc < candidate && decoded < count) {
+                    int gap = 0, shift = 0;
+                    byte b;
+                    do {
+                        b = bytes[pos++];
+                        gap |= (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    doc += gap;
+                    decoded++;
+                }
+                if (doc == candidate) out[n++] = candidate;
+                else if (doc < candidate) break;
+            }
+            return Arrays.copyOf(out, n);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.Claim;
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.repository.PolicyRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Streams policies and claims to CSV or JSON Lines files.
+ * Records are visited one at a time straight from the stores and encoded into a fixed
+ * 64 KB buffer that is flushed to a {@link FileChannel}, so memory use is the same for
+ * ten rows or fifty million.
+ */
+public class ExportService {
+
+    public enum Format { CSV, JSON_LINES }
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private static final String[] POLICY_COLUMNS =
+            {"policyNo", "customerUsername", "type", "premium", "startDate", "endDate", "status"};
+    private static final String[] CLAIM_COLUMNS =
+            {"id", "customerUsername", "policyNo", "description", "amount", "createdAt", "status"};
+
+    private final PolicyRepository policyRepository;
+    private final ClaimQueueService claimQueueService;
+
+    public ExportService(PolicyRepository policyRepository, ClaimQueueService claimQueueService) {
+        this.policyRepository = policyRepository;
+        this.claimQueueService = claimQueueService;
+    }
+
+    /**
+     * Writes every policy to {@code target}; returns the number of rows written.
+     */
+    public long exportPolicies(Path target, Format format) {
+        return write(target, format, POLICY_COLUMNS, sink -> policyRepository.forEachPolicy(p -> sink.accept(new Object[]{
+                p.getPolicyNo(), p.getCustomerUsername(), p.getType(), p.getPremium(),
+                p.getStartDate(), p.getEndDate(), p.getStatus()})));
+    }
+
+    public long exportQueuedClaims(Path target, Format format) {
+        return write(target, format, CLAIM_COLUMNS, sink -> claimQueueService.forEachQueued(c -> sink.accept(claimRow(c))));
+    }
+
+    public long exportProcessedClaims(Path target, Format format) {
+        return write(target, format, CLAIM_COLUMNS, sink -> claimQueueService.forEachProcessed(c -> sink.accept(claimRow(c))));
+    }
+
+    private static Object[] claimRow(Claim c) {
+        return new Object[]{c.getId(), c.getCustomerUsername(), c.getPolicyNo(), c.getDescription(),
+                c.getAmount(), c.getCreatedAt(), c.getStatus()};
+    }
+
+    private long write(Path target, Format format, String[] columns, Consumer<Consumer<Object[]>> source) {
+        try (ChannelWriter out = new ChannelWriter(target)) {
+            if (format == Format.CSV) {
+                out.append(String.join(",", columns)).append('\n');
+            }
+
+            long[] rows = {0};
+            StringBuilder line = new StringBuilder(256);
+            source.accept(values -> {
+                line.setLength(0);
+                if (format == Format.CSV) {
+                    csvRow(line, values);
+                } else {
+                    jsonRow(line, columns, values);
+                }
+                line.append('\n');
+                out.append(line);
+                rows[0]++;
+            });
+            return rows[0];
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Export failed: " + target, ex);
+        }
+    }
+
+    private static void csvRow(StringBuilder line, Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) line.append(',');
+            if (values[i] == null) continue;
+
+            String v = values[i].toString();
+            if (v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0 || v.indexOf('\r') >= 0) {
+                line.append('"').append(v.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(v);
+            }
+        }
+    }
+
+    private static void jsonRow(StringBuilder line, String[] columns, Object[] values) {
+        line.append('{');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) line.append(',');
+            line.append('"').append(columns[i]).append("\":");
+
+            Object v = values[i];
+            // JSON has no NaN or Infinity
+            if (v == null || (v instanceof Double d && !Double.isFinite(d))) {
+                line.append("null");
+            } else if (v instanceof Number) {
+                line.append(v);
+            } else {
+                jsonString(line, v.toString());
+            }
+        }
+        line.append('}');
+    }
+
+    private static void jsonString(StringBuilder line, String s) {
+        line.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * UTF-8 encodes text into one reusable buffer and drains it to the channel when full.
+     * A high surrogate at the end of one append is carried over to pair with the next;
+     * {@link #close()} finishes the encoder. Unpaired surrogates are written as '?'.
+     */
+    private static final class ChannelWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        private char carried;
+        private boolean hasCarried;
+
+        ChannelWriter(Path target) throws IOException {
+            this.channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        ChannelWriter append(char c) {
+            return append(String.valueOf(c));
+        }
+
+        ChannelWriter append(CharSequence text) {
+            CharBuffer chars;
+            if (hasCarried) {
+                chars = CharBuffer.wrap(new StringBuilder(text.length() + 1).append(carried).append(text));
+                hasCarried = false;
+            } else {
+                chars = CharBuffer.wrap(text);
+            }
+
+            encode(chars, false);
+            if (chars.hasRemaining()) {
+                // The encoder stops before a trailing high surrogate until it sees what follows
+                carried = chars.get();
+                hasCarried = true;
+            }
+            return this;
+        }
+
+        private void encode(CharBuffer chars, boolean endOfInput) {
+            while (true) {
+                CoderResult result = encoder.encode(chars, buffer, endOfInput);
+                if (result.isOverflow()) {
+                    drain();
+                } else if (result.isUnderflow()) {
+                    return;
+                } else {
+                    throw new IllegalStateException("Cannot encode export text: " + result);
+                }
+            }
+        }
+
+        private void drain() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                encode(hasCarried ? CharBuffer.wrap(new char[]{carried}) : CharBuffer.allocate(0), true);
+                while (encoder.flush(buffer).isOverflow()) {
+                    drain();
+                }
+                drain();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.ozanaktas.insurance.service;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket throttling of login attempts, per username, per trusted source and globally.
+ * <p>
+ * An attempt takes a token from the global bucket and from its username's bucket, whatever
+ * source it comes from; a successful login gives both back. Only failures therefore drain
+ * buckets, and someone who keeps guessing a password is locked out until the username's
+ * bucket refills, however many sources they rotate through. A credential-stuffing flood
+ * spread over many usernames runs the global bucket dry.
+ * <p>
+ * The source (whatever identifies where an attempt comes from, e.g. a terminal or client
+ * address; null stands for a single unnamed source) only matters once it has been used for
+ * a successful login: the (username, source) pair is then trusted and gets a bucket of its
+ * own that takes the place of both the username's and the global bucket. Guessing from
+ * elsewhere therefore cannot lock the real user out of a place they signed in from before,
+ * and real users keep getting in during a flood. Trust lapses with the pair's bucket when
+ * it sits idle.
+ * <p>
+ * Each bucket is one {@link AtomicLong} updated by compare-and-set, so the hot path takes
+ * no locks. Buckets idle for a while are retired and dropped by a task on one daemon
+ * thread shared by all throttles; {@link #close()} cancels this throttle's task.
+ */
+public class LoginThrottle implements AutoCloseable {
+
+    public enum Verdict {
+        /** Allowed; took a global token. */
+        ALLOWED,
+        /** Allowed on the bucket of a trusted (username, source) pair. */
+        ALLOWED_TRUSTED,
+        /** The username's bucket, or the trusted pair's, is empty. */
+        USER_LIMITED,
+        /** The global bucket is empty and the user is not trusted. */
+        OVERLOADED;
+
+        public boolean allowed() {
+            return this == ALLOWED || this == ALLOWED_TRUSTED;
+        }
+    }
+
+    private final int userBurst;
+    private final long userRefillMillis;
+    private final long idleMillis;
+
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "login-throttle-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final TokenBucket global;
+    // Failure budget per username, shared by every untrusted source
+    private final Map<String, TokenBucket> users = new ConcurrentHashMap<>();
+    // Trusted (username, source) pairs, keyed by pairKey()
+    private final Map<String, TokenBucket> trustedPairs = new ConcurrentHashMap<>();
+    private final ScheduledFuture<?> sweep;
+
+    private final long epochNanos = System.nanoTime();
+
+    /**
+     * 5 failures per user (and per trusted pair) then one more every 30 s; 500 failures
+     * overall then 200 per second; buckets idle for 15 minutes are dropped.
+     */
+    public LoginThrottle() {
+        this(5, Duration.ofSeconds(30), 500, Duration.ofMillis(5), Duration.ofMinutes(15));
+    }
+
+    /**
+     * @param userRefill   time for one token to come back to a user's bucket
+     * @param globalRefill time for one token to come back to the global bucket
+     */
+    public LoginThrottle(int userBurst, Duration userRefill, int globalBurst, Duration globalRefill,
+                         Duration idleTimeout) {
+        if (userBurst <= 0 || globalBurst <= 0 || userBurst > TokenBucket.MAX_TOKENS
+                || globalBurst > TokenBucket.MAX_TOKENS) {
+            throw new IllegalArgumentException("Bursts must be between 1 and " + TokenBucket.MAX_TOKENS);
+        }
+        this.userBurst = userBurst;
+        this.userRefillMillis = Math.max(1, userRefill.toMillis());
+        this.idleMillis = idleTimeout.toMillis();
+        this.global = new TokenBucket(globalBurst, Math.max(1, globalRefill.toMillis()), 0);
+
+        // The task only holds this throttle weakly, so a throttle nobody closed can still be collected
+        long period = Math.max(1_000, idleMillis / 4);
+        WeakReference<LoginThrottle> ref = new WeakReference<>(this);
+        ScheduledFuture<?>[] self = new ScheduledFuture<?>[1];
+        this.sweep = SWEEPER.scheduleWithFixedDelay(() -> {
+            LoginThrottle throttle = ref.get();
+            if (throttle != null) {
+                throttle.evictIdle();
+            } else if (self[0] != null) {
+                self[0].cancel(false);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+        self[0] = sweep;
+    }
+
+    public Verdict acquire(String username) {
+        return acquire(username, null);
+    }
+
+    public Verdict acquire(String username, String source) {
+        long now = nowMillis();
+        TokenBucket pair = trustedPairs.get(pairKey(username, source));
+        if (pair != null) {
+            if (pair.tryTake(now)) return Verdict.ALLOWED_TRUSTED;
+            // A retired pair has lapsed: the attempt is treated like any other
+            if (!pair.isRetired()) return Verdict.USER_LIMITED;
+        }
+
+        // Checked against the global budget before any per-user state is created
+        if (!global.tryTake(now)) {
+            return Verdict.OVERLOADED;
+        }
+        if (take(users, username, now)) {
+            return Verdict.ALLOWED;
+        }
+        global.giveBack(now);
+        return Verdict.USER_LIMITED;
+    }
+
+    public void onSuccess(String username, Verdict verdict) {
+        onSuccess(username, null, verdict);
+    }
+
+    /**
+     * Returns the tokens taken by a granted attempt that turned out to be a real login,
+     * and trusts the (username, source) pair from now on.
+     */
+    public void onSuccess(String username, String source, Verdict verdict) {
+        long now = nowMillis();
+        TokenBucket pair = liveBucket(trustedPairs, pairKey(username, source), now);
+        if (verdict == Verdict.ALLOWED_TRUSTED) {
+            pair.giveBack(now);
+            return;
+        }
+        liveBucket(users, username, now).giveBack(now);
+        if (verdict == Verdict.ALLOWED) {
+            global.giveBack(now);
+        }
+    }
+
+    public int trackedUsers() {
+        return users.size();
+    }
+
+    public int trustedPairCount() {
+        return trustedPairs.size();
+    }
+
+    public int globalTokens() {
+        return global.available(nowMillis());
+    }
+
+    /**
+     * Drops idle buckets. A bucket is retired first, by compare-and-set on its state, which
+     * fails if an attempt used it meanwhile; an attempt that finds it retired moves on to
+     * a fresh bucket instead of updating one that is no longer in the map.
+     */
+    void evictIdle() {
+        long now = nowMillis();
+        evictIdle(users, now);
+        evictIdle(trustedPairs, now);
+    }
+
+    private void evictIdle(Map<String, TokenBucket> buckets, long now) {
+        buckets.forEach((key, bucket) -> {
+            if (bucket.retireIfIdle(now, idleMillis)) {
+                buckets.remove(key, bucket);
+            }
+        });
+    }
+
+    private boolean take(Map<String, TokenBucket> buckets, String key, long now) {
+        while (true) {
+            TokenBucket bucket = liveBucket(buckets, key, now);
+            if (bucket.tryTake(now)) return true;
+            // A bucket retired by the sweeper in the meantime is idle and full: use its replacement
+            if (!bucket.isRetired()) return false;
+        }
+    }
+
+    private TokenBucket liveBucket(Map<String, TokenBucket> buckets, String key, long now) {
+        while (true) {
+            TokenBucket bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(userBurst, userRefillMillis, now));
+            if (!bucket.isRetired()) return bucket;
+            buckets.remove(key, bucket);
+        }
+    }
+
+    private static String pairKey(String username, String source) {
+        return source == null ? username : username + '\0' + source;
+    }
+
+    private long nowMillis() {
+        return (System.nanoTime() - epochNanos) / 1_000_000;
+    }
+
+    @Override
+    public void close() {
+        sweep.cancel(false);
+    }
+
+    /**
+     * State packed into one long: refill timestamp (ms) in the high bits, a retired flag,
+     * and the token count in the low 16 bits. A retired bucket is never changed again.
+     */
+    static final class TokenBucket {
+        static final int MAX_TOKENS = 0xFFFF;
+
+        private static final int TIME_SHIFT = 17;
+        private static final long RETIRED_BIT = 1L << 16;
+
+        private final int capacity;
+        private final long refillMillis;
+        private final AtomicLong state;
+
+        // Plain volatile write per access, before the state is changed; only read by the sweeper
+        volatile long lastSeen;
+
+        TokenBucket(int capacity, long refillMillis, long now) {
+            this.capacity = capacity;
+            this.refillMillis = refillMillis;
+            this.state = new AtomicLong(pack(now, capacity));
+            this.lastSeen = now;
+        }
+
+        boolean tryTake(long now) {
+            lastSeen = now;
+            while (true) {
+                long s = state.get();
+                if ((s & RETIRED_BIT) != 0) {
+                    return false;
+                }
+                long refilled = refill(s, now);
+                int tokens = tokens(refilled);
+                if (tokens == 0) {
+                    return false;
+                }
+                if (state.compareAndSet(s, refilled - 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void giveBack(long now) {
+            while (true) {
+                long s = state.get();
+                if ((s & RETIRED_BIT) != 0) {
+                    return;
+                }
+                long refilled = refill(s, now);
+                if (tokens(refilled) >= capacity) {
+                    return;
+                }
+                if (state.compareAndSet(s, refilled + 1)) {
+                    return;
+                }
+            }
+        }
+
+        boolean isRetired() {
+            return (state.get() & RETIRED_BIT) != 0;
+        }
+
+        /**
+         * Retires the bucket if nobody has used it for {@code idleMillis}. The state is read
+         * before lastSeen, and users write lastSeen before the state, so a use that the
+         * check misses makes the compare-and-set fail.
+         */
+        boolean retireIfIdle(long now, long idleMillis) {
+            long s = state.get();
+            if ((s & RETIRED_BIT) != 0 || now - lastSeen <= idleMillis) {
+                return false;
+            }
+            return state.compareAndSet(s, s | RETIRED_BIT);
+        }
+
+        int available(long now) {
+            return tokens(refill(state.get(), now));
+        }
+
+        /**
+         * Adds whole tokens earned since the stored timestamp. The timestamp only advances
+         * by the time those tokens cost, so partial progress toward the next one is kept.
+         */
+        private long refill(long s, long now) {
+            int tokens = tokens(s);
+            long last = s >>> TIME_SHIFT;
+            if (tokens >= capacity) {
+                return pack(now, tokens);
+            }
+            long earned = (now - last) / refillMillis;
+            if (earned <= 0) {
+                return s;
+            }
+            if (tokens + earned >= capacity) {
+                return pack(now, capacity);
+            }
+            return pack(last + earned * refillMillis, (int) (tokens + earned));
+        }
+
+        private static int tokens(long s) {
+            return (int) (s & MAX_TOKENS);
+        }
+
+        private static long pack(long time, int tokens) {
+            return (time << TIME_SHIFT) | tokens;
+        }
+    }
+}
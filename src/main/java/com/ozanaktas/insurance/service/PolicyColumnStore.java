@@ -0,0 +1,280 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.model.PolicyStatus;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Struct-of-arrays mirror of the policy book for analytics scans.
+ * Each policy occupies one slot across primitive columns (premium, status and type
+ * ordinals, start/end as epoch days), so aggregations run as tight loops over arrays
+ * instead of chasing {@link Policy} objects. Large scans are split into fork/join chunks.
+ * <p>
+ * Kept in sync by {@link PolicyService}; deletes swap the last slot into the hole.
+ */
+public class PolicyColumnStore {
+
+    private static final int STATUSES = PolicyStatus.values().length;
+    // Last slot holds policies without a type
+    private static final int TYPES = InsuranceType.values().length + 1;
+
+    private static final byte NO_TYPE = (byte) (TYPES - 1);
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    // A missing end date stores as this, so an open-ended term covers every later day
+    private static final int OPEN_END = Integer.MAX_VALUE;
+
+    // Below this many rows a parallel split costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private String[] policyNos = new String[16];
+    private double[] premiums = new double[16];
+    private byte[] statuses = new byte[16];
+    private byte[] types = new byte[16];
+    private int[] startDays = new int[16];
+    private int[] endDays = new int[16];
+    private int size;
+
+    public void addAll(Iterable<Policy> policies) {
+        if (policies == null) return;
+        for (Policy p : policies) {
+            upsert(p);
+        }
+    }
+
+    public void upsert(Policy policy) {
+        if (policy == null || policy.getPolicyNo() == null) return;
+
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.get(policy.getPolicyNo());
+            int i;
+            if (slot == null) {
+                ensureCapacity(size + 1);
+                i = size++;
+                slots.put(policy.getPolicyNo(), i);
+            } else {
+                i = slot;
+            }
+            policyNos[i] = policy.getPolicyNo();
+            premiums[i] = policy.getPremium();
+            statuses[i] = (byte) policy.getStatus().ordinal();
+            types[i] = policy.getType() == null ? NO_TYPE : (byte) policy.getType().ordinal();
+            startDays[i] = epochDay(policy.getStartDate());
+            endDays[i] = policy.getEndDate() == null ? OPEN_END : epochDay(policy.getEndDate());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateStatus(String policyNo, PolicyStatus status) {
+        if (policyNo == null || status == null) return;
+
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.get(policyNo);
+            if (slot != null) {
+                statuses[slot] = (byte) status.ordinal();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String policyNo) {
+        if (policyNo == null) return;
+
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.remove(policyNo);
+            if (slot == null) return;
+
+            int last = --size;
+            if (slot != last) {
+                policyNos[slot] = policyNos[last];
+                premiums[slot] = premiums[last];
+                statuses[slot] = statuses[last];
+                types[slot] = types[last];
+                startDays[slot] = startDays[last];
+                endDays[slot] = endDays[last];
+                slots.put(policyNos[slot], slot);
+            }
+            policyNos[last] = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts and premium sums per status and type over the whole book.
+     */
+    public Summary summarize() {
+        return scan(NO_DATE);
+    }
+
+    /**
+     * Same as {@link #summarize()}, restricted to policies whose term covers {@code date}.
+     * A missing start or end date leaves that side of the term open.
+     */
+    public Summary summarizeActiveOn(LocalDate date) {
+        if (date == null) return summarize();
+        return scan((int) date.toEpochDay());
+    }
+
+    private Summary scan(int activeOn) {
+        lock.readLock().lock();
+        try {
+            if (size < PARALLEL_THRESHOLD) {
+                return scanRange(0, size, activeOn);
+            }
+            return ForkJoinPool.commonPool().invoke(new ScanTask(0, size, activeOn));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Summary scanRange(int from, int to, int activeOn) {
+        long[] counts = new long[STATUSES * TYPES];
+        double[] sums = new double[STATUSES * TYPES];
+
+        final double[] premiums = this.premiums;
+        final byte[] statuses = this.statuses;
+        final byte[] types = this.types;
+
+        if (activeOn == NO_DATE) {
+            for (int i = from; i < to; i++) {
+                int cell = statuses[i] * TYPES + types[i];
+                counts[cell]++;
+                sums[cell] += premiums[i];
+            }
+        } else {
+            final int[] startDays = this.startDays;
+            final int[] endDays = this.endDays;
+            for (int i = from; i < to; i++) {
+                if (startDays[i] > activeOn || endDays[i] < activeOn) continue;
+                int cell = statuses[i] * TYPES + types[i];
+                counts[cell]++;
+                sums[cell] += premiums[i];
+            }
+        }
+        return new Summary(counts, sums);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= premiums.length) return;
+
+        int capacity = Math.max(needed, premiums.length * 2);
+        policyNos = Arrays.copyOf(policyNos, capacity);
+        premiums = Arrays.copyOf(premiums, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        types = Arrays.copyOf(types, capacity);
+        startDays = Arrays.copyOf(startDays, capacity);
+        endDays = Arrays.copyOf(endDays, capacity);
+    }
+
+    private static int epochDay(LocalDate date) {
+        return date == null ? NO_DATE : (int) date.toEpochDay();
+    }
+
+    private class ScanTask extends RecursiveTask<Summary> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int activeOn;
+
+        ScanTask(int from, int to, int activeOn) {
+            this.from = from;
+            this.to = to;
+            this.activeOn = activeOn;
+        }
+
+        @Override
+        protected Summary compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                return scanRange(from, to, activeOn);
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask left = new ScanTask(from, mid, activeOn);
+            left.fork();
+            Summary right = new ScanTask(mid, to, activeOn).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * Result of a column scan: counts and premium sums per status x type cell.
+     */
+    public static final class Summary {
+        private final long[] counts;
+        private final double[] sums;
+
+        private Summary(long[] counts, double[] sums) {
+            this.counts = counts;
+            this.sums = sums;
+        }
+
+        private Summary merge(Summary other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+                sums[i] += other.sums[i];
+            }
+            return this;
+        }
+
+        public long count() {
+            long total = 0;
+            for (long c : counts) total += c;
+            return total;
+        }
+
+        public long count(PolicyStatus status) {
+            long total = 0;
+            for (int t = 0; t < TYPES; t++) total += counts[status.ordinal() * TYPES + t];
+            return total;
+        }
+
+        public long count(InsuranceType type) {
+            long total = 0;
+            for (int s = 0; s < STATUSES; s++) total += counts[s * TYPES + type.ordinal()];
+            return total;
+        }
+
+        public double premiumSum() {
+            double total = 0;
+            for (double d : sums) total += d;
+            return total;
+        }
+
+        public double premiumSum(PolicyStatus status) {
+            double total = 0;
+            for (int t = 0; t < TYPES; t++) total += sums[status.ordinal() * TYPES + t];
+            return total;
+        }
+
+        public double premiumSum(InsuranceType type) {
+            double total = 0;
+            for (int s = 0; s < STATUSES; s++) total += sums[s * TYPES + type.ordinal()];
+            return total;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.model.PolicyStatus;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bulk-loads policies from legacy CSV extracts.
+ * <p>
+ * One reader thread cuts the file into chunks of lines; a worker pool parses and validates
+ * chunks in parallel, reserves policy numbers for each chunk in one block and inserts it via
+ * {@link PolicyService#addPolicies}. Rejected rows are written to an error file instead of
+ * stopping the load. Chunks are inserted concurrently, so the service must sit on a
+ * thread-safe repository (e.g. the concurrent or write-ahead-logged one).
+ * <p>
+ * Expected columns: {@code customerUsername,type,premium,startDate,endDate[,status]}
+ * with ISO dates. A first line naming exactly these columns (any case) is skipped as the
+ * header. Fields are plain comma-separated values (no quoting). Blank lines are ignored and
+ * not counted as rows, so rows read always equals imported plus rejected. Policy numbers in
+ * the extract are not used.
+ */
+public class PolicyImportService {
+
+    public static final int DEFAULT_CHUNK_SIZE = 10_000;
+
+    private static final String[] HEADER = {"customerUsername", "type", "premium", "startDate", "endDate", "status"};
+
+    private final PolicyService policyService;
+    private final int chunkSize;
+    private final int workers;
+
+    public PolicyImportService(PolicyService policyService) {
+        this(policyService, DEFAULT_CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    public PolicyImportService(PolicyService policyService, int chunkSize, int workers) {
+        if (chunkSize <= 0 || workers <= 0) {
+            throw new IllegalArgumentException("Chunk size and workers must be > 0");
+        }
+        this.policyService = policyService;
+        this.chunkSize = chunkSize;
+        this.workers = workers;
+    }
+
+    /**
+     * Imports {@code source}, writing rejected rows to {@code errorFile} as
+     * {@code lineNo<TAB>reason<TAB>original line}. {@code onProgress} (may be null)
+     * is called from worker threads after each chunk.
+     */
+    public ImportResult importCsv(Path source, Path errorFile, Consumer<ImportProgress> onProgress) {
+        long startedAt = System.nanoTime();
+        Progress progress = new Progress(startedAt, onProgress);
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "policy-import");
+            t.setDaemon(true);
+            return t;
+        });
+        // Caps chunks held in memory at once
+        Semaphore inFlight = new Semaphore(workers * 2);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8);
+             BufferedWriter errors = Files.newBufferedWriter(errorFile, StandardCharsets.UTF_8)) {
+
+            long lineNo = 0;
+            List<String> lines = new ArrayList<>(chunkSize);
+            long chunkFirstLine = 1;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (lineNo == 1 && isHeader(line)) {
+                    chunkFirstLine = 2;
+                    continue;
+                }
+                lines.add(line);
+
+                if (lines.size() == chunkSize) {
+                    futures.add(submit(pool, inFlight, lines, chunkFirstLine, errors, progress));
+                    lines = new ArrayList<>(chunkSize);
+                    chunkFirstLine = lineNo + 1;
+                }
+            }
+            if (!lines.isEmpty()) {
+                futures.add(submit(pool, inFlight, lines, chunkFirstLine, errors, progress));
+            }
+
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Policy import failed: " + source, ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Policy import interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Policy import failed: " + source, ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return new ImportResult(progress.rows.get(), progress.imported.get(), progress.rejected.get(),
+                Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    private Future<?> submit(ExecutorService pool, Semaphore inFlight, List<String> lines, long firstLineNo,
+                             BufferedWriter errors, Progress progress) throws InterruptedException {
+        inFlight.acquire();
+        return pool.submit(() -> {
+            try {
+                importChunk(lines, firstLineNo, errors, progress);
+            } finally {
+                inFlight.release();
+            }
+            return null;
+        });
+    }
+
+    private void importChunk(List<String> lines, long firstLineNo, BufferedWriter errors, Progress progress)
+            throws IOException {
+        List<Row> valid = new ArrayList<>(lines.size());
+        StringBuilder rejectedText = new StringBuilder();
+        int rows = 0;
+        int rejected = 0;
+
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isBlank()) continue;
+            rows++;
+            try {
+                valid.add(parse(line));
+            } catch (IllegalArgumentException ex) {
+                rejected++;
+                rejectedText.append(firstLineNo + i).append('\t')
+                        .append(ex.getMessage()).append('\t')
+                        .append(line).append('\n');
+            }
+        }
+
+        List<String> numbers = policyService.allocatePolicyNumbers(valid.size());
+        List<Policy> policies = new ArrayList<>(valid.size());
+        for (int i = 0; i < valid.size(); i++) {
+            policies.add(valid.get(i).toPolicy(numbers.get(i)));
+        }
+        policyService.addPolicies(policies);
+
+        if (rejected > 0) {
+            synchronized (errors) {
+                errors.write(rejectedText.toString());
+            }
+        }
+        progress.chunkDone(rows, policies.size(), rejected);
+    }
+
+    /**
+     * True if the line lists the expected column names, with or without the optional status.
+     */
+    private static boolean isHeader(String line) {
+        // Spreadsheet exports often start with a byte order mark
+        if (line.startsWith("\uFEFF")) line = line.substring(1);
+
+        String[] f = line.split(",", -1);
+        if (f.length != HEADER.length && f.length != HEADER.length - 1) return false;
+        for (int i = 0; i < f.length; i++) {
+            if (!f[i].trim().equalsIgnoreCase(HEADER[i])) return false;
+        }
+        return true;
+    }
+
+    private static Row parse(String line) {
+        String[] f = line.split(",", -1);
+        if (f.length < 5) {
+            throw new IllegalArgumentException("Expected at least 5 columns, got " + f.length);
+        }
+
+        String customer = f[0].trim();
+        if (customer.isEmpty()) {
+            throw new IllegalArgumentException("Customer username cannot be empty.");
+        }
+
+        InsuranceType type;
+        try {
+            type = InsuranceType.valueOf(f[1].trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown insurance type: " + f[1].trim());
+        }
+
+        double premium;
+        try {
+            premium = Double.parseDouble(f[2].trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Premium must be a number: " + f[2].trim());
+        }
+        if (premium <= 0) {
+            throw new IllegalArgumentException("Premium must be > 0.");
+        }
+
+        LocalDate start;
+        LocalDate end;
+        try {
+            start = LocalDate.parse(f[3].trim());
+            end = LocalDate.parse(f[4].trim());
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Dates must be ISO (yyyy-MM-dd).");
+        }
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("End date must be after start date.");
+        }
+
+        PolicyStatus status = PolicyStatus.ACTIVE;
+        if (f.length > 5 && !f[5].isBlank()) {
+            try {
+                status = PolicyStatus.valueOf(f[5].trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unknown policy status: " + f[5].trim());
+            }
+        }
+
+        return new Row(customer, type, premium, start, end, status);
+    }
+
+    private record Row(String customer, InsuranceType type, double premium,
+                       LocalDate start, LocalDate end, PolicyStatus status) {
+        Policy toPolicy(String policyNo) {
+            Policy p = new Policy(policyNo, customer, type, premium, start, end);
+            p.setStatus(status);
+            return p;
+        }
+    }
+
+    private static final class Progress {
+        final long startedAt;
+        final Consumer<ImportProgress> listener;
+        final AtomicLong rows = new AtomicLong();
+        final AtomicLong imported = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+
+        Progress(long startedAt, Consumer<ImportProgress> listener) {
+            this.startedAt = startedAt;
+            this.listener = listener;
+        }
+
+        void chunkDone(int chunkRows, int chunkImported, int chunkRejected) {
+            long r = rows.addAndGet(chunkRows);
+            long i = imported.addAndGet(chunkImported);
+            long j = rejected.addAndGet(chunkRejected);
+            if (listener != null) {
+                listener.accept(new ImportProgress(r, i, j, Duration.ofNanos(System.nanoTime() - startedAt)));
+            }
+        }
+    }
+
+    public record ImportProgress(long rowsRead, long imported, long rejected, Duration elapsed) {
+        public double rowsPerSecond() {
+            double seconds = elapsed.toNanos() / 1e9;
+            return seconds <= 0 ? 0 : rowsRead / seconds;
+        }
+    }
+
+    public record ImportResult(long rowsRead, long imported, long rejected, Duration elapsed) {
+        public double rowsPerSecond() {
+            double seconds = elapsed.toNanos() / 1e9;
+            return seconds <= 0 ? 0 : rowsRead / seconds;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.repository.PolicyRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out policy numbers like POL-3001 from an atomic sequence.
+ * The high-water mark is rebuilt once from the repository; after that numbers are
+ * leased in blocks, so allocation never rescans the repository and two callers
+ * can never receive the same number.
+ */
+public class PolicyNumberAllocator {
+
+    public static final String PREFIX = "POL-";
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+
+    private final int blockSize;
+
+    // Highest number that has been leased out or observed in the repository
+    private final AtomicLong highWater;
+
+    private volatile Lease lease = Lease.EMPTY;
+
+    public PolicyNumberAllocator(PolicyRepository policyRepository) {
+        this(policyRepository, DEFAULT_BLOCK_SIZE);
+    }
+
+    public PolicyNumberAllocator(PolicyRepository policyRepository, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be > 0: " + blockSize);
+        }
+        this.blockSize = blockSize;
+        this.highWater = new AtomicLong(scanHighWater(policyRepository));
+    }
+
+    /**
+     * Returns the next free policy number.
+     */
+    public String next() {
+        while (true) {
+            Lease current = lease;
+            if (current == Lease.EMPTY) {
+                renew(current);
+                continue;
+            }
+            long n = current.cursor.getAndIncrement();
+            if (n >= current.end) {
+                renew(current);
+                continue;
+            }
+            // Re-checked after taking n: an observe() into this lease that finished before this read wins
+            if (n <= current.observedHigh.get()) {
+                retire(current);
+                continue;
+            }
+            return format(n);
+        }
+    }
+
+    /**
+     * Reserves {@code count} numbers in one step, for bulk creation.
+     */
+    public List<String> nextBlock(int count) {
+        List<String> res = new ArrayList<>(Math.max(count, 0));
+        if (count <= 0) return res;
+
+        long start = highWater.getAndAdd(count) + 1;
+        for (long n = start; n < start + count; n++) {
+            res.add(format(n));
+        }
+        return res;
+    }
+
+    /**
+     * Records a policy number that was assigned outside the allocator (seed data, imports),
+     * so later allocations never hand it out again. Numbers from {@link #next()} or
+     * {@link #nextBlock} need not be observed.
+     */
+    public void observe(String policyNo) {
+        long n = parse(policyNo);
+        if (n <= 0) return;
+
+        highWater.accumulateAndGet(n, Math::max);
+
+        Lease current = lease;
+        if (n < current.start || n >= current.end) return;
+
+        current.observedHigh.accumulateAndGet(n, Math::max);
+        if (n >= current.cursor.get()) {
+            // The rest of the current block may collide, drop it and lease a fresh one
+            retire(current);
+        }
+    }
+
+    public long highWaterMark() {
+        return highWater.get();
+    }
+
+    private synchronized void renew(Lease exhausted) {
+        if (lease != exhausted) return;
+
+        long start = highWater.getAndAdd(blockSize) + 1;
+        lease = new Lease(start, start + blockSize);
+    }
+
+    private synchronized void retire(Lease stale) {
+        if (lease == stale) {
+            lease = Lease.EMPTY;
+        }
+    }
+
+    private static long scanHighWater(PolicyRepository policyRepository) {
+        long max = 0;
+        if (policyRepository == null) return max;
+
+        for (Policy p : policyRepository.findAll()) {
+            long n = parse(p.getPolicyNo());
+            if (n > max) max = n;
+        }
+        return max;
+    }
+
+    static long parse(String policyNo) {
+        if (policyNo == null) return -1;
+        String no = policyNo.trim();
+        if (!no.startsWith(PREFIX)) return -1;
+
+        try {
+            return Long.parseLong(no.substring(PREFIX.length()));
+        } catch (NumberFormatException ignored) {
+            return -1;
+        }
+    }
+
+    static String format(long n) {
+        return PREFIX + n;
+    }
+
+    private static final class Lease {
+        // Never taken from: next() renews instead of touching its cursor
+        static final Lease EMPTY = new Lease(0, 0);
+
+        final long start;
+        final long end; // exclusive
+        final AtomicLong cursor;
+
+        // Highest number in [start, end) recorded through observe(); not handed out from this lease
+        final AtomicLong observedHigh;
+
+        Lease(long start, long end) {
+            this.start = start;
+            this.end = end;
+            this.cursor = new AtomicLong(start);
+            this.observedHigh = new AtomicLong(start - 1);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Policies ordered by premium, for underwriting queries: premium ranges, top-N and
+ * bottom-N, and percentiles for the whole book or one {@link InsuranceType}.
+ * <p>
+ * Each ordering is a treap (randomized balanced tree) keyed by (premium, policy number)
+ * whose nodes also store their subtree size. That makes it an order-statistic tree:
+ * the k-th smallest premium, and so any percentile, is found in O(log n) without
+ * touching the rest of the book. There is one tree for all policies and one per type.
+ * Each policy number is indexed once: adding a policy replaces whatever was indexed under
+ * its number, and removal goes by number. Guarded by a read-write lock like
+ * {@link PolicyColumnStore}; all policies are included whatever their status.
+ */
+public class PolicyPremiumIndex {
+
+    private final Treap all = new Treap();
+    private final Map<InsuranceType, Treap> byType = new EnumMap<>(InsuranceType.class);
+    // The copy of each policy that is in the trees, to find its node by number
+    private final Map<String, Policy> indexed = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public PolicyPremiumIndex() {
+        for (InsuranceType type : InsuranceType.values()) {
+            byType.put(type, new Treap());
+        }
+    }
+
+    public void addAll(Collection<Policy> policies) {
+        lock.writeLock().lock();
+        try {
+            for (Policy p : policies) {
+                insert(p);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void add(Policy policy) {
+        lock.writeLock().lock();
+        try {
+            insert(policy);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes whatever is indexed under the policy's number, even if its premium or type
+     * has changed since it was added.
+     */
+    public void remove(Policy policy) {
+        if (policy == null || policy.getPolicyNo() == null) return;
+
+        lock.writeLock().lock();
+        try {
+            unlink(policy.getPolicyNo());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return all.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Policies with {@code min <= premium <= max}, cheapest first.
+     */
+    public List<Policy> findByPremiumBetween(double min, double max) {
+        lock.readLock().lock();
+        try {
+            List<Policy> out = new ArrayList<>();
+            all.collectRange(all.root, min, max, out);
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of policies with {@code min <= premium <= max}, in O(log n).
+     */
+    public int countByPremiumBetween(double min, double max) {
+        if (min > max) return 0;
+
+        lock.readLock().lock();
+        try {
+            return all.countBelow(max, true) - all.countBelow(min, false);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The {@code n} most expensive policies, most expensive first.
+     */
+    public List<Policy> top(int n) {
+        lock.readLock().lock();
+        try {
+            List<Policy> out = new ArrayList<>(Math.max(0, Math.min(n, all.size())));
+            all.collectDescending(all.root, n, out);
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The {@code n} cheapest policies, cheapest first.
+     */
+    public List<Policy> bottom(int n) {
+        lock.readLock().lock();
+        try {
+            List<Policy> out = new ArrayList<>(Math.max(0, Math.min(n, all.size())));
+            all.collectAscending(all.root, n, out);
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Nearest-rank premium percentile of the book; {@code q} in (0, 1].
+     */
+    public OptionalDouble percentile(double q) {
+        return percentile(all, q);
+    }
+
+    public OptionalDouble percentile(InsuranceType type, double q) {
+        return percentile(byType.get(type), q);
+    }
+
+    private OptionalDouble percentile(Treap tree, double q) {
+        if (q <= 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be in (0, 1]: " + q);
+        }
+        lock.readLock().lock();
+        try {
+            int n = tree.size();
+            if (n == 0) return OptionalDouble.empty();
+            int rank = (int) Math.ceil(q * n) - 1;
+            return OptionalDouble.of(tree.select(Math.max(rank, 0)).premium);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(Policy p) {
+        if (p == null || p.getPolicyNo() == null) return;
+
+        unlink(p.getPolicyNo());
+        indexed.put(p.getPolicyNo(), p);
+        all.insert(p);
+        if (p.getType() != null) {
+            byType.get(p.getType()).insert(p);
+        }
+    }
+
+    private void unlink(String policyNo) {
+        Policy old = indexed.remove(policyNo);
+        if (old == null) return;
+
+        all.delete(old.getPremium(), policyNo);
+        if (old.getType() != null) {
+            byType.get(old.getType()).delete(old.getPremium(), policyNo);
+        }
+    }
+
+    private static final class Node {
+        final double premium;
+        final String policyNo;
+        final Policy policy;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(Policy policy) {
+            this.premium = policy.getPremium();
+            this.policyNo = policy.getPolicyNo();
+            this.policy = policy;
+        }
+
+        int compareTo(double otherPremium, String otherPolicyNo) {
+            int c = Double.compare(premium, otherPremium);
+            return c != 0 ? c : policyNo.compareTo(otherPolicyNo);
+        }
+    }
+
+    /**
+     * Treap with rotation-based insert and merge-based delete. Not thread-safe on its own;
+     * the enclosing lock guards it.
+     */
+    private static final class Treap {
+        Node root;
+
+        int size() {
+            return size(root);
+        }
+
+        void insert(Policy p) {
+            root = insert(root, new Node(p));
+        }
+
+        void delete(double premium, String policyNo) {
+            root = delete(root, premium, policyNo);
+        }
+
+        Node select(int k) {
+            Node n = root;
+            while (n != null) {
+                int leftSize = size(n.left);
+                if (k < leftSize) {
+                    n = n.left;
+                } else if (k == leftSize) {
+                    return n;
+                } else {
+                    k -= leftSize + 1;
+                    n = n.right;
+                }
+            }
+            throw new IndexOutOfBoundsException();
+        }
+
+        /**
+         * Nodes with premium below {@code bound} (or at most {@code bound} when inclusive).
+         */
+        int countBelow(double bound, boolean inclusive) {
+            int count = 0;
+            Node n = root;
+            while (n != null) {
+                boolean goesLeft = inclusive ? n.premium > bound : n.premium >= bound;
+                if (goesLeft) {
+                    n = n.left;
+                } else {
+                    count += size(n.left) + 1;
+                    n = n.right;
+                }
+            }
+            return count;
+        }
+
+        void collectRange(Node n, double min, double max, List<Policy> out) {
+            if (n == null) return;
+            if (n.premium >= min) collectRange(n.left, min, max, out);
+            if (n.premium >= min && n.premium <= max) out.add(n.policy);
+            if (n.premium <= max) collectRange(n.right, min, max, out);
+        }
+
+        void collectAscending(Node n, int limit, List<Policy> out) {
+            if (n == null || out.size() >= limit) return;
+            collectAscending(n.left, limit, out);
+            if (out.size() < limit) out.add(n.policy);
+            collectAscending(n.right, limit, out);
+        }
+
+        void collectDescending(Node n, int limit, List<Policy> out) {
+            if (n == null || out.size() >= limit) return;
+            collectDescending(n.right, limit, out);
+            if (out.size() < limit) out.add(n.policy);
+            collectDescending(n.left, limit, out);
+        }
+
+        /**
+         * BST insert, then rotate the new node up while it out-prioritizes its parent.
+         */
+        private static Node insert(Node n, Node node) {
+            if (n == null) return node;
+            if (n.compareTo(node.premium, node.policyNo) > 0) {
+                n.left = insert(n.left, node);
+                if (n.left.priority > n.priority) return rotateRight(n);
+            } else {
+                n.right = insert(n.right, node);
+                if (n.right.priority > n.priority) return rotateLeft(n);
+            }
+            update(n);
+            return n;
+        }
+
+        private static Node rotateRight(Node n) {
+            Node l = n.left;
+            n.left = l.right;
+            l.right = n;
+            update(n);
+            update(l);
+            return l;
+        }
+
+        private static Node rotateLeft(Node n) {
+            Node r = n.right;
+            n.right = r.left;
+            r.left = n;
+            update(n);
+            update(r);
+            return r;
+        }
+
+        private static Node merge(Node a, Node b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            if (a.priority > b.priority) {
+                a.right = merge(a.right, b);
+                update(a);
+                return a;
+            }
+            b.left = merge(a, b.left);
+            update(b);
+            return b;
+        }
+
+        private static Node delete(Node n, double premium, String policyNo) {
+            if (n == null) return null;
+            int c = n.compareTo(premium, policyNo);
+            if (c == 0) return merge(n.left, n.right);
+            if (c > 0) {
+                n.left = delete(n.left, premium, policyNo);
+            } else {
+                n.right = delete(n.right, premium, policyNo);
+            }
+            update(n);
+            return n;
+        }
+
+        private static int size(Node n) {
+            return n == null ? 0 : n.size;
+        }
+
+        private static void update(Node n) {
+            n.size = 1 + size(n.left) + size(n.right);
+        }
+    }
+}
@@ -4,23 +4,136 @@ import com.ozanaktas.insurance.model.InsuranceType;
 import com.ozanaktas.insurance.model.PolicyStatus;
 import com.ozanaktas.insurance.model.Policy;
 import com.ozanaktas.insurance.repository.PolicyRepository;
+import com.ozanaktas.insurance.repository.Slice;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class PolicyService {
 
+    private static final int WRITE_STRIPES = 64;
+
     private final PolicyRepository policyRepository;
+    private final PolicyNumberAllocator policyNumberAllocator;
+    private final PolicyStatistics statistics = new PolicyStatistics();
+    private final PolicyColumnStore columnStore = new PolicyColumnStore();
+    private final PolicyPremiumIndex premiumIndex = new PolicyPremiumIndex();
+
+    // A write to a policy and the matching statistics/index updates run under its number's stripe,
+    // so two writers of one policy cannot both count it as new
+    private final ReentrantLock[] writeLocks = new ReentrantLock[WRITE_STRIPES];
 
     public PolicyService(PolicyRepository policyRepository) {
+        this(policyRepository, new PolicyNumberAllocator(policyRepository));
+    }
+
+    public PolicyService(PolicyRepository policyRepository, PolicyNumberAllocator policyNumberAllocator) {
         this.policyRepository = policyRepository;
+        this.policyNumberAllocator = policyNumberAllocator;
+        for (int i = 0; i < WRITE_STRIPES; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
+
+        List<Policy> existing = policyRepository.findAll();
+        this.statistics.addAll(existing);
+        this.columnStore.addAll(existing);
+        this.premiumIndex.addAll(existing);
+    }
+
+    /**
+     * Running counts and premium totals, kept in sync by every write made through this service.
+     */
+    public PolicyStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Columnar mirror of the book for analytics scans, kept in sync like {@link #getStatistics()}.
+     */
+    public PolicyColumnStore getColumnStore() {
+        return columnStore;
+    }
+
+    /**
+     * Policies ordered by premium (ranges, top-N, percentiles), kept in sync like {@link #getStatistics()}.
+     */
+    public PolicyPremiumIndex getPremiumIndex() {
+        return premiumIndex;
     }
 
     public List<Policy> getPoliciesForCustomer(String customerUsername) {
         return policyRepository.findByCustomerUsername(customerUsername);
     }
 
+    /**
+     * One page of a customer's policies ordered by policy number, for lazily loaded lists.
+     */
+    public Slice<Policy> getPoliciesForCustomerPage(String customerUsername, String afterPolicyNo, int limit) {
+        return policyRepository.findSliceByCustomerUsername(customerUsername, afterPolicyNo, limit);
+    }
+
+    public int countPoliciesForCustomer(String customerUsername) {
+        return policyRepository.countByCustomerUsername(customerUsername);
+    }
+
+    /**
+     * Policy numbers starting with {@code prefix}, for search-as-you-type. Numbers are
+     * upper case ("POL-..."), so the prefix is upper-cased first.
+     */
+    public List<String> searchPolicyNumbers(String prefix, int limit) {
+        return policyNumbers(policyRepository.findByPolicyNoPrefix(normalizePrefix(prefix), limit));
+    }
+
+    public List<String> searchCustomerPolicyNumbers(String customerUsername, String prefix, int limit) {
+        return policyNumbers(policyRepository.findByCustomerUsernameAndPolicyNoPrefix(
+                customerUsername, normalizePrefix(prefix), limit));
+    }
+
+    private static String normalizePrefix(String prefix) {
+        return prefix == null ? "" : prefix.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static List<String> policyNumbers(List<Policy> policies) {
+        List<String> numbers = new ArrayList<>(policies.size());
+        for (Policy p : policies) {
+            numbers.add(p.getPolicyNo());
+        }
+        return numbers;
+    }
+
+    /**
+     * Policies ending in {@code [from, to]}, e.g. for renewal campaigns.
+     */
+    public List<Policy> getPoliciesExpiringBetween(LocalDate from, LocalDate to) {
+        return policyRepository.findByEndDateBetween(from, to);
+    }
+
+    public List<Policy> getPoliciesActiveOn(LocalDate date) {
+        return policyRepository.findActiveOn(date);
+    }
+
+    /**
+     * Policies still marked ACTIVE whose end date is before {@code asOf}, for lapse sweeps.
+     */
+    public List<Policy> getLapsedPolicies(LocalDate asOf) {
+        List<Policy> lapsed = new ArrayList<>();
+        if (asOf == null) return lapsed;
+
+        for (Policy p : policyRepository.findByEndDateBetween(LocalDate.MIN, asOf.minusDays(1))) {
+            if (p.getStatus() == PolicyStatus.ACTIVE) {
+                lapsed.add(p);
+            }
+        }
+        return lapsed;
+    }
+
     public List<Policy> getAllPolicies() {
         return policyRepository.findAll();
     }
@@ -38,33 +151,112 @@ public class PolicyService {
                 .orElse(false);
     }
 
+    /**
+     * Stores a policy whose number was assigned elsewhere (seed data, manual entry).
+     */
     public void addPolicy(Policy policy) {
-        policyRepository.save(policy);
+        if (policy == null || policy.getPolicyNo() == null) return;
+        policyNumberAllocator.observe(policy.getPolicyNo());
+        store(policy);
+    }
+
+    // For numbers this service's allocator handed out, which need no observe()
+    private void store(Policy policy) {
+        ReentrantLock lock = writeLock(policy.getPolicyNo());
+        lock.lock();
+        try {
+            Optional<Policy> previous = policyRepository.save(policy);
+
+            previous.ifPresent(statistics::recordRemoved);
+            statistics.recordAdded(policy);
+            columnStore.upsert(policy);
+            premiumIndex.add(policy);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
-     * Generates a new policy number like POL-3001.
-     * Scans existing policies and returns the next available number.
+     * Stores a batch of policies through {@link PolicyRepository#saveAll} and updates
+     * statistics once per policy. Used by bulk import.
+     * <p>
+     * The stripes of every policy number in the batch are held, in stripe order, for the
+     * save and the statistics update; batches on disjoint stripes still run in parallel.
      */
-    public String generateNextPolicyNo() {
-        int max = 0;
-        for (Policy p : policyRepository.findAll()) {
-            String no = p.getPolicyNo();
-            if (no == null) continue;
-            no = no.trim();
-
-            
-            if (no.startsWith("POL-")) {
-                String tail = no.substring(4);
-                try {
-                    int n = Integer.parseInt(tail);
-                    if (n > max) max = n;
-                } catch (NumberFormatException ignored) {
-                    
-                }
+    public void addPolicies(List<Policy> policies) {
+        if (policies == null || policies.isEmpty()) return;
+
+        List<Policy> batch = new ArrayList<>(policies.size());
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (Policy p : policies) {
+            if (p == null || p.getPolicyNo() == null) continue;
+            policyNumberAllocator.observe(p.getPolicyNo());
+            stripes.add(stripe(p.getPolicyNo()));
+            batch.add(p);
+        }
+
+        for (int stripe : stripes) {
+            writeLocks[stripe].lock();
+        }
+        try {
+            // Includes the entries a repeated policy number displaces within this batch
+            List<Policy> replaced = policyRepository.saveAll(batch);
+
+            replaced.forEach(statistics::recordRemoved);
+            batch.forEach(statistics::recordAdded);
+
+            // The indexes replace by number, so they only need the last entry per number
+            Map<String, Policy> latest = new LinkedHashMap<>();
+            for (Policy p : batch) {
+                latest.put(p.getPolicyNo().trim(), p);
+            }
+            latest.values().forEach(columnStore::upsert);
+            premiumIndex.addAll(latest.values());
+        } finally {
+            for (int stripe : stripes.descendingSet()) {
+                writeLocks[stripe].unlock();
             }
         }
-        return "POL-" + (max + 1);
+    }
+
+    /**
+     * Reserves {@code count} policy numbers at once, for callers that build policies in bulk.
+     */
+    public List<String> allocatePolicyNumbers(int count) {
+        return policyNumberAllocator.nextBlock(count);
+    }
+
+    private boolean deletePolicy(String policyNo) {
+        ReentrantLock lock = writeLock(policyNo);
+        lock.lock();
+        try {
+            Optional<Policy> existing = policyRepository.findByPolicyNo(policyNo);
+            if (existing.isEmpty() || !policyRepository.deleteByPolicyNo(policyNo)) {
+                return false;
+            }
+            statistics.recordRemoved(existing.get());
+            columnStore.remove(existing.get().getPolicyNo());
+            premiumIndex.remove(existing.get());
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock writeLock(String policyNo) {
+        return writeLocks[stripe(policyNo)];
+    }
+
+    private static int stripe(String policyNo) {
+        return (policyNo.trim().hashCode() & 0x7fffffff) % WRITE_STRIPES;
+    }
+
+    /**
+     * Generates a new policy number like POL-3001.
+     * Numbers come from the allocator's atomic sequence, so this never scans the repository.
+     */
+    public String generateNextPolicyNo() {
+        return policyNumberAllocator.next();
     }
 
     /**
@@ -73,7 +265,7 @@ public class PolicyService {
     public Policy createPolicy(String customerUsername, InsuranceType type, double premium, LocalDate startDate, LocalDate endDate) {
         String policyNo = generateNextPolicyNo();
         Policy policy = new Policy(policyNo, customerUsername, type, premium, startDate, endDate);
-        addPolicy(policy);
+        store(policy);
         return policy;
     }
 
@@ -89,7 +281,7 @@ public class PolicyService {
                                       UndoService undoService) {
         String policyNo = generateNextPolicyNo();
         Policy policy = new Policy(policyNo, customerUsername, type, premium, startDate, endDate);
-        addPolicy(policy);
+        store(policy);
 
         if (undoService != null) {
             undoService.push(new UndoableAction() {
@@ -100,11 +292,16 @@ public class PolicyService {
 
                 @Override
                 public void undo() {
-                    boolean deleted = policyRepository.deleteByPolicyNo(policyNo);
+                    boolean deleted = deletePolicy(policyNo);
                     if (!deleted) {
                         throw new IllegalStateException("Policy not found for undo: " + policyNo);
                     }
                 }
+
+                @Override
+                public long retainedBytes() {
+                    return UndoService.ACTION_OVERHEAD_BYTES + UndoService.stringBytes(policyNo);
+                }
             });
         }
 
@@ -120,19 +317,31 @@ public class PolicyService {
         }
 
         String no = policyNo.trim();
-        Optional<Policy> opt = policyRepository.findByPolicyNo(no);
-        if (opt.isEmpty()) {
-            return "Policy not found: " + no;
-        }
+        PolicyStatus prev;
+        ReentrantLock lock = writeLock(no);
+        lock.lock();
+        try {
+            Optional<Policy> opt = policyRepository.findByPolicyNo(no);
+            if (opt.isEmpty()) {
+                return "Policy not found: " + no;
+            }
 
-        Policy policy = opt.get();
-        PolicyStatus prev = policy.getStatus();
+            Policy policy = opt.get();
+            prev = policy.getStatus();
 
-        if (prev == PolicyStatus.CANCELLED) {
-            return "Policy is already cancelled: " + no;
-        }
+            if (prev == PolicyStatus.CANCELLED) {
+                return "Policy is already cancelled: " + no;
+            }
 
-        policy.setStatus(PolicyStatus.CANCELLED);
+            // A new instance, so a repository can still restore the old one if the save fails
+            Policy cancelled = policy.withStatus(PolicyStatus.CANCELLED);
+            policyRepository.save(cancelled);
+            statistics.recordStatusChange(cancelled, prev, PolicyStatus.CANCELLED);
+            columnStore.updateStatus(no, PolicyStatus.CANCELLED);
+            premiumIndex.add(cancelled);
+        } finally {
+            lock.unlock();
+        }
 
         if (undoService != null) {
             undoService.push(new UndoableAction() {
@@ -141,10 +350,28 @@ public class PolicyService {
                     return "Undid cancel policy " + no + " (restored to " + prev + ")";
                 }
 
+                // Holds the policy number and prior status only, not the policy itself
                 @Override
                 public void undo() {
-                    
-                    policy.setStatus(prev);
+                    ReentrantLock lock = writeLock(no);
+                    lock.lock();
+                    try {
+                        Policy target = policyRepository.findByPolicyNo(no)
+                                .orElseThrow(() -> new IllegalStateException("Policy not found for undo: " + no));
+                        PolicyStatus current = target.getStatus();
+                        Policy restored = target.withStatus(prev);
+                        policyRepository.save(restored);
+                        statistics.recordStatusChange(restored, current, prev);
+                        columnStore.updateStatus(no, prev);
+                        premiumIndex.add(restored);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+
+                @Override
+                public long retainedBytes() {
+                    return UndoService.ACTION_OVERHEAD_BYTES + UndoService.stringBytes(no);
                 }
             });
         }
@@ -0,0 +1,128 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.model.PolicyStatus;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running policy counts and premium totals, broken down by {@link PolicyStatus}
+ * and {@link InsuranceType}. Updated incrementally by {@link PolicyService} on every
+ * add, delete and status change (including undo), so reading a figure never scans the book.
+ * Premiums are accumulated in cents to keep add/subtract exact.
+ */
+public class PolicyStatistics {
+
+    private static final int STATUSES = PolicyStatus.values().length;
+    // Last slot holds policies without a type
+    private static final int TYPES = InsuranceType.values().length + 1;
+
+    private final LongAdder[][] counts = new LongAdder[STATUSES][TYPES];
+    private final LongAdder[][] premiumCents = new LongAdder[STATUSES][TYPES];
+
+    public PolicyStatistics() {
+        for (int s = 0; s < STATUSES; s++) {
+            for (int t = 0; t < TYPES; t++) {
+                counts[s][t] = new LongAdder();
+                premiumCents[s][t] = new LongAdder();
+            }
+        }
+    }
+
+    public void addAll(Iterable<Policy> policies) {
+        if (policies == null) return;
+        for (Policy p : policies) {
+            recordAdded(p);
+        }
+    }
+
+    public void recordAdded(Policy policy) {
+        if (policy == null) return;
+        apply(policy.getStatus(), policy.getType(), 1, toCents(policy.getPremium()));
+    }
+
+    public void recordRemoved(Policy policy) {
+        if (policy == null) return;
+        apply(policy.getStatus(), policy.getType(), -1, -toCents(policy.getPremium()));
+    }
+
+    public void recordStatusChange(Policy policy, PolicyStatus from, PolicyStatus to) {
+        if (policy == null || from == to) return;
+        long cents = toCents(policy.getPremium());
+        apply(from, policy.getType(), -1, -cents);
+        apply(to, policy.getType(), 1, cents);
+    }
+
+    public long totalCount() {
+        long sum = 0;
+        for (int s = 0; s < STATUSES; s++) {
+            for (int t = 0; t < TYPES; t++) {
+                sum += counts[s][t].sum();
+            }
+        }
+        return sum;
+    }
+
+    public long count(PolicyStatus status) {
+        if (status == null) return 0;
+        long sum = 0;
+        for (int t = 0; t < TYPES; t++) {
+            sum += counts[status.ordinal()][t].sum();
+        }
+        return sum;
+    }
+
+    public long count(InsuranceType type) {
+        if (type == null) return 0;
+        long sum = 0;
+        for (int s = 0; s < STATUSES; s++) {
+            sum += counts[s][type.ordinal()].sum();
+        }
+        return sum;
+    }
+
+    public long count(PolicyStatus status, InsuranceType type) {
+        if (status == null || type == null) return 0;
+        return counts[status.ordinal()][type.ordinal()].sum();
+    }
+
+    public double premiumSum() {
+        long sum = 0;
+        for (int s = 0; s < STATUSES; s++) {
+            for (int t = 0; t < TYPES; t++) {
+                sum += premiumCents[s][t].sum();
+            }
+        }
+        return sum / 100.0;
+    }
+
+    public double premiumSum(PolicyStatus status) {
+        if (status == null) return 0;
+        long sum = 0;
+        for (int t = 0; t < TYPES; t++) {
+            sum += premiumCents[status.ordinal()][t].sum();
+        }
+        return sum / 100.0;
+    }
+
+    public double premiumSum(InsuranceType type) {
+        if (type == null) return 0;
+        long sum = 0;
+        for (int s = 0; s < STATUSES; s++) {
+            sum += premiumCents[s][type.ordinal()].sum();
+        }
+        return sum / 100.0;
+    }
+
+    private void apply(PolicyStatus status, InsuranceType type, int countDelta, long centsDelta) {
+        int s = (status == null ? PolicyStatus.ACTIVE : status).ordinal();
+        int t = (type == null) ? TYPES - 1 : type.ordinal();
+        counts[s][t].add(countDelta);
+        premiumCents[s][t].add(centsDelta);
+    }
+
+    private static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+}
@@ -0,0 +1,713 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.Claim;
+import com.ozanaktas.insurance.model.ClaimStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Two-tier store for processed claims, in processing order.
+ * The most recent {@code hotCapacity} claims stay on the heap; older ones are spilled in
+ * batches to an append-only segment file of compact binary records. Counts and paged reads
+ * span both tiers.
+ * <p>
+ * Cold lookups by id go through an open-addressing hash table that lives in a second file
+ * next to the segment, so find, remove and the duplicate check on submit read one small
+ * block of that file and one record, and never scan the segment. The heap only holds one
+ * file offset and one live count per 256 cold records (about 0.1 byte per claim), so heap
+ * use stays flat however many claims are processed.
+ * <p>
+ * A removal by undo flags the record in the segment and its slot in the table. Once more than
+ * half of the cold records are removed, the segment and table are rewritten without them.
+ * <p>
+ * The files only live for the process (claims are not persisted elsewhere either): they are
+ * truncated when the archive is opened, and {@link #close()} releases them.
+ */
+public class ProcessedClaimArchive implements AutoCloseable {
+
+    public static final int DEFAULT_HOT_CAPACITY = 10_000;
+
+    // One file offset is remembered per this many cold records (sparse index)
+    private static final int INDEX_STRIDE = 256;
+    private static final int SPILL_BATCH = 1024;
+
+    // Record frame: int length | byte flags | payload
+    private static final int RECORD_HEADER = 5;
+    private static final byte FLAG_REMOVED = 1;
+
+    private final int hotCapacity;
+    private final Path segmentFile;
+    private FileChannel segment;
+    private ColdIndex coldIndex;
+
+    private final LinkedHashMap<UUID, Claim> hot = new LinkedHashMap<>();
+
+    private long coldCount;   // records written to the segment, removed ones included
+    private long coldRemoved; // records flagged as removed
+    private long segmentEnd;
+    private long[] strideOffsets = new long[16];
+    private LiveCounts strideLive = new LiveCounts();
+
+    public ProcessedClaimArchive() {
+        this(createTempSegment(), DEFAULT_HOT_CAPACITY);
+    }
+
+    public ProcessedClaimArchive(Path segmentFile, int hotCapacity) {
+        if (hotCapacity <= 0) {
+            throw new IllegalArgumentException("Hot capacity must be > 0: " + hotCapacity);
+        }
+        this.hotCapacity = hotCapacity;
+        this.segmentFile = segmentFile;
+        try {
+            this.segment = open(segmentFile);
+            this.coldIndex = new ColdIndex(indexFile(segmentFile));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open claim archive: " + segmentFile, ex);
+        }
+    }
+
+    public synchronized void add(Claim claim) {
+        if (claim == null || claim.getId() == null) return;
+        hot.put(claim.getId(), claim);
+
+        if (hot.size() >= hotCapacity + SPILL_BATCH) {
+            spill(SPILL_BATCH);
+        }
+    }
+
+    /**
+     * Removes a claim from whichever tier holds it and returns it.
+     * A cold removal reads one record and flags it as removed.
+     */
+    public synchronized Optional<Claim> remove(UUID id) {
+        if (id == null) return Optional.empty();
+
+        Claim claim = hot.remove(id);
+        if (claim != null) return Optional.of(claim);
+
+        try {
+            long slot = coldIndex.find(id);
+            if (slot < 0 || !coldIndex.isLive(slot)) return Optional.empty();
+
+            long offset = coldIndex.offset(slot);
+            Claim removed = readRecord(offset);
+            coldIndex.markRemoved(slot);
+            markRemoved(offset, coldIndex.recordNo(slot));
+            compactIfSparse();
+            return Optional.of(removed);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not remove archived claim", ex);
+        }
+    }
+
+    /**
+     * Whether the archive holds the claim, in either tier.
+     */
+    public synchronized boolean contains(UUID id) {
+        if (id == null) return false;
+        if (hot.containsKey(id)) return true;
+        try {
+            long slot = coldIndex.find(id);
+            return slot >= 0 && coldIndex.isLive(slot);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read claim archive index", ex);
+        }
+    }
+
+    public synchronized Optional<Claim> find(UUID id) {
+        if (id == null) return Optional.empty();
+
+        Claim claim = hot.get(id);
+        if (claim != null) return Optional.of(claim);
+
+        try {
+            long slot = coldIndex.find(id);
+            if (slot < 0 || !coldIndex.isLive(slot)) return Optional.empty();
+            return Optional.of(readRecord(coldIndex.offset(slot)));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read claim archive", ex);
+        }
+    }
+
+    /**
+     * Number of archived claims, clamped to {@link Integer#MAX_VALUE}; see {@link #longSize()}.
+     */
+    public synchronized int size() {
+        return (int) Math.min(Integer.MAX_VALUE, longSize());
+    }
+
+    public synchronized long longSize() {
+        return coldCount - coldRemoved + hot.size();
+    }
+
+    public synchronized int hotSize() {
+        return hot.size();
+    }
+
+    /**
+     * Records in the segment file, including removed ones not yet compacted away.
+     */
+    synchronized long segmentRecords() {
+        return coldCount;
+    }
+
+    /**
+     * Returns up to {@code limit} claims starting at {@code offset}, oldest first,
+     * reading from the segment for the part of the range that is no longer hot.
+     */
+    public synchronized List<Claim> page(int offset, int limit) {
+        List<Claim> res = new ArrayList<>();
+        if (offset < 0 || limit <= 0) return res;
+
+        long liveCold = coldCount - coldRemoved;
+        if (offset < liveCold) {
+            readCold(offset, limit, res);
+        }
+
+        int hotOffset = (int) Math.max(0, offset - liveCold);
+        Iterator<Claim> it = hot.values().iterator();
+        for (int i = 0; i < hotOffset && it.hasNext(); i++) it.next();
+        while (res.size() < limit && it.hasNext()) {
+            res.add(it.next());
+        }
+        return res;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            segment.close();
+            coldIndex.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not close claim archive", ex);
+        }
+    }
+
+    // --- cold tier ---
+
+    private void spill(int count) {
+        List<Claim> batch = new ArrayList<>(count);
+        Iterator<Claim> it = hot.values().iterator();
+        for (int i = 0; i < count && it.hasNext(); i++) {
+            batch.add(it.next());
+            it.remove();
+        }
+        try {
+            long[] offsets = append(segment, batch);
+            for (int i = 0; i < batch.size(); i++) {
+                long recordNo = coldCount - batch.size() + i;
+                // A claim processed again after an undo points at its newest record
+                long replaced = coldIndex.put(batch.get(i).getId(), offsets[i], recordNo);
+                if (replaced >= 0) {
+                    markRemoved(recordOffset(replaced), replaced);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not spill processed claims", ex);
+        }
+    }
+
+    /**
+     * Appends {@code claims} to the end of {@code channel} as new cold records and returns their offsets.
+     */
+    private long[] append(FileChannel channel, List<Claim> claims) throws IOException {
+        long[] offsets = new long[claims.size()];
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long position = segmentEnd;
+        for (int i = 0; i < claims.size(); i++) {
+            byte[] record = encode(claims.get(i));
+            if (buffer.remaining() < record.length + RECORD_HEADER) {
+                position += writeOut(channel, buffer, position);
+                if (buffer.capacity() < record.length + RECORD_HEADER) {
+                    buffer = ByteBuffer.allocate(record.length + RECORD_HEADER);
+                }
+            }
+            long offset = position + buffer.position();
+            if (coldCount % INDEX_STRIDE == 0) {
+                rememberStride(offset);
+            }
+            strideLive.add((int) (coldCount / INDEX_STRIDE), 1);
+            buffer.putInt(record.length);
+            buffer.put((byte) 0);
+            buffer.put(record);
+            offsets[i] = offset;
+            coldCount++;
+        }
+        segmentEnd = position + writeOut(channel, buffer, position);
+        return offsets;
+    }
+
+    private static int writeOut(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        buffer.clear();
+        return written;
+    }
+
+    private void rememberStride(long offset) {
+        int slot = (int) (coldCount / INDEX_STRIDE);
+        if (slot >= strideOffsets.length) {
+            strideOffsets = Arrays.copyOf(strideOffsets, strideOffsets.length * 2);
+        }
+        strideOffsets[slot] = offset;
+        strideLive.appendStride();
+    }
+
+    private void markRemoved(long offset, long recordNo) throws IOException {
+        ByteBuffer flag = ByteBuffer.wrap(new byte[]{FLAG_REMOVED});
+        while (flag.hasRemaining()) {
+            segment.write(flag, offset + 4);
+        }
+        coldRemoved++;
+        strideLive.add((int) (recordNo / INDEX_STRIDE), -1);
+    }
+
+    // File offset of a record, found by walking its stride
+    private long recordOffset(long recordNo) throws IOException {
+        long position = strideOffsets[(int) (recordNo / INDEX_STRIDE)];
+        ByteBuffer lengthBuf = ByteBuffer.allocate(4);
+        for (long n = recordNo - recordNo % INDEX_STRIDE; n < recordNo; n++) {
+            position += RECORD_HEADER + readInt(lengthBuf, position);
+        }
+        return position;
+    }
+
+    /**
+     * Reads live cold records starting at live position {@code from}. The stride holding
+     * that position is found from the per-stride live counts; only that stride is walked.
+     */
+    private void readCold(long from, int limit, List<Claim> out) {
+        try {
+            int stride = strideLive.strideOf(from);
+            long skip = from - strideLive.liveBefore(stride);
+            long recordNo = (long) stride * INDEX_STRIDE;
+            long position = strideOffsets[stride];
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+
+            while (recordNo < coldCount && out.size() < limit) {
+                header.clear();
+                readFully(segment, header, position);
+                header.flip();
+                int length = header.getInt();
+                boolean removed = (header.get() & FLAG_REMOVED) != 0;
+
+                if (!removed) {
+                    if (skip > 0) {
+                        skip--;
+                    } else {
+                        out.add(decode(readBytes(position + RECORD_HEADER, length)));
+                    }
+                }
+                position += RECORD_HEADER + length;
+                recordNo++;
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read claim archive", ex);
+        }
+    }
+
+    /**
+     * Rewrites the segment and its table without removed records once they are the majority,
+     * so undo-heavy use cannot grow the files (or the cost of paging) without bound.
+     */
+    private void compactIfSparse() throws IOException {
+        if (coldRemoved < SPILL_BATCH || coldRemoved * 2 <= coldCount) return;
+
+        Path compactFile = segmentFile.resolveSibling(segmentFile.getFileName() + ".compact");
+        FileChannel oldSegment = segment;
+        ColdIndex oldIndex = coldIndex;
+        long oldCount = coldCount;
+
+        FileChannel compacted = open(compactFile);
+        coldIndex = new ColdIndex(indexFile(compactFile));
+        coldCount = 0;
+        coldRemoved = 0;
+        segmentEnd = 0;
+        strideLive = new LiveCounts();
+
+        List<Claim> live = new ArrayList<>(SPILL_BATCH);
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        long position = 0;
+        for (long n = 0; n < oldCount; n++) {
+            header.clear();
+            readFully(oldSegment, header, position);
+            header.flip();
+            int length = header.getInt();
+            if ((header.get() & FLAG_REMOVED) == 0) {
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(oldSegment, payload, position + RECORD_HEADER);
+                payload.flip();
+                live.add(decode(payload));
+            }
+            position += RECORD_HEADER + length;
+
+            if (live.size() == SPILL_BATCH || (n == oldCount - 1 && !live.isEmpty())) {
+                long[] offsets = append(compacted, live);
+                for (int i = 0; i < live.size(); i++) {
+                    coldIndex.put(live.get(i).getId(), offsets[i], coldCount - live.size() + i);
+                }
+                live.clear();
+            }
+        }
+
+        oldSegment.close();
+        oldIndex.close();
+        Files.move(compactFile, segmentFile, StandardCopyOption.REPLACE_EXISTING);
+        coldIndex.moveTo(indexFile(segmentFile));
+        segment = compacted;
+    }
+
+    private Claim readRecord(long offset) throws IOException {
+        int length = readInt(ByteBuffer.allocate(4), offset);
+        return decode(readBytes(offset + RECORD_HEADER, length));
+    }
+
+    private int readInt(ByteBuffer buf, long position) throws IOException {
+        buf.clear();
+        readFully(segment, buf, position);
+        buf.flip();
+        return buf.getInt();
+    }
+
+    private ByteBuffer readBytes(long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        readFully(segment, buf, position);
+        buf.flip();
+        return buf;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        long start = position - buf.position();
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, start + buf.position()) < 0) {
+                throw new IOException("Unexpected end of claim archive");
+            }
+        }
+    }
+
+    // --- record format: id, createdAt, status, amount, then length-prefixed strings ---
+
+    // Marks a claim stored without a creation time; no real timestamp uses this second
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private static byte[] encode(Claim c) {
+        byte[] customer = bytes(c.getCustomerUsername());
+        byte[] policyNo = bytes(c.getPolicyNo());
+        byte[] description = bytes(c.getDescription());
+
+        ByteBuffer b = ByteBuffer.allocate(16 + 12 + 1 + 8 + 12 + customer.length + policyNo.length + description.length);
+        b.putLong(c.getId().getMostSignificantBits());
+        b.putLong(c.getId().getLeastSignificantBits());
+        LocalDateTime createdAt = c.getCreatedAt();
+        b.putLong(createdAt == null ? NO_TIMESTAMP : createdAt.toEpochSecond(ZoneOffset.UTC));
+        b.putInt(createdAt == null ? 0 : createdAt.getNano());
+        b.put(c.getStatus() == null ? -1 : (byte) c.getStatus().ordinal());
+        b.putDouble(c.getAmount());
+        putString(b, customer);
+        putString(b, policyNo);
+        putString(b, description);
+        return b.array();
+    }
+
+    private static Claim decode(ByteBuffer b) {
+        UUID id = new UUID(b.getLong(), b.getLong());
+        long seconds = b.getLong();
+        int nanos = b.getInt();
+        LocalDateTime createdAt = seconds == NO_TIMESTAMP ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+        byte status = b.get();
+        double amount = b.getDouble();
+        String customer = getString(b);
+        String policyNo = getString(b);
+        String description = getString(b);
+        return new Claim(id, customer, policyNo, description, amount, createdAt,
+                status < 0 ? null : ClaimStatus.values()[status]);
+    }
+
+    private static byte[] bytes(String s) {
+        return s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer b, byte[] s) {
+        b.putInt(s.length);
+        b.put(s);
+    }
+
+    private static String getString(ByteBuffer b) {
+        byte[] s = new byte[b.getInt()];
+        b.get(s);
+        return new String(s, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Live cold records per stride, as a Fenwick tree, so the stride holding the n-th live
+     * record is found in O(log strides) however many records were removed.
+     */
+    private static final class LiveCounts {
+        private int[] counts = new int[16];
+        private long[] tree = new long[17]; // 1-based
+        private int strides;
+
+        void appendStride() {
+            if (strides == counts.length) {
+                counts = Arrays.copyOf(counts, strides * 2);
+                rebuild();
+            }
+            int i = ++strides;
+            // A new, empty stride covers the sum of the strides below it in its range
+            tree[i] = prefix(i - 1) - prefix(i - (i & -i));
+        }
+
+        void add(int stride, int delta) {
+            counts[stride] += delta;
+            for (int i = stride + 1; i <= strides; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        // Live records in strides [0, stride)
+        long liveBefore(int stride) {
+            return prefix(stride);
+        }
+
+        // Stride holding the live record at 0-based position {@code live}
+        int strideOf(long live) {
+            int idx = 0;
+            long rest = live;
+            for (int step = Integer.highestOneBit(Math.max(strides, 1)); step > 0; step >>= 1) {
+                int next = idx + step;
+                if (next <= strides && tree[next] <= rest) {
+                    idx = next;
+                    rest -= tree[next];
+                }
+            }
+            return idx;
+        }
+
+        private long prefix(int n) {
+            long sum = 0;
+            for (int i = n; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+
+        private void rebuild() {
+            tree = new long[counts.length + 1];
+            for (int i = 1; i <= strides; i++) {
+                tree[i] += counts[i - 1];
+                int parent = i + (i & -i);
+                if (parent <= strides) tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /**
+     * Claim id to record offset and number, as an open-addressing table with linear probing
+     * stored in its own file. A slot is {@code id high | id low | offset | state}, where state
+     * is 0 for an empty slot, {@code recordNo + 1} for a live record and its negation once the
+     * record is removed. Probes read a block of slots at a time; the table doubles (dropping
+     * removed entries) when it is half full.
+     */
+    private static final class ColdIndex {
+        private static final int SLOT_BYTES = 32;
+        private static final int PROBE_SLOTS = 8;
+        private static final long INITIAL_SLOTS = 1024;
+
+        private Path file;
+        private FileChannel channel;
+        private long capacity;
+        private long size;
+
+        // The slot last returned by find(), so offset()/recordNo() need no second read
+        private final ByteBuffer block = ByteBuffer.allocate(PROBE_SLOTS * SLOT_BYTES);
+        private long foundOffset;
+        private long foundState;
+
+        ColdIndex(Path file) throws IOException {
+            this.file = file;
+            this.channel = open(file);
+            this.capacity = INITIAL_SLOTS;
+            reserve(channel, capacity);
+        }
+
+        /**
+         * Slot holding {@code id}, live or removed, or -1.
+         */
+        long find(UUID id) throws IOException {
+            long h = id.getMostSignificantBits(), l = id.getLeastSignificantBits();
+            long mask = capacity - 1;
+            long slot = hash(h, l) & mask;
+            while (true) {
+                int n = readBlock(slot);
+                for (int i = 0; i < n; i++, slot = (slot + 1) & mask) {
+                    long state = block.getLong(i * SLOT_BYTES + 24);
+                    if (state == 0) return -1;
+                    if (block.getLong(i * SLOT_BYTES) == h && block.getLong(i * SLOT_BYTES + 8) == l) {
+                        foundOffset = block.getLong(i * SLOT_BYTES + 16);
+                        foundState = state;
+                        return slot;
+                    }
+                }
+            }
+        }
+
+        boolean isLive(long slot) { return foundState > 0; }
+
+        long offset(long slot) { return foundOffset; }
+
+        long recordNo(long slot) { return Math.abs(foundState) - 1; }
+
+        void markRemoved(long slot) throws IOException {
+            foundState = -Math.abs(foundState);
+            writeLong(slot * SLOT_BYTES + 24, foundState);
+        }
+
+        /**
+         * Points {@code id} at a new record and returns the record number of the live record
+         * it replaced, or -1.
+         */
+        long put(UUID id, long offset, long recordNo) throws IOException {
+            if ((size + 1) * 2 > capacity) grow();
+
+            long h = id.getMostSignificantBits(), l = id.getLeastSignificantBits();
+            long replaced = -1;
+            long slot = find(id);
+            if (slot >= 0) {
+                if (foundState > 0) replaced = foundState - 1;
+            } else {
+                slot = emptySlot(h, l);
+                size++;
+            }
+            ByteBuffer entry = ByteBuffer.allocate(SLOT_BYTES);
+            entry.putLong(h).putLong(l).putLong(offset).putLong(recordNo + 1).flip();
+            writeFully(channel, entry, slot * SLOT_BYTES);
+            return replaced;
+        }
+
+        void moveTo(Path target) throws IOException {
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+            file = target;
+        }
+
+        void close() throws IOException {
+            channel.close();
+            Files.deleteIfExists(file);
+        }
+
+        private long emptySlot(long h, long l) throws IOException {
+            long mask = capacity - 1;
+            long slot = hash(h, l) & mask;
+            while (true) {
+                int n = readBlock(slot);
+                for (int i = 0; i < n; i++, slot = (slot + 1) & mask) {
+                    if (block.getLong(i * SLOT_BYTES + 24) == 0) return slot;
+                }
+            }
+        }
+
+        // Reads up to PROBE_SLOTS slots from {@code slot}, stopping at the end of the table
+        private int readBlock(long slot) throws IOException {
+            int n = (int) Math.min(PROBE_SLOTS, capacity - slot);
+            block.clear().limit(n * SLOT_BYTES);
+            readFully(channel, block, slot * SLOT_BYTES);
+            return n;
+        }
+
+        private void grow() throws IOException {
+            Path grownFile = file.resolveSibling(file.getFileName() + ".new");
+            FileChannel grown = open(grownFile);
+            long grownCapacity = capacity * 2;
+            reserve(grown, grownCapacity);
+
+            FileChannel old = channel;
+            long oldCapacity = capacity;
+            channel = grown;
+            capacity = grownCapacity;
+            size = 0;
+
+            ByteBuffer chunk = ByteBuffer.allocate(2048 * SLOT_BYTES);
+            for (long slot = 0; slot < oldCapacity; slot += 2048) {
+                int n = (int) Math.min(2048, oldCapacity - slot);
+                chunk.clear().limit(n * SLOT_BYTES);
+                readFully(old, chunk, slot * SLOT_BYTES);
+                for (int i = 0; i < n; i++) {
+                    long state = chunk.getLong(i * SLOT_BYTES + 24);
+                    if (state <= 0) continue; // empty, or removed: dropped here
+                    long h = chunk.getLong(i * SLOT_BYTES), l = chunk.getLong(i * SLOT_BYTES + 8);
+                    ByteBuffer entry = ByteBuffer.allocate(SLOT_BYTES);
+                    entry.putLong(h).putLong(l).putLong(chunk.getLong(i * SLOT_BYTES + 16)).putLong(state).flip();
+                    writeFully(channel, entry, emptySlot(h, l) * SLOT_BYTES);
+                    size++;
+                }
+            }
+
+            old.close();
+            Files.move(grownFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        private void writeLong(long position, long value) throws IOException {
+            ByteBuffer b = ByteBuffer.allocate(8);
+            b.putLong(value).flip();
+            writeFully(channel, b, position);
+        }
+
+        // Sizes the file to the table so every slot reads back as zero (empty) until written
+        private static void reserve(FileChannel channel, long slots) throws IOException {
+            writeFully(channel, ByteBuffer.wrap(new byte[1]), slots * SLOT_BYTES - 1);
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer b, long position) throws IOException {
+            long start = position - b.position();
+            while (b.hasRemaining()) {
+                channel.write(b, start + b.position());
+            }
+        }
+
+        private static long hash(long high, long low) {
+            long x = high ^ low;
+            x ^= x >>> 33;
+            x *= 0xff51afd7ed558ccdL;
+            x ^= x >>> 33;
+            return x;
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static Path indexFile(Path segmentFile) {
+        return segmentFile.resolveSibling(segmentFile.getFileName() + ".idx");
+    }
+
+    private static Path createTempSegment() {
+        try {
+            Path file = Files.createTempFile("processed-claims", ".seg");
+            file.toFile().deleteOnExit();
+            return file;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not create claim archive", ex);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.User;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Opaque session tokens for users who have already logged in.
+ * <p>
+ * Tokens are 256 random bits, URL-safe Base64. A session holds only the username: validation
+ * is one {@link ConcurrentHashMap} lookup, an expiry check and a lookup of the user by name,
+ * with no password comparison, so a changed role or name is seen by the next request and a
+ * deleted user's tokens stop working even before they are revoked. Sessions
+ * live for a fixed TTL. The number of live sessions is capped, and the oldest are evicted
+ * first. Because every session has the same TTL, issue order is also expiry order, so one FIFO
+ * queue serves both for purging expired sessions and for size eviction. Expired sessions are
+ * purged on every issue and, at most once per second, on validation.
+ * <p>
+ * Issuing and revoking a user's sessions both run inside one {@code compute} on that user's
+ * entry, so a session issued while the user is being deleted is either refused (the user is
+ * already gone) or revoked with the rest.
+ */
+public class SessionManager {
+
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(30);
+    public static final int DEFAULT_MAX_SESSIONS = 10_000;
+
+    private static final int TOKEN_BYTES = 32;
+    private static final long SWEEP_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+    private final long ttlNanos;
+    private final int maxSessions;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    // Tokens in issue (= expiry) order; may still hold tokens already logged out
+    private final Queue<Session> issueOrder = new ConcurrentLinkedQueue<>();
+
+    // username -> that user's live tokens, for invalidating everything on delete
+    private final Map<String, Set<String>> byUser = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+    private volatile Function<String, Optional<User>> users = username -> Optional.empty();
+
+    public SessionManager() {
+        this(DEFAULT_TTL, DEFAULT_MAX_SESSIONS);
+    }
+
+    public SessionManager(Duration ttl, int maxSessions) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero() || maxSessions <= 0) {
+            throw new IllegalArgumentException("TTL and max sessions must be > 0");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * Looks users up by name when a session is issued and on every validation; a username
+     * it does not find gets no session and its tokens do not validate. Until one is set
+     * (or when set to null) no user is found.
+     */
+    public void setUserResolver(Function<String, Optional<User>> users) {
+        this.users = users == null ? username -> Optional.empty() : users;
+    }
+
+    /**
+     * A new token for {@code user}, or empty if the user no longer exists.
+     */
+    public Optional<String> issue(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = encoder.encodeToString(bytes);
+
+        Session session = new Session(token, user.getUsername(), System.nanoTime() + ttlNanos);
+        Function<String, Optional<User>> resolver = users;
+        boolean[] issued = {false};
+        byUser.compute(user.getUsername(), (username, tokens) -> {
+            if (resolver.apply(username).isEmpty()) return tokens;
+            if (tokens == null) tokens = ConcurrentHashMap.newKeySet();
+            tokens.add(token);
+            sessions.put(token, session);
+            issued[0] = true;
+            return tokens;
+        });
+        if (!issued[0]) return Optional.empty();
+
+        issueOrder.add(session);
+        evict(System.nanoTime());
+        return Optional.of(token);
+    }
+
+    /**
+     * The current state of the user a live token belongs to, or empty if the token is
+     * unknown, expired or revoked or the user no longer exists.
+     */
+    public Optional<User> validate(String token) {
+        if (token == null) return Optional.empty();
+
+        long now = System.nanoTime();
+        sweepIfDue(now);
+
+        Session session = sessions.get(token);
+        if (session == null) return Optional.empty();
+
+        if (session.isExpired(now)) {
+            remove(session);
+            return Optional.empty();
+        }
+        Optional<User> user = users.apply(session.username());
+        if (user.isEmpty()) {
+            remove(session);
+        }
+        return user;
+    }
+
+    public boolean invalidate(String token) {
+        if (token == null) return false;
+
+        Session session = sessions.get(token);
+        return session != null && remove(session);
+    }
+
+    /**
+     * Revokes every session of {@code username}; returns how many were live.
+     */
+    public int invalidateUser(String username) {
+        if (username == null) return 0;
+
+        int[] removed = {0};
+        byUser.compute(username, (k, tokens) -> {
+            if (tokens != null) {
+                for (String token : tokens) {
+                    if (sessions.remove(token) != null) removed[0]++;
+                }
+            }
+            return null;
+        });
+        return removed[0];
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private void sweepIfDue(long now) {
+        long last = lastSweep.get();
+        if (now - last >= SWEEP_INTERVAL_NANOS && lastSweep.compareAndSet(last, now)) {
+            evict(now);
+        }
+    }
+
+    private void evict(long now) {
+        Session head;
+        while ((head = issueOrder.peek()) != null) {
+            boolean live = sessions.get(head.token()) == head;
+            if (live && !head.isExpired(now) && sessions.size() <= maxSessions) {
+                return;
+            }
+            // Another thread may have taken the same head; only the winner removes it
+            if (issueOrder.remove(head) && live) {
+                remove(head);
+            }
+        }
+    }
+
+    private boolean remove(Session session) {
+        if (!sessions.remove(session.token(), session)) return false;
+
+        byUser.computeIfPresent(session.username(), (k, tokens) -> {
+            tokens.remove(session.token());
+            return tokens.isEmpty() ? null : tokens;
+        });
+        return true;
+    }
+
+    private record Session(String token, String username, long expiresAtNanos) {
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.Claim;
+import com.ozanaktas.insurance.model.InsuranceType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Queued claims split into shards by insurance type and amount band.
+ * <p>
+ * Consumers take shards in a fixed weighted round-robin schedule in which larger bands
+ * get more turns, so a big claim waits behind a few claims from each shard rather than
+ * behind every small claim submitted before it, and every shard still gets a turn each
+ * cycle. A consumer whose scheduled shard is empty steals from the fullest shard instead
+ * of coming back empty-handed. Claims whose type cannot be resolved go to an extra
+ * "unknown" type row.
+ * <p>
+ * Within a shard claims are served by rank, lowest first, under a per-shard lock. The
+ * rank is the arrival number less a boost of up to {@link #PRIORITY_WINDOW} that grows
+ * with the claim's position in its amount band, so larger claims go first but a claim is
+ * overtaken by at most that many later arrivals and cannot starve. Claims put back at the
+ * head rank ahead of everything submitted.
+ * <p>
+ * Claims on one policy are served in submission order: while a policy has claims queued,
+ * further claims on it join the shard of the first one (the policy is pinned there),
+ * whatever their amount, and wait in a chain behind it that is ranked by its head claim.
+ * A polled claim's shard is remembered until it is {@linkplain #release released}, so
+ * putting it back never resolves its type again.
+ */
+final class ShardedClaimQueue {
+
+    // Upper bounds (exclusive) of every amount band but the last
+    private static final double[] BAND_LIMITS = {1_000, 10_000, 100_000};
+    // Amount at which the boost of the open-ended top band stops growing
+    private static final double TOP_BAND_CEILING = 1_000_000;
+    private static final int[] BAND_WEIGHTS = {1, 2, 4, 8};
+    private static final int BANDS = BAND_WEIGHTS.length;
+
+    private static final InsuranceType[] TYPES = InsuranceType.values();
+
+    /**
+     * Most arrivals a claim can be served ahead of: a claim at the top of its band ranks as
+     * if it had been submitted this many claims earlier than one at the bottom.
+     */
+    static final int PRIORITY_WINDOW = 64;
+    // Claims put back at the head rank below every submitted claim, the latest one first
+    private static final long HEAD_BASE = Long.MIN_VALUE / 2;
+
+    private final Function<Claim, InsuranceType> typeResolver;
+    private final List<Shard> shards;
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicLong arrivals = new AtomicLong();
+    private final AtomicLong headsPut = new AtomicLong();
+
+    // Policies with claims queued, and the shard they are pinned to
+    private final Map<String, Pin> pins = new ConcurrentHashMap<>();
+    // Shard of each claim polled but not yet released
+    private final Map<UUID, Integer> taken = new ConcurrentHashMap<>();
+
+    // Shard indexes in serving order; one pass is one scheduling cycle
+    private final int[] schedule;
+    private final AtomicLong cursor = new AtomicLong();
+
+    ShardedClaimQueue(Function<Claim, InsuranceType> typeResolver) {
+        this.typeResolver = typeResolver;
+
+        int count = (TYPES.length + 1) * BANDS;
+        this.shards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shards.add(new Shard());
+        }
+        this.schedule = buildSchedule(count);
+    }
+
+    void addLast(Claim claim) {
+        int s = pin(claim, shardOf(claim));
+        shards.get(s).add(claim, arrivals.getAndIncrement() - boost(claim.getAmount()), false);
+        total.incrementAndGet();
+    }
+
+    /**
+     * Puts a polled claim back at the head of the shard it was taken from.
+     */
+    void addFirst(Claim claim) {
+        Integer from = taken.remove(claim.getId());
+        addFirst(claim, from == null ? -1 : from);
+    }
+
+    /**
+     * Puts a claim back at the head of {@code shard}, e.g. one returned by {@link #release}
+     * (-1 resolves it). If its policy has claims queued it joins their shard instead.
+     */
+    void addFirst(Claim claim, int shard) {
+        int s = pin(claim, shard >= 0 ? shard : shardOf(claim));
+        shards.get(s).add(claim, HEAD_BASE - headsPut.incrementAndGet(), true);
+        total.incrementAndGet();
+    }
+
+    /**
+     * Forgets a polled claim that will not be put back with {@link #addFirst(Claim)} and
+     * returns the shard it came from, or -1 if it was not polled from this queue.
+     */
+    int release(UUID id) {
+        Integer from = id == null ? null : taken.remove(id);
+        return from == null ? -1 : from;
+    }
+
+    Claim poll() {
+        if (total.get() == 0) return null;
+
+        int scheduled = schedule[(int) (cursor.getAndIncrement() % schedule.length)];
+        Claim claim = pollShard(scheduled);
+        while (claim == null && total.get() > 0) {
+            int victim = fullestShard();
+            if (victim < 0) return null;
+            claim = pollShard(victim);
+        }
+        return claim;
+    }
+
+    int size() { return total.get(); }
+
+    int size(InsuranceType type, int band) {
+        return shards.get(index(type, band)).size;
+    }
+
+    static int bandCount() { return BANDS; }
+
+    static int bandOf(double amount) {
+        for (int b = 0; b < BAND_LIMITS.length; b++) {
+            if (amount < BAND_LIMITS[b]) return b;
+        }
+        return BANDS - 1;
+    }
+
+    /**
+     * Visits queued claims shard by shard, largest band first, each shard in its serving
+     * order. Only one shard is copied at a time, and the action runs outside its lock.
+     * Cheaper than {@link #snapshot()} but not in overall serving order.
+     */
+    void forEach(Consumer<? super Claim> action) {
+        for (int band = BANDS - 1; band >= 0; band--) {
+            for (int t = 0; t <= TYPES.length; t++) {
+                shards.get(t * BANDS + band).inOrder().forEach(action);
+            }
+        }
+    }
+
+    /**
+     * Queued claims in the order a single consumer would poll them from now on: the
+     * schedule is replayed from the current cursor over copies of the shards, stealing
+     * from the fullest copy whenever the scheduled one is empty.
+     */
+    List<Claim> snapshot() {
+        List<Deque<Claim>> copies = new ArrayList<>(shards.size());
+        int remaining = 0;
+        for (Shard shard : shards) {
+            Deque<Claim> copy = new ArrayDeque<>(shard.inOrder());
+            copies.add(copy);
+            remaining += copy.size();
+        }
+
+        List<Claim> all = new ArrayList<>(remaining);
+        long turn = cursor.get();
+        while (remaining > 0) {
+            Deque<Claim> next = copies.get(schedule[(int) (turn++ % schedule.length)]);
+            if (next.isEmpty()) {
+                next = copies.get(0);
+                for (Deque<Claim> copy : copies) {
+                    if (copy.size() > next.size()) next = copy;
+                }
+            }
+            all.add(next.pollFirst());
+            remaining--;
+        }
+        return all;
+    }
+
+    private Claim pollShard(int s) {
+        Claim claim = shards.get(s).poll();
+        if (claim != null) {
+            total.decrementAndGet();
+            taken.put(claim.getId(), s);
+            unpin(claim);
+        }
+        return claim;
+    }
+
+    private int fullestShard() {
+        int best = -1;
+        int bestSize = 0;
+        for (int s = 0; s < shards.size(); s++) {
+            int n = shards.get(s).size;
+            if (n > bestSize) {
+                best = s;
+                bestSize = n;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Counts one more queued claim on the claim's policy and returns the shard it must go
+     * to: {@code preferred} if the policy had none queued, else the shard already pinned.
+     */
+    private int pin(Claim claim, int preferred) {
+        String policyNo = claim.getPolicyNo();
+        if (policyNo == null) return preferred;
+
+        return pins.compute(policyNo, (k, pin) -> {
+            if (pin == null) return new Pin(preferred);
+            pin.queued++;
+            return pin;
+        }).shard;
+    }
+
+    private void unpin(Claim claim) {
+        String policyNo = claim.getPolicyNo();
+        if (policyNo == null) return;
+
+        pins.computeIfPresent(policyNo, (k, pin) -> --pin.queued == 0 ? null : pin);
+    }
+
+    private int shardOf(Claim claim) {
+        return index(typeResolver.apply(claim), bandOf(claim.getAmount()));
+    }
+
+    /**
+     * Rank head start of a claim: 0 at the bottom of its amount band up to
+     * {@link #PRIORITY_WINDOW} at the top.
+     */
+    static long boost(double amount) {
+        int band = bandOf(amount);
+        double lower = band == 0 ? 0 : BAND_LIMITS[band - 1];
+        double upper = band < BAND_LIMITS.length ? BAND_LIMITS[band] : TOP_BAND_CEILING;
+        double position = Math.max(0, Math.min(1, (amount - lower) / (upper - lower)));
+        return (long) (position * PRIORITY_WINDOW);
+    }
+
+    private static int index(InsuranceType type, int band) {
+        int t = type == null ? TYPES.length : type.ordinal();
+        return t * BANDS + band;
+    }
+
+    /**
+     * Shard of a policy's queued claims; {@code queued} is only touched inside map compute calls.
+     */
+    private static final class Pin {
+        final int shard;
+        int queued = 1;
+
+        Pin(int shard) {
+            this.shard = shard;
+        }
+    }
+
+    /**
+     * One shard: chains of claims ordered by the rank of their head claim. A claim with a
+     * policy number joins the chain of that policy; one without gets a chain of its own.
+     * Sizes are written under the lock and read without it.
+     */
+    private static final class Shard {
+        private static final Comparator<Chain> BY_HEAD_RANK =
+                Comparator.<Chain>comparingLong(c -> c.entries.peekFirst().rank).thenComparingLong(c -> c.seq);
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final TreeSet<Chain> ready = new TreeSet<>(BY_HEAD_RANK);
+        private final Map<String, Chain> byPolicy = new HashMap<>();
+        private long chainSeq;
+        volatile int size;
+
+        void add(Claim claim, long rank, boolean atHead) {
+            lock.lock();
+            try {
+                String policyNo = claim.getPolicyNo();
+                Chain chain = policyNo == null ? null : byPolicy.get(policyNo);
+                if (chain == null) {
+                    chain = new Chain(policyNo, chainSeq++);
+                    chain.entries.addLast(new Entry(claim, rank));
+                    if (policyNo != null) byPolicy.put(policyNo, chain);
+                    ready.add(chain);
+                } else if (atHead) {
+                    // The head decides where the chain sits, so take it out while it changes
+                    ready.remove(chain);
+                    chain.entries.addFirst(new Entry(claim, rank));
+                    ready.add(chain);
+                } else {
+                    chain.entries.addLast(new Entry(claim, rank));
+                }
+                size++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Claim poll() {
+            lock.lock();
+            try {
+                Chain chain = ready.pollFirst();
+                if (chain == null) return null;
+
+                Claim claim = chain.entries.pollFirst().claim;
+                if (chain.entries.isEmpty()) {
+                    if (chain.policyNo != null) byPolicy.remove(chain.policyNo);
+                } else {
+                    ready.add(chain);
+                }
+                size--;
+                return claim;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Claims in the order this shard would serve them: the chains merged by rank.
+         */
+        List<Claim> inOrder() {
+            lock.lock();
+            try {
+                List<Claim> out = new ArrayList<>(size);
+                PriorityQueue<Cursor> heads = new PriorityQueue<>(Math.max(1, ready.size()));
+                for (Chain chain : ready) {
+                    heads.add(new Cursor(chain));
+                }
+                while (!heads.isEmpty()) {
+                    Cursor next = heads.poll();
+                    out.add(next.current.claim);
+                    if (next.advance()) heads.add(next);
+                }
+                return out;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Chain {
+        final String policyNo;
+        final long seq;
+        final Deque<Entry> entries = new ArrayDeque<>(2);
+
+        Chain(String policyNo, long seq) {
+            this.policyNo = policyNo;
+            this.seq = seq;
+        }
+    }
+
+    private record Entry(Claim claim, long rank) { }
+
+    /**
+     * Walks one chain for {@link Shard#inOrder()}, ordered by the rank of its current claim.
+     */
+    private static final class Cursor implements Comparable<Cursor> {
+        private final Iterator<Entry> rest;
+        private final long seq;
+        Entry current;
+
+        Cursor(Chain chain) {
+            this.rest = chain.entries.iterator();
+            this.seq = chain.seq;
+            this.current = rest.next();
+        }
+
+        boolean advance() {
+            if (!rest.hasNext()) return false;
+            current = rest.next();
+            return true;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            int byRank = Long.compare(current.rank, other.current.rank);
+            return byRank != 0 ? byRank : Long.compare(seq, other.seq);
+        }
+    }
+
+    /**
+     * Smooth weighted round-robin: spreads each shard's turns evenly over the cycle
+     * instead of serving one shard's whole weight back to back.
+     */
+    private static int[] buildSchedule(int shardCount) {
+        int[] weight = new int[shardCount];
+        int totalWeight = 0;
+        for (int s = 0; s < shardCount; s++) {
+            weight[s] = BAND_WEIGHTS[s % BANDS];
+            totalWeight += weight[s];
+        }
+
+        int[] current = new int[shardCount];
+        int[] order = new int[totalWeight];
+        for (int i = 0; i < totalWeight; i++) {
+            int pick = 0;
+            for (int s = 0; s < shardCount; s++) {
+                current[s] += weight[s];
+                if (current[s] > current[pick]) pick = s;
+            }
+            current[pick] -= totalWeight;
+            order[i] = pick;
+        }
+        return order;
+    }
+}
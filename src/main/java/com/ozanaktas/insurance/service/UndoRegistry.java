@@ -0,0 +1,48 @@
+package com.ozanaktas.insurance.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One bounded {@link UndoService} per signed-in user, so one user's undo cannot reach
+ * another user's change and every stack has its own depth and byte budget.
+ */
+public class UndoRegistry {
+
+    private final Map<String, UndoService> stacks = new ConcurrentHashMap<>();
+    private final int maxDepth;
+    private final long maxBytes;
+
+    public UndoRegistry() {
+        this(UndoService.DEFAULT_MAX_DEPTH, UndoService.DEFAULT_MAX_BYTES);
+    }
+
+    public UndoRegistry(int maxDepth, long maxBytes) {
+        this.maxDepth = maxDepth;
+        this.maxBytes = maxBytes;
+    }
+
+    public UndoService forUser(String username) {
+        return stacks.computeIfAbsent(username, k -> new UndoService(maxDepth, maxBytes));
+    }
+
+    /**
+     * Drops a user's stack, e.g. on logout.
+     */
+    public void release(String username) {
+        if (username == null) return;
+        stacks.remove(username);
+    }
+
+    public int userCount() {
+        return stacks.size();
+    }
+
+    public long totalRetainedBytes() {
+        long total = 0;
+        for (UndoService s : stacks.values()) {
+            total += s.retainedBytes();
+        }
+        return total;
+    }
+}
@@ -4,43 +4,112 @@ import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.Optional;
 
+/**
+ * Bounded LIFO stack of undoable actions. Synchronized, since claim workers push from their own threads;
+ * an undo itself runs outside the lock, so a slow one does not hold up pushes.
+ * <p>
+ * The stack holds at most {@code maxDepth} actions and {@code maxBytes} of estimated
+ * retained memory (see {@link UndoableAction#retainedBytes()}); pushing past either limit
+ * drops the oldest actions, which can then no longer be undone.
+ */
 public class UndoService {
 
+    public static final int DEFAULT_MAX_DEPTH = 100;
+    public static final long DEFAULT_MAX_BYTES = 64 * 1024;
+
+    // Rough JVM sizes used by actions to estimate what they keep reachable
+    static final int ACTION_OVERHEAD_BYTES = 32;
+    static final int UUID_BYTES = 32;
+    static final int INT_BYTES = 4;
+    static final int SMALL_ENUM_SET_BYTES = 32;
+    static final int STRING_OVERHEAD_BYTES = 40;
+
     private final Deque<UndoableAction> stack = new ArrayDeque<>();
+    private final int maxDepth;
+    private final long maxBytes;
+
+    private long retainedBytes;
+    private long evictedCount;
+
+    public UndoService() {
+        this(DEFAULT_MAX_DEPTH, DEFAULT_MAX_BYTES);
+    }
 
-    public void push(UndoableAction action) {
+    public UndoService(int maxDepth, long maxBytes) {
+        if (maxDepth <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Max depth and max bytes must be > 0");
+        }
+        this.maxDepth = maxDepth;
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized void push(UndoableAction action) {
         if (action != null) {
             stack.push(action);
+            retainedBytes += action.retainedBytes();
+
+            // The newest action always stays, even if it alone is over budget
+            while (stack.size() > 1 && (stack.size() > maxDepth || retainedBytes > maxBytes)) {
+                retainedBytes -= stack.removeLast().retainedBytes();
+                evictedCount++;
+            }
         }
     }
 
-    public boolean canUndo() {
+    public synchronized boolean canUndo() {
         return !stack.isEmpty();
     }
 
-    public int size() {
+    public synchronized int size() {
         return stack.size();
     }
 
-    public void clear() {
+    /**
+     * Estimated bytes kept reachable by the actions on the stack.
+     */
+    public synchronized long retainedBytes() {
+        return retainedBytes;
+    }
+
+    /**
+     * Actions dropped so far because the stack was over its depth or byte budget.
+     */
+    public synchronized long evictedCount() {
+        return evictedCount;
+    }
+
+    public synchronized void clear() {
         stack.clear();
+        retainedBytes = 0;
     }
 
-    public Optional<String> peekNextDescription() {
+    public synchronized Optional<String> peekNextDescription() {
         if (stack.isEmpty()) return Optional.empty();
         return Optional.ofNullable(stack.peek()).map(UndoableAction::description);
     }
 
+    /**
+     * Pops the newest action and undoes it. The action is off the stack while it runs, so
+     * concurrent callers undo different actions; one that throws is pushed back on top.
+     */
     public Optional<String> undoLast() {
-        if (stack.isEmpty()) return Optional.empty();
+        UndoableAction action;
+        synchronized (this) {
+            if (stack.isEmpty()) return Optional.empty();
 
-        UndoableAction action = stack.pop();
+            action = stack.pop();
+            retainedBytes -= action.retainedBytes();
+        }
         try {
             action.undo();
             return Optional.ofNullable(action.description());
-        } catch (RuntimeException ex) {          
-            stack.push(action);
+        } catch (RuntimeException ex) {
+            push(action);
             return Optional.of("Undo failed: " + ex.getClass().getSimpleName());
         }
     }
-}
\ No newline at end of file
+
+    static long stringBytes(String s) {
+        return s == null ? 0 : STRING_OVERHEAD_BYTES + s.length();
+    }
+}
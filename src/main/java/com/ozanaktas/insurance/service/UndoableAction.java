@@ -5,4 +5,13 @@ public interface UndoableAction {
     String description();
 
     void undo();
-}
\ No newline at end of file
+
+    /**
+     * Estimated bytes this action keeps reachable, for the undo stack's memory budget.
+     * Actions should hold ids and prior values rather than whole domain objects, and add
+     * what they hold to this base.
+     */
+    default long retainedBytes() {
+        return UndoService.ACTION_OVERHEAD_BYTES;
+    }
+}
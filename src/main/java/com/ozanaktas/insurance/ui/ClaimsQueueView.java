@@ -1,39 +1,67 @@
 package com.ozanaktas.insurance.ui;
 
+import com.ozanaktas.insurance.event.ChangeEvent;
+import com.ozanaktas.insurance.event.ChangeEventBus;
 import com.ozanaktas.insurance.model.Claim;
+import com.ozanaktas.insurance.model.ClaimStatus;
 import com.ozanaktas.insurance.service.ClaimQueueService;
 import com.ozanaktas.insurance.service.UndoService;
 import javafx.geometry.Insets;
 import javafx.scene.Parent;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
 import javafx.scene.control.Separator;
+import javafx.scene.control.TextField;
 import javafx.scene.control.Tooltip;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
 public class ClaimsQueueView {
 
+    // Only the most recent processed claims are shown; older ones stay in the archive
+    private static final int PROCESSED_WINDOW = 500;
+    private static final int SEARCH_LIMIT = 200;
+
     private final ClaimQueueService claimQueueService;
     private final UndoService undoService;
+    private final ChangeEventBus eventBus;
     private final Runnable onBack;
 
     private final ListView<Claim> queueList = new ListView<>();
     private final ListView<Claim> processedList = new ListView<>();
+    private final ListView<Claim> searchResults = new ListView<>();
+    private final TextField searchField = new TextField();
 
     private final Label counts = new Label();
     private final Label lastAction = new Label();
 
-    public ClaimsQueueView(ClaimQueueService claimQueueService, UndoService undoService, Runnable onBack) {
+    private final DebouncedSearch<Claim> search;
+
+    public ClaimsQueueView(ClaimQueueService claimQueueService, UndoService undoService,
+                           ChangeEventBus eventBus, SearchExecutor searchExecutor, Runnable onBack) {
         this.claimQueueService = claimQueueService;
         this.undoService = undoService;
+        this.eventBus = eventBus;
         this.onBack = onBack;
+        this.search = new DebouncedSearch<>(searchExecutor,
+                text -> claimQueueService.searchClaims(text, SEARCH_LIMIT),
+                results -> searchResults.getItems().setAll(results),
+                lastAction::setText);
     }
 
     public Parent getView() {
-        Label title = new Label("Claims Queue (FIFO) + Undo Stack");
+        Label title = new Label("Claims Queue (by priority) + Undo Stack");
         title.setStyle("-fx-font-size: 18px; -fx-font-weight: bold;");
 
         counts.setStyle("-fx-opacity: 0.85;");
@@ -43,7 +71,7 @@ public class ClaimsQueueView {
         Button addDemoClaim = new Button("Add Demo Claim");
         addDemoClaim.setTooltip(new Tooltip("Adds a demo claim for testing.\nReal claims come from Customer → Create Claim."));
 
-        Button processNext = new Button("Process Next (FIFO)");
+        Button processNext = new Button("Process Next");
         Button undo = new Button("Undo Last (LIFO)");
         Button back = new Button("Back");
 
@@ -56,23 +84,23 @@ public class ClaimsQueueView {
             Claim c = new Claim("customer", "POL-1001", "Demo: Phone screen broken", 2500);
             claimQueueService.submitClaim(c);
             lastAction.setText("Added demo claim.");
-            refresh();
+            updateCounts();
         });
 
         processNext.setOnAction(e -> {
-            var processed = claimQueueService.processNext();
+            var processed = claimQueueService.processNext(undoService);
             if (processed.isPresent()) {
                 lastAction.setText("Processed: " + processed.get().getId().toString().substring(0, 8));
             } else {
                 lastAction.setText("No claim in queue.");
             }
-            refresh();
+            updateCounts();
         });
 
         undo.setOnAction(e -> {
             var msg = undoService.undoLast().orElse("Nothing to undo");
             lastAction.setText(msg);
-            refresh();
+            updateCounts();
         });
 
         back.setOnAction(e -> onBack.run());
@@ -84,7 +112,7 @@ public class ClaimsQueueView {
         HBox.setHgrow(back, Priority.ALWAYS);
 
         VBox left = new VBox(8, new Label("IN QUEUE"), queueList);
-        VBox right = new VBox(8, new Label("PROCESSED"), processedList);
+        VBox right = new VBox(8, new Label("PROCESSED (latest " + PROCESSED_WINDOW + ")"), processedList);
         HBox lists = new HBox(16, left, right);
 
         left.setPrefWidth(380);
@@ -92,30 +120,111 @@ public class ClaimsQueueView {
         queueList.setPrefHeight(330);
         processedList.setPrefHeight(330);
 
+        // Claims that raised fraud signals on intake are marked for the reviewer
+        queueList.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(Claim item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                    return;
+                }
+                var signals = claimQueueService.getFraudSignals(item.getId());
+                setText(signals.isEmpty() ? item.toString() : "FLAGGED " + signals + " " + item);
+            }
+        });
+
+        searchField.setPromptText("Search descriptions, e.g. flood OR water -basement");
+        searchField.textProperty().addListener((obs, oldText, text) -> refreshSearch());
+        searchResults.setPrefHeight(150);
+
         VBox root = new VBox(
                 10,
                 title,
                 counts,
                 buttons,
                 lists,
+                new Label("SEARCH (queued and processed, newest first)"),
+                searchField,
+                searchResults,
                 new Separator(),
                 new Label("Last action:"),
                 lastAction
         );
         root.setPadding(new Insets(20));
 
-        refresh();
+        // Full snapshot once; after that the lists follow claim change events
+        queueList.getItems().setAll(claimQueueService.getQueueSnapshot());
+        int processedCount = claimQueueService.processedCount();
+        processedList.getItems().setAll(
+                claimQueueService.getProcessedPage(Math.max(0, processedCount - PROCESSED_WINDOW), PROCESSED_WINDOW));
+        updateCounts();
+        ViewSubscriptions.closeWhenReplaced(root, eventBus.subscribe(Claim.class, this::apply));
         return root;
     }
 
-    private void refresh() {
-        queueList.getItems().setAll(claimQueueService.getQueueSnapshot());
-        processedList.getItems().setAll(claimQueueService.getProcessedSnapshot());
+    /**
+     * Moves changed claims between the lists. A new claim can rank ahead of claims already
+     * queued, so when claims join the queue the list is reloaded in serving order; claims
+     * that only left it are removed in place.
+     */
+    private void apply(List<ChangeEvent<Claim>> events) {
+        Set<UUID> moved = new HashSet<>();
+        boolean joined = false;
+        List<Claim> processed = new ArrayList<>();
+        for (ChangeEvent<Claim> e : events) {
+            Claim c = e.value();
+            if (e.kind() != ChangeEvent.Kind.ADDED) moved.add(c.getId());
+
+            // A failed claim leaves both lists
+            if (c.getStatus() == ClaimStatus.FAILED) continue;
+            if (c.getStatus() == ClaimStatus.PROCESSED) processed.add(c);
+            else joined = true;
+        }
+
+        if (!moved.isEmpty()) {
+            removeById(processedList, moved);
+            if (!joined) removeById(queueList, moved);
+        }
+        if (joined) {
+            queueList.getItems().setAll(claimQueueService.getQueueSnapshot());
+        }
+
+        var shown = processedList.getItems();
+        shown.addAll(processed);
+        if (shown.size() > PROCESSED_WINDOW) {
+            shown.remove(0, shown.size() - PROCESSED_WINDOW);
+        }
+
+        updateCounts();
+        refreshSearch();
+    }
 
+    private static void removeById(ListView<Claim> list, Set<UUID> ids) {
+        // Undo can hand back a different instance (read from the archive), so match by id
+        Set<Claim> stale = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Claim c : list.getItems()) {
+            if (ids.contains(c.getId())) stale.add(c);
+        }
+        list.getItems().removeAll(stale);
+    }
+
+    private void updateCounts() {
         counts.setText(
                 "queued=" + claimQueueService.queuedCount() +
                         " | processed=" + claimQueueService.processedCount() +
+                        " | flagged=" + claimQueueService.flaggedOpenCount() +
                         (undoService.canUndo() ? " | undo=available" : " | undo=empty")
         );
     }
+
+    private void refreshSearch() {
+        String text = searchField.getText();
+        if (text == null || text.isBlank()) {
+            search.cancel();
+            searchResults.getItems().clear();
+        } else {
+            search.query(text);
+        }
+    }
 }
\ No newline at end of file
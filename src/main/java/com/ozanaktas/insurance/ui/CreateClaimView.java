@@ -1,7 +1,6 @@
 package com.ozanaktas.insurance.ui;
 
 import com.ozanaktas.insurance.model.Claim;
-import com.ozanaktas.insurance.model.Policy;
 import com.ozanaktas.insurance.model.User;
 import com.ozanaktas.insurance.service.ClaimQueueService;
 import com.ozanaktas.insurance.service.PolicyService;
@@ -11,19 +10,22 @@ import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 
-import java.util.stream.Collectors;
-
 public class CreateClaimView {
 
     private final User user;
     private final ClaimQueueService claimQueueService;
     private final PolicyService policyService;
+    private final SearchExecutor searchExecutor;
     private final Runnable onBack;
 
-    public CreateClaimView(User user, ClaimQueueService claimQueueService, PolicyService policyService, Runnable onBack) {
+    private static final int SUGGESTIONS = 20;
+
+    public CreateClaimView(User user, ClaimQueueService claimQueueService, PolicyService policyService,
+                           SearchExecutor searchExecutor, Runnable onBack) {
         this.user = user;
         this.claimQueueService = claimQueueService;
         this.policyService = policyService;
+        this.searchExecutor = searchExecutor;
         this.onBack = onBack;
     }
 
@@ -35,14 +37,33 @@ public class CreateClaimView {
         policyNoBox.setEditable(true);
         policyNoBox.setPromptText("Policy No (select or type)");
 
-        var myPolicies = policyService.getPoliciesForCustomer(user.getUsername());
-        policyNoBox.getItems().setAll(
-                myPolicies.stream().map(Policy::getPolicyNo).collect(Collectors.toList())
-        );
+        // Suggestions come from a prefix lookup, not the customer's whole policy list
+        policyNoBox.getItems().setAll(policyService.searchCustomerPolicyNumbers(user.getUsername(), "", SUGGESTIONS));
         if (!policyNoBox.getItems().isEmpty()) {
             policyNoBox.getSelectionModel().selectFirst();
         }
 
+        Label message = new Label();
+
+        DebouncedSearch<String> suggest = new DebouncedSearch<>(searchExecutor,
+                text -> policyService.searchCustomerPolicyNumbers(user.getUsername(), text, SUGGESTIONS),
+                numbers -> {
+                    // Replacing the items can reset the editor, so keep what the user typed
+                    String typed = policyNoBox.getEditor().getText();
+                    int caret = policyNoBox.getEditor().getCaretPosition();
+                    policyNoBox.getItems().setAll(numbers);
+                    if (!policyNoBox.getEditor().getText().equals(typed)) {
+                        policyNoBox.getEditor().setText(typed);
+                        policyNoBox.getEditor().positionCaret(caret);
+                    }
+                },
+                message::setText);
+        policyNoBox.getEditor().textProperty().addListener((obs, old, text) -> {
+            if (policyNoBox.getEditor().isFocused()) {
+                suggest.query(text);
+            }
+        });
+
         TextArea descriptionArea = new TextArea();
         descriptionArea.setPromptText("Describe the incident...");
         descriptionArea.setPrefRowCount(4);
@@ -50,8 +71,6 @@ public class CreateClaimView {
         TextField amountField = new TextField();
         amountField.setPromptText("Claim Amount (e.g. 2500)");
 
-        Label message = new Label();
-
         Button submit = new Button("Submit Claim");
         Button back = new Button("Back");
 
@@ -70,10 +89,8 @@ public class CreateClaimView {
             }
 
             if (!policyService.customerOwnsPolicy(user.getUsername(), policyNo)) {
-                String valid = policyService.getPoliciesForCustomer(user.getUsername())
-                        .stream()
-                        .map(Policy::getPolicyNo)
-                        .collect(Collectors.joining(", "));
+                String valid = String.join(", ",
+                        policyService.searchCustomerPolicyNumbers(user.getUsername(), "", SUGGESTIONS));
 
                 if (valid.isBlank()) {
                     message.setText("Invalid policy. You currently have no policies.");
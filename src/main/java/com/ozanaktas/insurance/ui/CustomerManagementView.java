@@ -11,22 +11,26 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 
-import java.util.Comparator;
-import java.util.List;
-import java.util.stream.Collectors;
-
 public class CustomerManagementView {
 
     private final User currentUser;
     private final UserRepository userRepository;
+    private final SearchExecutor searchExecutor;
     private final Runnable onBack;
 
+    private static final int PAGE_SIZE = 200;
+
     private final ListView<User> customersList = new ListView<>();
+    private LazyListLoader<User> loader;
+    private DebouncedSearch<User> search;
+    private final TextField searchField = new TextField();
     private final Label message = new Label();
 
-    public CustomerManagementView(User currentUser, UserRepository userRepository, Runnable onBack) {
+    public CustomerManagementView(User currentUser, UserRepository userRepository, SearchExecutor searchExecutor,
+            Runnable onBack) {
         this.currentUser = currentUser;
         this.userRepository = userRepository;
+        this.searchExecutor = searchExecutor;
         this.onBack = onBack;
     }
 
@@ -127,6 +131,20 @@ public class CustomerManagementView {
             }
         });
 
+        loader = new LazyListLoader<>(customersList, PAGE_SIZE, (last, limit) ->
+                userRepository.findByRole(Role.CUSTOMER, last == null ? null : last.getUsername(), limit));
+
+        // Typing switches the list from paged browsing to prefix search results
+        search = new DebouncedSearch<>(searchExecutor,
+                text -> userRepository.searchByPrefix(Role.CUSTOMER, text, PAGE_SIZE),
+                results -> {
+                    loader.suspend();
+                    customersList.getItems().setAll(results);
+                },
+                this::setError);
+        searchField.setPromptText("Search customers by username or name");
+        searchField.textProperty().addListener((obs, old, text) -> refresh());
+
         Button delete = new Button("Delete Selected Customer");
         delete.setMaxWidth(Double.MAX_VALUE);
 
@@ -160,6 +178,7 @@ public class CustomerManagementView {
 
         VBox listBox = new VBox(8,
                 new Label("Customers"),
+                searchField,
                 customersList,
                 actions
         );
@@ -176,12 +195,13 @@ public class CustomerManagementView {
     }
 
     private void refresh() {
-        List<User> customers = userRepository.findAll().stream()
-                .filter(u -> u.getRole() == Role.CUSTOMER)
-                .sorted(Comparator.comparing(User::getUsername))
-                .collect(Collectors.toList());
-
-        customersList.getItems().setAll(customers);
+        String text = searchField.getText();
+        if (text == null || text.isBlank()) {
+            search.cancel();
+            loader.reload();
+        } else {
+            search.query(text);
+        }
     }
 
     private void setError(String text) {
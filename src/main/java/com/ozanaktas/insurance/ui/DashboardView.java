@@ -60,7 +60,7 @@ public class DashboardView {
                     new Label("Admin Actions:"),
                     makeButton("Manage Employees", onManageEmployees),
                     makeButton("View Reports", onReports),
-                    makeButton("Claims Queue (FIFO)", onClaimsQueue),
+                    makeButton("Claims Queue", onClaimsQueue),
                     new Label("Agent Actions (Admin can access):"),
                     makeButton("Customer Management", onCustomerManagement),
                     makeButton("Create Quote / Policy", onCreatePolicy)
@@ -70,7 +70,7 @@ public class DashboardView {
                     new Label("Agent Actions:"),
                     makeButton("Customer Management", onCustomerManagement),
                     makeButton("Create Quote / Policy", onCreatePolicy),
-                    makeButton("Claims Queue (FIFO)", onClaimsQueue)
+                    makeButton("Claims Queue", onClaimsQueue)
             );
         } else {
             actions.getChildren().addAll(
@@ -0,0 +1,91 @@
+package com.ozanaktas.insurance.ui;
+
+import javafx.application.Platform;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Search-as-you-type helper: waits until typing pauses, runs the lookup on the
+ * {@link SearchExecutor} and hands the results back on the FX thread. Results of a query
+ * that was overtaken by newer typing are dropped. A lookup that throws is reported to
+ * {@code onError} on the FX thread, unless it was overtaken too.
+ * <p>
+ * Call {@link #query(String)} from the FX thread (e.g. a text property listener).
+ */
+final class DebouncedSearch<T> {
+
+    static final long DEFAULT_DELAY_MILLIS = 150;
+
+    private final SearchExecutor executor;
+    private final Executor fxThread;
+    private final long delayMillis;
+    private final Function<String, List<T>> lookup;
+    private final Consumer<List<T>> onResults;
+    private final Consumer<String> onError;
+
+    private ScheduledFuture<?> pending;
+    private volatile long generation;
+
+    /**
+     * @param onError receives a short message, e.g. for the screen's status label
+     */
+    DebouncedSearch(SearchExecutor executor, Function<String, List<T>> lookup, Consumer<List<T>> onResults,
+                    Consumer<String> onError) {
+        this(executor, Platform::runLater, DEFAULT_DELAY_MILLIS, lookup, onResults, onError);
+    }
+
+    DebouncedSearch(SearchExecutor executor, Executor fxThread, long delayMillis, Function<String, List<T>> lookup,
+                    Consumer<List<T>> onResults, Consumer<String> onError) {
+        this.executor = executor;
+        this.fxThread = fxThread;
+        this.delayMillis = delayMillis;
+        this.lookup = lookup;
+        this.onResults = onResults;
+        this.onError = onError;
+    }
+
+    void query(String text) {
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        long id = ++generation;
+        pending = executor.schedule(() -> {
+            // Typed over while waiting in the queue
+            if (id != generation) return;
+
+            List<T> results;
+            try {
+                results = lookup.apply(text);
+            } catch (RuntimeException ex) {
+                String message = "Search failed: " + ex.getClass().getSimpleName()
+                        + (ex.getMessage() == null ? "" : " (" + ex.getMessage() + ")");
+                fxThread.execute(() -> {
+                    if (id == generation) {
+                        onError.accept(message);
+                    }
+                });
+                return;
+            }
+            fxThread.execute(() -> {
+                // Only the latest query may update the screen
+                if (id == generation) {
+                    onResults.accept(results);
+                }
+            });
+        }, delayMillis);
+    }
+
+    /**
+     * Drops any query that has not delivered yet.
+     */
+    void cancel() {
+        generation++;
+        if (pending != null) {
+            pending.cancel(false);
+        }
+    }
+}
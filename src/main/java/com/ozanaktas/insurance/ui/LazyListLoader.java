@@ -0,0 +1,117 @@
+package com.ozanaktas.insurance.ui;
+
+import javafx.application.Platform;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.util.Callback;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Fills a {@link ListView} page by page: the first page is loaded up front and the next one
+ * is fetched when a cell for the last loaded row becomes visible, so first paint does not
+ * depend on how many rows exist. Pages are fetched by keyset (the last loaded item).
+ * <p>
+ * Install after the list's cell factory has been set.
+ */
+final class LazyListLoader<T> {
+
+    private final ListView<T> list;
+    private final int pageSize;
+    private final BiFunction<T, Integer, List<T>> fetchAfter;
+
+    private boolean hasMore;
+    private boolean loadScheduled;
+
+    /**
+     * @param fetchAfter returns up to {@code limit} rows after the given item (null = from the start)
+     */
+    LazyListLoader(ListView<T> list, int pageSize, BiFunction<T, Integer, List<T>> fetchAfter) {
+        this.list = list;
+        this.pageSize = pageSize;
+        this.fetchAfter = fetchAfter;
+
+        Callback<ListView<T>, ListCell<T>> cells = list.getCellFactory();
+        list.setCellFactory(lv -> {
+            ListCell<T> cell = (cells != null) ? cells.call(lv) : new ListCell<>() {
+                @Override
+                protected void updateItem(T item, boolean empty) {
+                    super.updateItem(item, empty);
+                    setText(empty || item == null ? null : item.toString());
+                }
+            };
+            cell.indexProperty().addListener((obs, oldIndex, index) -> {
+                if (index.intValue() >= list.getItems().size() - 1) {
+                    requestMore();
+                }
+            });
+            return cell;
+        });
+    }
+
+    /**
+     * Re-reads from the start, keeping at least as many rows as are loaded now
+     * so the user's scroll position survives a refresh.
+     */
+    void reload() {
+        int rows = Math.max(pageSize, list.getItems().size());
+        List<T> fresh = fetchAfter.apply(null, rows);
+        hasMore = fresh.size() >= rows;
+        list.getItems().setAll(fresh);
+    }
+
+    /**
+     * Stops paging, e.g. while the list shows search results instead; {@link #reload()} resumes.
+     */
+    void suspend() {
+        hasMore = false;
+    }
+
+    /**
+     * Inserts {@code item}, or replaces the row equal to it under {@code order} (the order the
+     * rows are fetched in). An item past the last loaded row is left for paging to bring in.
+     */
+    void upsert(T item, Comparator<? super T> order) {
+        var items = list.getItems();
+        int i = Collections.binarySearch(items, item, order);
+        if (i >= 0) {
+            items.set(i, item);
+            return;
+        }
+        int at = -i - 1;
+        if (at == items.size() && hasMore) return;
+        items.add(at, item);
+    }
+
+    void remove(T item, Comparator<? super T> order) {
+        var items = list.getItems();
+        int i = Collections.binarySearch(items, item, order);
+        if (i >= 0) {
+            items.remove(i);
+        }
+    }
+
+    private void requestMore() {
+        if (!hasMore || loadScheduled) return;
+
+        // Never change the items while the ListView is laying out cells
+        loadScheduled = true;
+        Platform.runLater(() -> {
+            loadScheduled = false;
+            loadMore();
+        });
+    }
+
+    private void loadMore() {
+        if (!hasMore) return;
+
+        var items = list.getItems();
+        T last = items.isEmpty() ? null : items.get(items.size() - 1);
+        List<T> page = fetchAfter.apply(last, pageSize);
+        hasMore = page.size() >= pageSize;
+        items.addAll(page);
+    }
+}
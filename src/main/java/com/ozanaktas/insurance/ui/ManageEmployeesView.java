@@ -11,22 +11,26 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 
-import java.util.Comparator;
-import java.util.List;
-import java.util.stream.Collectors;
-
 public class ManageEmployeesView {
 
     private final User currentUser;
     private final UserRepository userRepository;
+    private final SearchExecutor searchExecutor;
     private final Runnable onBack;
 
+    private static final int PAGE_SIZE = 200;
+
     private final ListView<User> agentsList = new ListView<>();
+    private LazyListLoader<User> loader;
+    private DebouncedSearch<User> search;
+    private final TextField searchField = new TextField();
     private final Label message = new Label();
 
-    public ManageEmployeesView(User currentUser, UserRepository userRepository, Runnable onBack) {
+    public ManageEmployeesView(User currentUser, UserRepository userRepository, SearchExecutor searchExecutor,
+            Runnable onBack) {
         this.currentUser = currentUser;
         this.userRepository = userRepository;
+        this.searchExecutor = searchExecutor;
         this.onBack = onBack;
     }
 
@@ -127,6 +131,20 @@ public class ManageEmployeesView {
             }
         });
 
+        loader = new LazyListLoader<>(agentsList, PAGE_SIZE, (last, limit) ->
+                userRepository.findByRole(Role.AGENT, last == null ? null : last.getUsername(), limit));
+
+        // Typing switches the list from paged browsing to prefix search results
+        search = new DebouncedSearch<>(searchExecutor,
+                text -> userRepository.searchByPrefix(Role.AGENT, text, PAGE_SIZE),
+                results -> {
+                    loader.suspend();
+                    agentsList.getItems().setAll(results);
+                },
+                this::setError);
+        searchField.setPromptText("Search agents by username or name");
+        searchField.textProperty().addListener((obs, old, text) -> refresh());
+
         Button delete = new Button("Delete Selected Agent");
         delete.setMaxWidth(Double.MAX_VALUE);
 
@@ -160,6 +178,7 @@ public class ManageEmployeesView {
 
         VBox listBox = new VBox(8,
                 new Label("Agents"),
+                searchField,
                 agentsList,
                 actions
         );
@@ -179,12 +198,13 @@ public class ManageEmployeesView {
     }
 
     private void refresh() {
-        List<User> agents = userRepository.findAll().stream()
-                .filter(u -> u.getRole() == Role.AGENT)
-                .sorted(Comparator.comparing(User::getUsername))
-                .collect(Collectors.toList());
-
-        agentsList.getItems().setAll(agents);
+        String text = searchField.getText();
+        if (text == null || text.isBlank()) {
+            search.cancel();
+            loader.reload();
+        } else {
+            search.query(text);
+        }
     }
 
     private void setError(String text) {
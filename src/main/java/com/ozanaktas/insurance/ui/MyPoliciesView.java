@@ -1,5 +1,7 @@
 package com.ozanaktas.insurance.ui;
 
+import com.ozanaktas.insurance.event.ChangeEvent;
+import com.ozanaktas.insurance.event.ChangeEventBus;
 import com.ozanaktas.insurance.model.Policy;
 import com.ozanaktas.insurance.model.User;
 import com.ozanaktas.insurance.service.PolicyService;
@@ -12,21 +14,32 @@ import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 
 import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
 
 public class MyPoliciesView {
 
     private final User user;
     private final PolicyService policyService;
     private final UndoService undoService;
+    private final ChangeEventBus eventBus;
     private final Runnable onBack;
 
+    private static final int PAGE_SIZE = 100;
+
+    // The order pages are fetched in
+    private static final Comparator<Policy> BY_POLICY_NO = Comparator.comparing(Policy::getPolicyNo);
+
     private final ListView<Policy> list = new ListView<>();
     private final Label counts = new Label();
+    private LazyListLoader<Policy> loader;
 
-    public MyPoliciesView(User user, PolicyService policyService, UndoService undoService, Runnable onBack) {
+    public MyPoliciesView(User user, PolicyService policyService, UndoService undoService,
+                          ChangeEventBus eventBus, Runnable onBack) {
         this.user = user;
         this.policyService = policyService;
         this.undoService = undoService;
+        this.eventBus = eventBus;
         this.onBack = onBack;
     }
 
@@ -59,14 +72,16 @@ public class MyPoliciesView {
             }
         });
 
+        loader = new LazyListLoader<>(list, PAGE_SIZE, (last, limit) -> policyService
+                .getPoliciesForCustomerPage(user.getUsername(), last == null ? null : last.getPolicyNo(), limit)
+                .content());
+
         Button cancelSelected = new Button("Cancel Selected");
         Button undoLast = new Button("Undo Last");
-        Button refresh = new Button("Refresh");
         Button back = new Button("Back");
 
         cancelSelected.setMaxWidth(Double.MAX_VALUE);
         undoLast.setMaxWidth(Double.MAX_VALUE);
-        refresh.setMaxWidth(Double.MAX_VALUE);
         back.setMaxWidth(Double.MAX_VALUE);
 
         cancelSelected.setOnAction(e -> {
@@ -75,28 +90,21 @@ public class MyPoliciesView {
                 message.setText("Select a policy first.");
                 return;
             }
+            // The list follows through the policy change event
             String msg = policyService.cancelPolicyWithUndo(selected.getPolicyNo(), undoService);
             message.setText(msg);
-            refresh();
         });
 
         undoLast.setOnAction(e -> {
             String msg = (undoService == null) ? "Undo service not available" : undoService.undoLast().orElse("Nothing to undo");
             message.setText(msg);
-            refresh();
-        });
-
-        refresh.setOnAction(e -> {
-            message.setText("");
-            refresh();
         });
 
         back.setOnAction(e -> onBack.run());
 
-        HBox actions = new HBox(10, cancelSelected, undoLast, refresh, back);
+        HBox actions = new HBox(10, cancelSelected, undoLast, back);
         HBox.setHgrow(cancelSelected, Priority.ALWAYS);
         HBox.setHgrow(undoLast, Priority.ALWAYS);
-        HBox.setHgrow(refresh, Priority.ALWAYS);
         HBox.setHgrow(back, Priority.ALWAYS);
 
         VBox root = new VBox(10, title, who, counts, list, actions, message);
@@ -104,13 +112,29 @@ public class MyPoliciesView {
         root.setPrefWidth(720);
         root.setPrefHeight(520);
 
-        refresh();
+        loader.reload();
+        updateCount();
+        ViewSubscriptions.closeWhenReplaced(root, eventBus.subscribe(Policy.class, this::apply));
         return root;
     }
 
-    private void refresh() {
-        var policies = policyService.getPoliciesForCustomer(user.getUsername());
-        list.getItems().setAll(policies);
-        counts.setText("Total policies: " + policies.size());
+    private void apply(List<ChangeEvent<Policy>> events) {
+        boolean mine = false;
+        for (ChangeEvent<Policy> e : events) {
+            Policy p = e.value();
+            if (!user.getUsername().equals(p.getCustomerUsername())) continue;
+
+            mine = true;
+            if (e.kind() == ChangeEvent.Kind.REMOVED) {
+                loader.remove(p, BY_POLICY_NO);
+            } else {
+                loader.upsert(p, BY_POLICY_NO);
+            }
+        }
+        if (mine) updateCount();
+    }
+
+    private void updateCount() {
+        counts.setText("Total policies: " + policyService.countPoliciesForCustomer(user.getUsername()));
     }
 }
\ No newline at end of file
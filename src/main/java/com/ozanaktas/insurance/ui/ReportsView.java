@@ -1,12 +1,20 @@
 package com.ozanaktas.insurance.ui;
 
+import com.ozanaktas.insurance.event.ChangeEventBus;
+import com.ozanaktas.insurance.model.Claim;
+import com.ozanaktas.insurance.model.InsuranceType;
 import com.ozanaktas.insurance.model.Policy;
 import com.ozanaktas.insurance.model.PolicyStatus;
 import com.ozanaktas.insurance.model.Role;
 import com.ozanaktas.insurance.model.User;
 import com.ozanaktas.insurance.repository.UserRepository;
+import com.ozanaktas.insurance.service.ClaimFraudDetector;
+import com.ozanaktas.insurance.service.ClaimMetrics;
 import com.ozanaktas.insurance.service.ClaimQueueService;
+import com.ozanaktas.insurance.service.PolicyPremiumIndex;
 import com.ozanaktas.insurance.service.PolicyService;
+import com.ozanaktas.insurance.service.PolicyStatistics;
+import com.ozanaktas.insurance.service.UndoRegistry;
 import com.ozanaktas.insurance.service.UndoService;
 import javafx.geometry.Insets;
 import javafx.scene.Parent;
@@ -20,7 +28,9 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 
-import java.util.List;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
 
 public class ReportsView {
 
@@ -28,7 +38,9 @@ public class ReportsView {
     private final PolicyService policyService;
     private final ClaimQueueService claimQueueService;
     private final UndoService undoService;
+    private final UndoRegistry undoRegistry;
     private final UserRepository userRepository;
+    private final ChangeEventBus eventBus;
     private final Runnable onBack;
 
     // UI labels (updated by refresh)
@@ -36,9 +48,17 @@ public class ReportsView {
     private final Label policiesActive = new Label();
     private final Label policiesCancelled = new Label();
     private final Label premiumSum = new Label();
+    private final Map<InsuranceType, Label> premiumByType = new EnumMap<>(InsuranceType.class);
+    private final Map<InsuranceType, Label> premiumPercentilesByType = new EnumMap<>(InsuranceType.class);
 
     private final Label claimsQueued = new Label();
     private final Label claimsProcessed = new Label();
+    private final Label claimWaitP50 = new Label();
+    private final Label claimWaitP99 = new Label();
+    private final Label claimWaitP999 = new Label();
+    private final Label claimRates = new Label();
+    private final Label claimTextIndex = new Label();
+    private final Label claimsFlagged = new Label();
 
     private final Label usersTotal = new Label();
     private final Label usersAdmins = new Label();
@@ -47,18 +67,23 @@ public class ReportsView {
 
     private final Label undoSize = new Label();
     private final Label undoNext = new Label();
+    private final Label undoRetained = new Label();
+    private final Label undoRetainedAll = new Label();
 
     public ReportsView(User currentUser,
                        PolicyService policyService,
                        ClaimQueueService claimQueueService,
-                       UndoService undoService,
+                       UndoRegistry undoRegistry,
                        UserRepository userRepository,
+                       ChangeEventBus eventBus,
                        Runnable onBack) {
         this.currentUser = currentUser;
         this.policyService = policyService;
         this.claimQueueService = claimQueueService;
-        this.undoService = undoService;
+        this.undoRegistry = undoRegistry;
+        this.undoService = undoRegistry.forUser(currentUser.getUsername());
         this.userRepository = userRepository;
+        this.eventBus = eventBus;
         this.onBack = onBack;
     }
 
@@ -93,11 +118,27 @@ public class ReportsView {
         r = row(grid, r, "Policies (active)", policiesActive);
         r = row(grid, r, "Policies (cancelled)", policiesCancelled);
         r = row(grid, r, "Total premium sum", premiumSum);
+        for (InsuranceType type : InsuranceType.values()) {
+            Label value = new Label();
+            premiumByType.put(type, value);
+            r = row(grid, r, "  " + type, value);
+        }
+        for (InsuranceType type : InsuranceType.values()) {
+            Label value = new Label();
+            premiumPercentilesByType.put(type, value);
+            r = row(grid, r, "  " + type + " premium p50 / p90 / p99", value);
+        }
 
         r = spacer(grid, r);
 
-        r = row(grid, r, "Claims queued (FIFO)", claimsQueued);
+        r = row(grid, r, "Claims queued", claimsQueued);
         r = row(grid, r, "Claims processed", claimsProcessed);
+        r = row(grid, r, "Claim queue wait p50", claimWaitP50);
+        r = row(grid, r, "Claim queue wait p99", claimWaitP99);
+        r = row(grid, r, "Claim queue wait p99.9", claimWaitP999);
+        r = row(grid, r, "Claims/sec processed vs submitted (1 min)", claimRates);
+        r = row(grid, r, "Claims flagged (open / flagged of assessed)", claimsFlagged);
+        r = row(grid, r, "Claim search index (terms / posting bytes)", claimTextIndex);
 
         r = spacer(grid, r);
 
@@ -110,21 +151,18 @@ public class ReportsView {
 
         r = row(grid, r, "Undo stack size", undoSize);
         r = row(grid, r, "Next undo description", undoNext);
+        r = row(grid, r, "Undo retained (bytes)", undoRetained);
+        r = row(grid, r, "Undo retained, all users (bytes)", undoRetainedAll);
 
         ScrollPane scroll = new ScrollPane(grid);
         scroll.setFitToWidth(true);
         scroll.setPannable(true);
 
-        Button refreshBtn = new Button("Refresh");
         Button backBtn = new Button("Back");
-        refreshBtn.setMaxWidth(Double.MAX_VALUE);
         backBtn.setMaxWidth(Double.MAX_VALUE);
-
-        refreshBtn.setOnAction(e -> refresh());
         backBtn.setOnAction(e -> onBack.run());
 
-        HBox buttons = new HBox(10, refreshBtn, backBtn);
-        HBox.setHgrow(refreshBtn, Priority.ALWAYS);
+        HBox buttons = new HBox(10, backBtn);
         HBox.setHgrow(backBtn, Priority.ALWAYS);
 
         VBox top = new VBox(8, title, who, new Separator());
@@ -143,33 +181,72 @@ public class ReportsView {
         root.setPrefHeight(520);
 
         refresh();
+        // Every figure here comes from counters or indexes, so any change simply re-reads them all
+        ViewSubscriptions.closeWhenReplaced(root,
+                eventBus.subscribe(Policy.class, events -> refresh()),
+                eventBus.subscribe(Claim.class, events -> refresh()),
+                eventBus.subscribe(User.class, events -> refresh()));
         return root;
     }
 
     private void refresh() {
-        List<Policy> policies = policyService.getAllPolicies();
+        PolicyStatistics stats = policyService.getStatistics();
 
-        int total = policies.size();
-        long active = policies.stream().filter(p -> p.getStatus() == PolicyStatus.ACTIVE).count();
-        long cancelled = policies.stream().filter(p -> p.getStatus() == PolicyStatus.CANCELLED).count();
-        double sumPremium = policies.stream().mapToDouble(Policy::getPremium).sum();
+        long total = stats.totalCount();
+        long active = stats.count(PolicyStatus.ACTIVE);
+        long cancelled = stats.count(PolicyStatus.CANCELLED);
+        double sumPremium = stats.premiumSum();
 
         policiesTotal.setText(String.valueOf(total));
         policiesActive.setText(String.valueOf(active));
         policiesCancelled.setText(String.valueOf(cancelled));
         premiumSum.setText("$" + String.format("%.2f", sumPremium));
 
+        for (InsuranceType type : InsuranceType.values()) {
+            premiumByType.get(type).setText(stats.count(type) + " policies | $" + String.format("%.2f", stats.premiumSum(type)));
+        }
+
+        PolicyPremiumIndex premiums = policyService.getPremiumIndex();
+        for (InsuranceType type : InsuranceType.values()) {
+            premiumPercentilesByType.get(type).setText(premiums.percentile(type, 0.50).isEmpty() ? "-"
+                    : String.format("$%.2f / $%.2f / $%.2f",
+                    premiums.percentile(type, 0.50).getAsDouble(),
+                    premiums.percentile(type, 0.90).getAsDouble(),
+                    premiums.percentile(type, 0.99).getAsDouble()));
+        }
+
         claimsQueued.setText(String.valueOf(claimQueueService.queuedCount()));
         claimsProcessed.setText(String.valueOf(claimQueueService.processedCount()));
 
-        var users = userRepository.findAll();
-        usersTotal.setText(String.valueOf(users.size()));
-        usersAdmins.setText(String.valueOf(users.stream().filter(u -> u.getRole() == Role.ADMIN).count()));
-        usersAgents.setText(String.valueOf(users.stream().filter(u -> u.getRole() == Role.AGENT).count()));
-        usersCustomers.setText(String.valueOf(users.stream().filter(u -> u.getRole() == Role.CUSTOMER).count()));
+        ClaimMetrics.Snapshot m = claimQueueService.getMetrics().snapshot();
+        claimWaitP50.setText(formatWait(m.p50()));
+        claimWaitP99.setText(formatWait(m.p99()));
+        claimWaitP999.setText(formatWait(m.p999()) + " (max " + formatWait(m.max()) + ")");
+        claimRates.setText(String.format("%.1f / %.1f", m.processedPerSecond(), m.submittedPerSecond()));
+        ClaimFraudDetector fraud = claimQueueService.getFraudDetector();
+        claimsFlagged.setText(claimQueueService.flaggedOpenCount() + " / "
+                + fraud.flaggedCount() + " of " + fraud.assessedCount());
+        claimTextIndex.setText(claimQueueService.indexedTermCount() + " / " + claimQueueService.indexedPostingBytes());
+
+        int admins = userRepository.countByRole(Role.ADMIN);
+        int agents = userRepository.countByRole(Role.AGENT);
+        int customers = userRepository.countByRole(Role.CUSTOMER);
+        usersTotal.setText(String.valueOf(admins + agents + customers));
+        usersAdmins.setText(String.valueOf(admins));
+        usersAgents.setText(String.valueOf(agents));
+        usersCustomers.setText(String.valueOf(customers));
 
         undoSize.setText(String.valueOf(undoService.size()));
         undoNext.setText(undoService.peekNextDescription().orElse("(none)"));
+        undoRetained.setText(undoService.retainedBytes() + " (" + undoService.evictedCount() + " evicted)");
+        undoRetainedAll.setText(undoRegistry.totalRetainedBytes() + " across " + undoRegistry.userCount() + " users");
+    }
+
+    private static String formatWait(Duration d) {
+        long ms = d.toMillis();
+        if (ms < 1_000) return ms + " ms";
+        if (ms < 60_000) return String.format("%.1f s", ms / 1000.0);
+        return String.format("%.1f min", ms / 60_000.0);
     }
 
     private int row(GridPane grid, int rowIndex, String left, Label rightLabel) {
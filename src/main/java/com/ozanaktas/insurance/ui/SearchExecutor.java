@@ -0,0 +1,39 @@
+package com.ozanaktas.insurance.ui;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The background thread that runs every screen's {@link DebouncedSearch} lookups. The
+ * application owns one and closes it when it stops; lookups scheduled after that are dropped.
+ */
+public final class SearchExecutor implements AutoCloseable {
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ui-search");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Runs {@code task} after {@code delayMillis}; null once the executor is closed.
+     */
+    ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+        try {
+            return executor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Interrupts a running lookup and drops the scheduled ones.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
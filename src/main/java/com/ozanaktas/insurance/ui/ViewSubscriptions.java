@@ -0,0 +1,27 @@
+package com.ozanaktas.insurance.ui;
+
+import com.ozanaktas.insurance.event.ChangeEventBus;
+import javafx.scene.Node;
+
+/**
+ * Ties change-event subscriptions to a view's lifetime. Screens are swapped by giving the
+ * stage a new scene, so a view is gone once its scene has no window any more.
+ */
+final class ViewSubscriptions {
+
+    private ViewSubscriptions() {
+    }
+
+    static void closeWhenReplaced(Node root, ChangeEventBus.Subscription... subscriptions) {
+        root.sceneProperty().addListener((obs, oldScene, scene) -> {
+            if (scene == null) return;
+            scene.windowProperty().addListener((o, oldWindow, window) -> {
+                if (oldWindow != null && window == null) {
+                    for (ChangeEventBus.Subscription s : subscriptions) {
+                        s.close();
+                    }
+                }
+            });
+        });
+    }
+}
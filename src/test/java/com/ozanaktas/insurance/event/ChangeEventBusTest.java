@@ -0,0 +1,147 @@
+package com.ozanaktas.insurance.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Coalescing per entity, restating against a source, and delivery on a hand-run executor
+ * standing in for the FX thread.
+ */
+class ChangeEventBusTest {
+
+    private final ManualExecutor executor = new ManualExecutor();
+    private final ChangeEventBus bus = new ChangeEventBus(executor);
+    private final List<List<ChangeEvent<String>>> deliveries = new ArrayList<>();
+
+    @Test
+    void aBurstIsDeliveredOnceCoalescedPerEntityInPublishOrder() {
+        bus.subscribe(String.class, deliveries::add);
+
+        bus.publish(String.class, ChangeEvent.added("a", "a1"));
+        bus.publish(String.class, ChangeEvent.updated("b", "b1"));
+        bus.publish(String.class, ChangeEvent.updated("a", "a2"));
+        bus.publish(String.class, ChangeEvent.added("c", "c1"));
+        bus.publish(String.class, ChangeEvent.removed("c", "c1"));
+        bus.publish(String.class, ChangeEvent.removed("d", "d0"));
+        bus.publish(String.class, ChangeEvent.added("d", "d1"));
+        bus.publish(String.class, ChangeEvent.updated("b", "b2"));
+        assertEquals(1, executor.tasks.size());
+
+        executor.runAll();
+
+        assertEquals(List.of(List.of(
+                ChangeEvent.added("a", "a2"),
+                ChangeEvent.updated("b", "b2"),
+                ChangeEvent.updated("d", "d1"))), deliveries);
+        assertEquals(8, bus.publishedCount());
+        assertEquals(3, bus.deliveredCount());
+    }
+
+    @Test
+    void eventsThatCancelOutDeliverNothing() {
+        bus.subscribe(String.class, deliveries::add);
+
+        bus.publish(String.class, ChangeEvent.added("a", "a1"));
+        bus.publish(String.class, ChangeEvent.updated("a", "a2"));
+        bus.publish(String.class, ChangeEvent.removed("a", "a2"));
+        executor.runAll();
+
+        assertTrue(deliveries.isEmpty());
+        assertEquals(0, bus.deliveredCount());
+    }
+
+    @Test
+    void eventsAreRestatedAgainstTheSourceAtDelivery() {
+        Map<String, String> source = new HashMap<>();
+        bus.refreshFrom(String.class, source::get);
+        bus.subscribe(String.class, deliveries::add);
+
+        // Two writers published in the opposite order of their writes: the source wins
+        source.put("a", "new");
+        bus.publish(String.class, ChangeEvent.updated("a", "new"));
+        bus.publish(String.class, ChangeEvent.updated("a", "old"));
+        // Gone by delivery time: an update becomes a removal, an addition is dropped
+        bus.publish(String.class, ChangeEvent.updated("b", "b1"));
+        bus.publish(String.class, ChangeEvent.added("c", "c1"));
+        // Added, then changed again before anyone saw it
+        source.put("d", "d2");
+        bus.publish(String.class, ChangeEvent.added("d", "d1"));
+        executor.runAll();
+
+        assertEquals(List.of(List.of(
+                ChangeEvent.updated("a", "new"),
+                ChangeEvent.removed("b", "b1"),
+                ChangeEvent.added("d", "d2"))), deliveries);
+    }
+
+    @Test
+    void publishingDuringDeliveryOrWithoutSubscribersSchedulesCorrectly() {
+        bus.publish(String.class, ChangeEvent.added("ignored", "x"));
+        assertTrue(executor.tasks.isEmpty());
+        assertEquals(0, bus.publishedCount());
+
+        bus.subscribe(String.class, events -> {
+            deliveries.add(events);
+            if (deliveries.size() == 1) bus.publish(String.class, ChangeEvent.updated("a", "a2"));
+        });
+        bus.publish(String.class, ChangeEvent.added("a", "a1"));
+        executor.runAll();
+
+        assertEquals(List.of(List.of(ChangeEvent.added("a", "a1")), List.of(ChangeEvent.updated("a", "a2"))),
+                deliveries);
+    }
+
+    @Test
+    void aFailingOrClosedSubscriberDoesNotAffectTheOthers() {
+        List<Throwable> reported = new ArrayList<>();
+        Thread thread = Thread.currentThread();
+        Thread.UncaughtExceptionHandler previous = thread.getUncaughtExceptionHandler();
+        thread.setUncaughtExceptionHandler((t, ex) -> reported.add(ex));
+        try {
+            bus.subscribe(String.class, events -> {
+                throw new IllegalStateException("broken view");
+            });
+            ChangeEventBus.Subscription closed = bus.subscribe(String.class, events -> deliveries.add(List.of()));
+            bus.subscribe(String.class, deliveries::add);
+            List<List<ChangeEvent<Integer>>> numbers = new ArrayList<>();
+            bus.subscribe(Integer.class, numbers::add);
+            closed.close();
+
+            bus.publish(String.class, ChangeEvent.added("a", "a1"));
+            bus.publish(Integer.class, ChangeEvent.added("1", 1));
+            executor.runAll();
+
+            assertEquals(List.of(List.of(ChangeEvent.added("a", "a1"))), deliveries);
+            assertEquals(List.of(List.of(ChangeEvent.added("1", 1))), numbers);
+            assertEquals(1, reported.size());
+        } finally {
+            thread.setUncaughtExceptionHandler(previous);
+        }
+    }
+
+    private static final class ManualExecutor implements Executor {
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.ozanaktas.insurance.repository;
+
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The primary map and the customer, ordered and date indexes agree after every write,
+ * including writes from many threads to the same policy numbers.
+ */
+class ConcurrentPolicyRepositoryTest {
+
+    private final ConcurrentPolicyRepository repository = new ConcurrentPolicyRepository();
+
+    @Test
+    void indexesFollowSaveOverwriteAndDelete() {
+        repository.save(policy("POL-1", "alice"));
+        repository.save(policy("POL-2", "alice"));
+        repository.save(policy("POL-1", "bob"));
+
+        assertEquals(List.of("POL-2"), numbers(repository.findByCustomerUsername("alice")));
+        assertEquals(List.of("POL-1"), numbers(repository.findByCustomerUsername("bob")));
+        assertEquals(List.of("POL-1", "POL-2"), numbers(repository.findSlice(null, 10).content()));
+
+        assertTrue(repository.deleteByPolicyNo("POL-2"));
+        assertFalse(repository.deleteByPolicyNo("POL-2"));
+
+        assertEquals(0, repository.countByCustomerUsername("alice"));
+        assertEquals(List.of("POL-1"), numbers(repository.findByPolicyNoPrefix("POL-", 10)));
+        assertEquals(1, repository.findActiveOn(LocalDate.of(2025, 6, 1)).size());
+    }
+
+    @Test
+    void concurrentWritersLeaveOneIndexEntryPerPolicy() throws InterruptedException {
+        int threads = 8, policies = 200, rounds = 50;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int r = 0; r < rounds; r++) {
+                    for (int i = 0; i < policies; i++) {
+                        // Every thread moves the same policies between two customers and deletes some
+                        String no = "POL-" + i;
+                        if ((i + r + thread) % 7 == 0) {
+                            repository.deleteByPolicyNo(no);
+                        } else {
+                            repository.save(policy(no, (i + r) % 2 == 0 ? "alice" : "bob"));
+                        }
+                    }
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+
+        List<Policy> all = repository.findAll();
+        int alice = 0, bob = 0;
+        for (Policy p : all) {
+            if (p.getCustomerUsername().equals("alice")) alice++;
+            else bob++;
+        }
+        assertEquals(alice, repository.countByCustomerUsername("alice"));
+        assertEquals(bob, repository.countByCustomerUsername("bob"));
+        assertEquals(all.size(), repository.findSlice(null, Integer.MAX_VALUE).content().size());
+        assertEquals(all.size(), repository.findActiveOn(LocalDate.of(2025, 6, 1)).size());
+        assertEquals(all.size(), repository.findByEndDateBetween(LocalDate.MIN, LocalDate.MAX).size());
+        for (Policy p : all) {
+            assertEquals(p, repository.findByCustomerUsername(p.getCustomerUsername()).stream()
+                    .filter(q -> q.getPolicyNo().equals(p.getPolicyNo())).findFirst().orElseThrow());
+        }
+    }
+
+    private static Policy policy(String policyNo, String customer) {
+        return new Policy(policyNo, customer, InsuranceType.HEALTH, 750.0,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1));
+    }
+
+    private static List<String> numbers(List<Policy> policies) {
+        List<String> numbers = new ArrayList<>();
+        for (Policy p : policies) {
+            numbers.add(p.getPolicyNo());
+        }
+        return numbers;
+    }
+}
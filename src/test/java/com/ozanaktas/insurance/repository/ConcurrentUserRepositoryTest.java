@@ -0,0 +1,84 @@
+package com.ozanaktas.insurance.repository;
+
+import com.ozanaktas.insurance.model.Agent;
+import com.ozanaktas.insurance.model.Customer;
+import com.ozanaktas.insurance.model.Role;
+import com.ozanaktas.insurance.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Primary map, username set and deletion callbacks stay consistent under overwrites,
+ * deletes and concurrent writers.
+ */
+class ConcurrentUserRepositoryTest {
+
+    private final ConcurrentUserRepository repository = new ConcurrentUserRepository();
+
+    @Test
+    void overwriteAndDeleteKeepTheIndexesInStep() {
+        List<String> deleted = new CopyOnWriteArrayList<>();
+        repository.addDeletionListener(deleted::add);
+
+        repository.save(new Customer("ayse", "pw", "Ayse Yilmaz"));
+        repository.save(new Agent("ayse", "pw", "Ayse Yilmaz"));
+
+        assertEquals(1, repository.findAll().size());
+        assertEquals(List.of("ayse"), repository.findAllUsernames());
+        assertEquals(Role.AGENT, repository.findByUsername(" ayse ").orElseThrow().getRole());
+
+        assertTrue(repository.deleteByUsername("ayse"));
+        assertFalse(repository.deleteByUsername("ayse"));
+
+        assertFalse(repository.existsByUsername("ayse"));
+        assertTrue(repository.findAllUsernames().isEmpty());
+        assertTrue(repository.searchByPrefix(null, "ay", 10).isEmpty());
+        assertEquals(List.of("ayse"), deleted);
+    }
+
+    @Test
+    void concurrentWritersLeaveOneEntryPerUser() throws InterruptedException {
+        int threads = 8, users = 100, rounds = 50;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int r = 0; r < rounds; r++) {
+                    for (int i = 0; i < users; i++) {
+                        String name = "user" + i;
+                        if ((i + r + thread) % 5 == 0) {
+                            repository.deleteByUsername(name);
+                        } else {
+                            repository.save(new Customer(name, "pw", "User " + i));
+                        }
+                    }
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+
+        List<User> all = repository.findAll();
+        assertEquals(all.size(), repository.findAllUsernames().size());
+        assertEquals(all.size(), repository.countByRole(Role.CUSTOMER));
+        assertEquals(all.size(), repository.findByRole(Role.CUSTOMER).size());
+        assertEquals(all.size(), repository.searchByPrefix(Role.CUSTOMER, "user", users).size());
+    }
+}
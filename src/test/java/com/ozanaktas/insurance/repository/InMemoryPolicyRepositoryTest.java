@@ -0,0 +1,65 @@
+package com.ozanaktas.insurance.repository;
+
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The customer index stays in step with the book through saves, overwrites and deletes.
+ */
+class InMemoryPolicyRepositoryTest {
+
+    private final InMemoryPolicyRepository repository = new InMemoryPolicyRepository();
+
+    @Test
+    void findsOnlyTheCustomersPoliciesInPolicyNumberOrder() {
+        repository.save(policy("POL-3", "alice"));
+        repository.save(policy("POL-1", "alice"));
+        repository.save(policy("POL-2", "bob"));
+
+        assertEquals(List.of("POL-1", "POL-3"), numbers(repository.findByCustomerUsername("alice")));
+        assertEquals(List.of("POL-2"), numbers(repository.findByCustomerUsername("bob")));
+        assertEquals(2, repository.countByCustomerUsername("alice"));
+        assertTrue(repository.findByCustomerUsername("carol").isEmpty());
+    }
+
+    @Test
+    void overwriteMovesThePolicyToItsNewCustomer() {
+        repository.save(policy("POL-1", "alice"));
+        repository.save(policy("POL-1", "bob"));
+
+        assertTrue(repository.findByCustomerUsername("alice").isEmpty());
+        assertEquals(0, repository.countByCustomerUsername("alice"));
+        assertEquals(List.of("POL-1"), numbers(repository.findByCustomerUsername("bob")));
+        assertEquals(1, repository.findAll().size());
+    }
+
+    @Test
+    void deleteRemovesThePolicyFromItsCustomer() {
+        repository.save(policy("POL-1", "alice"));
+        repository.save(policy("POL-2", "alice"));
+
+        assertTrue(repository.deleteByPolicyNo(" POL-1 "));
+
+        assertEquals(List.of("POL-2"), numbers(repository.findByCustomerUsername("alice")));
+        assertEquals(1, repository.countByCustomerUsername("alice"));
+
+        assertTrue(repository.deleteByPolicyNo("POL-2"));
+        assertTrue(repository.findByCustomerUsername("alice").isEmpty());
+    }
+
+    private static Policy policy(String policyNo, String customer) {
+        return new Policy(policyNo, customer, InsuranceType.TRAFFIC, 500.0,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1));
+    }
+
+    private static List<String> numbers(List<Policy> policies) {
+        return policies.stream().map(Policy::getPolicyNo).toList();
+    }
+}
@@ -0,0 +1,125 @@
+package com.ozanaktas.insurance.repository;
+
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Active-on and ending-between lookups, including open-ended terms, checked against a scan.
+ */
+class PolicyDateIndexTest {
+
+    private static final LocalDate BASE = LocalDate.of(2025, 1, 1);
+
+    @Test
+    void nullDatesLeaveThatSideOfTheTermOpen() {
+        InMemoryPolicyRepository repository = new InMemoryPolicyRepository();
+        repository.save(policy("P-open-end", BASE, null));
+        repository.save(policy("P-open-start", null, BASE.plusDays(10)));
+        repository.save(policy("P-open", null, null));
+        repository.save(policy("P-closed", BASE.plusDays(5), BASE.plusDays(6)));
+
+        assertEquals(List.of("P-open", "P-open-start"), numbers(repository.findActiveOn(BASE.minusYears(50))));
+        assertEquals(List.of("P-open", "P-open-start", "P-open-end", "P-closed"),
+                numbers(repository.findActiveOn(BASE.plusDays(5))));
+        assertEquals(List.of("P-open", "P-open-end"), numbers(repository.findActiveOn(BASE.plusYears(80))));
+
+        // A policy that never ends is never in an ending range
+        assertEquals(List.of("P-closed", "P-open-start"),
+                numbers(repository.findByEndDateBetween(LocalDate.MIN, LocalDate.MAX)));
+
+        repository.deleteByPolicyNo("P-open");
+        assertEquals(List.of("P-open-end"), numbers(repository.findActiveOn(BASE.plusYears(80))));
+    }
+
+    @Test
+    void readdingAPolicyReplacesItsTerm() {
+        PolicyDateIndex index = new PolicyDateIndex(false);
+        index.add("P-1", policy("P-1", BASE, BASE.plusDays(10)));
+        index.add("P-1", policy("P-1", BASE.plusDays(20), null));
+
+        assertEquals(1, index.size());
+        assertTrue(index.activeOn(BASE.plusDays(5)).isEmpty());
+        assertEquals(1, index.activeOn(BASE.plusDays(500)).size());
+        assertTrue(index.endingBetween(BASE, BASE.plusDays(10)).isEmpty());
+
+        // Removal goes by number, whatever copy the caller holds
+        index.remove("P-1", policy("P-1", BASE, BASE.plusDays(10)));
+        assertEquals(0, index.size());
+        assertTrue(index.activeOn(BASE.plusDays(500)).isEmpty());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void matchesAScanThroughRandomChanges(boolean concurrent) {
+        Random random = new Random(20);
+        PolicyDateIndex index = new PolicyDateIndex(concurrent);
+        Map<String, Policy> book = new HashMap<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            String no = "P-" + random.nextInt(2_000);
+            if (random.nextInt(4) == 0) {
+                index.remove(no, book.remove(no));
+            } else {
+                LocalDate start = random.nextInt(20) == 0 ? null : BASE.plusDays(random.nextInt(3_000));
+                LocalDate end = random.nextInt(20) == 0 ? null
+                        : (start == null ? BASE : start).plusDays(random.nextInt(random.nextBoolean() ? 30 : 2_000));
+                Policy p = policy(no, start, end);
+                index.add(no, p);
+                book.put(no, p);
+            }
+
+            if (step % 500 == 0) {
+                LocalDate day = BASE.plusDays(random.nextInt(3_500) - 100);
+                assertEquals(scanActive(book, day), index.activeOn(day), "active on " + day);
+                LocalDate to = day.plusDays(random.nextInt(60));
+                assertEquals(scanEnding(book, day, to), index.endingBetween(day, to), "ending " + day + ".." + to);
+            }
+        }
+        assertEquals(book.size(), index.size());
+    }
+
+    private static List<Policy> scanActive(Map<String, Policy> book, LocalDate day) {
+        List<Policy> out = new ArrayList<>();
+        for (Policy p : book.values()) {
+            boolean started = p.getStartDate() == null || !p.getStartDate().isAfter(day);
+            boolean running = p.getEndDate() == null || !p.getEndDate().isBefore(day);
+            if (started && running) out.add(p);
+        }
+        out.sort(Comparator.comparing((Policy p) -> p.getStartDate() == null ? LocalDate.MIN : p.getStartDate())
+                .thenComparing(Policy::getPolicyNo));
+        return out;
+    }
+
+    private static List<Policy> scanEnding(Map<String, Policy> book, LocalDate from, LocalDate to) {
+        List<Policy> out = new ArrayList<>();
+        for (Policy p : book.values()) {
+            if (p.getEndDate() != null && !p.getEndDate().isBefore(from) && !p.getEndDate().isAfter(to)) out.add(p);
+        }
+        out.sort(Comparator.comparing(Policy::getEndDate).thenComparing(Policy::getPolicyNo));
+        return out;
+    }
+
+    private static List<String> numbers(List<Policy> policies) {
+        List<String> out = new ArrayList<>();
+        policies.forEach(p -> out.add(p.getPolicyNo()));
+        return out;
+    }
+
+    private static Policy policy(String policyNo, LocalDate start, LocalDate end) {
+        return new Policy(policyNo, "customer", InsuranceType.HOME, 100, start, end);
+    }
+}
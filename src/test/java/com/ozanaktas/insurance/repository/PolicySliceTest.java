@@ -0,0 +1,135 @@
+package com.ozanaktas.insurance.repository;
+
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Keyset paging of both policy repositories: page boundaries, empty and exact-fit pages,
+ * and rows added or removed between pages.
+ */
+class PolicySliceTest {
+
+    static Stream<PolicyRepository> repositories() {
+        return Stream.of(new InMemoryPolicyRepository(), new ConcurrentPolicyRepository());
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    void walksTheBookInPolicyNumberOrder(PolicyRepository repository) {
+        for (int i = 24; i >= 0; i--) {
+            repository.save(policy(String.format("P-%03d", i), "c" + (i % 3)));
+        }
+
+        List<String> seen = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        String after = null;
+        do {
+            Slice<Policy> slice = repository.findSlice(after, 10);
+            sizes.add(slice.content().size());
+            slice.content().forEach(p -> seen.add(p.getPolicyNo()));
+            after = slice.nextKey();
+        } while (after != null);
+
+        assertEquals(List.of(10, 10, 5), sizes);
+        assertEquals(25, seen.size());
+        List<String> sorted = new ArrayList<>(seen);
+        sorted.sort(null);
+        assertEquals(sorted, seen);
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    void anExactlyFullLastPageHasNoNextKey(PolicyRepository repository) {
+        for (int i = 0; i < 20; i++) {
+            repository.save(policy(String.format("P-%03d", i), "c"));
+        }
+
+        Slice<Policy> first = repository.findSlice(null, 10);
+        Slice<Policy> second = repository.findSlice(first.nextKey(), 10);
+
+        assertEquals("P-009", first.nextKey());
+        assertEquals(10, second.content().size());
+        assertFalse(second.hasNext());
+        assertNull(second.nextKey());
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    void emptyAndDegenerateRequestsReturnEmptySlices(PolicyRepository repository) {
+        assertTrue(repository.findSlice(null, 10).content().isEmpty());
+        assertFalse(repository.findSlice(null, 10).hasNext());
+
+        repository.save(policy("P-001", "c"));
+
+        assertTrue(repository.findSlice(null, 0).content().isEmpty());
+        assertTrue(repository.findSlice("P-001", 10).content().isEmpty());
+        assertTrue(repository.findSliceByCustomerUsername("nobody", null, 10).content().isEmpty());
+        assertTrue(repository.findSliceByCustomerUsername(null, null, 10).content().isEmpty());
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    void keysetSurvivesChangesBetweenPages(PolicyRepository repository) {
+        for (int i = 0; i < 10; i++) {
+            repository.save(policy(String.format("P-%03d", i * 10), "c"));
+        }
+
+        Slice<Policy> first = repository.findSlice(null, 3);
+        assertEquals("P-020", first.nextKey());
+
+        // The last key of the page disappears, a row lands behind the cursor and one ahead of it
+        repository.deleteByPolicyNo("P-020");
+        repository.save(policy("P-005", "c"));
+        repository.save(policy("P-025", "c"));
+
+        Slice<Policy> second = repository.findSlice(first.nextKey(), 3);
+
+        assertEquals(List.of("P-025", "P-030", "P-040"), numbers(second));
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    void pagesOneCustomerOnly(PolicyRepository repository) {
+        for (int i = 0; i < 30; i++) {
+            repository.save(policy(String.format("P-%03d", i), i % 2 == 0 ? "even" : "odd"));
+        }
+
+        List<String> seen = new ArrayList<>();
+        String after = null;
+        do {
+            Slice<Policy> slice = repository.findSliceByCustomerUsername("even", after, 4);
+            slice.content().forEach(p -> {
+                assertEquals("even", p.getCustomerUsername());
+                seen.add(p.getPolicyNo());
+            });
+            after = slice.nextKey();
+        } while (after != null);
+
+        assertEquals(15, seen.size());
+        assertEquals("P-000", seen.get(0));
+        assertEquals("P-028", seen.get(14));
+    }
+
+    private static List<String> numbers(Slice<Policy> slice) {
+        List<String> out = new ArrayList<>();
+        slice.content().forEach(p -> out.add(p.getPolicyNo()));
+        return out;
+    }
+
+    private static Policy policy(String policyNo, String customer) {
+        return new Policy(policyNo, customer, InsuranceType.HEALTH, 100,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1));
+    }
+}
@@ -0,0 +1,91 @@
+package com.ozanaktas.insurance.repository;
+
+import com.ozanaktas.insurance.model.Admin;
+import com.ozanaktas.insurance.model.Agent;
+import com.ozanaktas.insurance.model.Customer;
+import com.ozanaktas.insurance.model.Role;
+import com.ozanaktas.insurance.model.User;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prefix search over usernames and full names in both user repositories.
+ */
+class UserPrefixSearchTest {
+
+    static Stream<UserRepository> repositories() {
+        return Stream.of(new InMemoryUserRepository(), new ConcurrentUserRepository());
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    void matchesUsernameFullNameAndEveryWordIgnoringCase(UserRepository repository) {
+        repository.save(new Customer("ali", "pw", "Ali Veli"));
+        repository.save(new Customer("zeynep", "pw", "Zeynep Kaya"));
+        repository.save(new Customer("kaan", "pw", "Kaan Demir"));
+
+        assertEquals(List.of("ali"), usernames(repository.searchByPrefix(Role.CUSTOMER, "VE", 10)));
+        assertEquals(List.of("zeynep"), usernames(repository.searchByPrefix(Role.CUSTOMER, "zeynep k", 10)));
+        assertEquals(List.of("kaan", "zeynep"), usernames(repository.searchByPrefix(Role.CUSTOMER, " ka", 10)));
+        assertTrue(repository.searchByPrefix(Role.CUSTOMER, "x", 10).isEmpty());
+        assertTrue(repository.searchByPrefix(Role.CUSTOMER, "a", 0).isEmpty());
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    void aUserMatchingSeveralTermsCountsOnceTowardsTheLimit(UserRepository repository) {
+        // "deniz" matches through the username, the full name and both words
+        repository.save(new Customer("deniz", "pw", "Deniz Deniz"));
+        repository.save(new Customer("derya", "pw", "Derya Ak"));
+        repository.save(new Customer("demet", "pw", "Demet Ak"));
+
+        List<User> hits = repository.searchByPrefix(Role.CUSTOMER, "de", 2);
+        assertEquals(2, hits.size());
+        assertEquals(2, hits.stream().map(User::getUsername).distinct().count());
+        assertEquals(3, repository.searchByPrefix(Role.CUSTOMER, "de", 10).size());
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    void searchesOneRoleOrAllOfThemInUsernameOrder(UserRepository repository) {
+        repository.save(new Customer("mert", "pw", "Mert Can"));
+        repository.save(new Agent("can", "pw", "Can Ajan"));
+        repository.save(new Admin("cansu", "pw", "Cansu Yonetici"));
+
+        assertEquals(List.of("can"), usernames(repository.searchByPrefix(Role.AGENT, "can", 10)));
+        assertEquals(List.of("can", "cansu", "mert"), usernames(repository.searchByPrefix(null, "can", 10)));
+        assertEquals(List.of("can", "cansu"), usernames(repository.searchByPrefix(null, "can", 2)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    void renamesRoleChangesAndDeletesLeaveNoStaleTerms(UserRepository repository) {
+        repository.save(new Customer("selin", "pw", "Selin Oz"));
+        repository.save(new Customer("selin", "pw", "Selin Aydin"));
+
+        assertTrue(repository.searchByPrefix(Role.CUSTOMER, "oz", 10).isEmpty());
+        assertEquals(List.of("selin"), usernames(repository.searchByPrefix(Role.CUSTOMER, "ay", 10)));
+
+        repository.save(new Agent("selin", "pw", "Selin Aydin"));
+        assertTrue(repository.searchByPrefix(Role.CUSTOMER, "ay", 10).isEmpty());
+        assertEquals(List.of("selin"), usernames(repository.searchByPrefix(Role.AGENT, "ay", 10)));
+
+        repository.deleteByUsername("selin");
+        assertTrue(repository.searchByPrefix(null, "selin", 10).isEmpty());
+    }
+
+    private static List<String> usernames(List<User> users) {
+        List<String> names = new ArrayList<>();
+        for (User u : users) {
+            names.add(u.getUsername());
+        }
+        return names;
+    }
+}
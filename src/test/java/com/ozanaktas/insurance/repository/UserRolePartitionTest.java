@@ -0,0 +1,87 @@
+package com.ozanaktas.insurance.repository;
+
+import com.ozanaktas.insurance.model.Admin;
+import com.ozanaktas.insurance.model.Agent;
+import com.ozanaktas.insurance.model.Customer;
+import com.ozanaktas.insurance.model.Role;
+import com.ozanaktas.insurance.model.User;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Role partitions of both user repositories: sorted, paged by username and counted,
+ * with users moving between roles.
+ */
+class UserRolePartitionTest {
+
+    static Stream<UserRepository> repositories() {
+        return Stream.of(new InMemoryUserRepository(), new ConcurrentUserRepository());
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    void partitionsAreSortedAndCounted(UserRepository repository) {
+        repository.save(new Customer("zeynep", "pw", "Zeynep Kaya"));
+        repository.save(new Customer("ali", "pw", "Ali Demir"));
+        repository.save(new Agent("mehmet", "pw", "Mehmet Can"));
+        repository.save(new Admin("admin", "pw", "Admin"));
+
+        assertEquals(List.of("ali", "zeynep"), usernames(repository.findByRole(Role.CUSTOMER)));
+        assertEquals(2, repository.countByRole(Role.CUSTOMER));
+        assertEquals(1, repository.countByRole(Role.AGENT));
+        assertEquals(1, repository.countByRole(Role.ADMIN));
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    void pagesByUsernameAcrossTheWholePartition(UserRepository repository) {
+        for (int i = 0; i < 25; i++) {
+            repository.save(new Customer(String.format("c%02d", i), "pw", "Customer " + i));
+        }
+        repository.save(new Agent("c05x", "pw", "Not a customer"));
+
+        List<String> seen = new ArrayList<>();
+        String after = null;
+        List<User> page;
+        while (!(page = repository.findByRole(Role.CUSTOMER, after, 10)).isEmpty()) {
+            assertTrue(page.size() <= 10);
+            seen.addAll(usernames(page));
+            after = page.get(page.size() - 1).getUsername();
+        }
+
+        assertEquals(25, seen.size());
+        assertEquals("c00", seen.get(0));
+        assertEquals("c24", seen.get(24));
+        assertTrue(repository.findByRole(Role.CUSTOMER, "c24", 10).isEmpty());
+        assertTrue(repository.findByRole(Role.CUSTOMER, null, 0).isEmpty());
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    void roleChangeAndDeleteMoveTheUser(UserRepository repository) {
+        repository.save(new Customer("deniz", "pw", "Deniz Ak"));
+        repository.save(new Agent("deniz", "pw", "Deniz Ak"));
+
+        assertEquals(0, repository.countByRole(Role.CUSTOMER));
+        assertEquals(List.of("deniz"), usernames(repository.findByRole(Role.AGENT)));
+
+        repository.deleteByUsername("deniz");
+        assertEquals(0, repository.countByRole(Role.AGENT));
+        assertTrue(repository.findByRole(Role.AGENT).isEmpty());
+    }
+
+    private static List<String> usernames(List<User> users) {
+        List<String> names = new ArrayList<>();
+        for (User u : users) {
+            names.add(u.getUsername());
+        }
+        return names;
+    }
+}
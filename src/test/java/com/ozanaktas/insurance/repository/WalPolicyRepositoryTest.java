@@ -0,0 +1,219 @@
+package com.ozanaktas.insurance.repository;
+
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.model.PolicyStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Crash recovery of the policy log: what survives a restart after a clean shutdown,
+ * a torn last record and a corrupted one; and what memory holds after a failed write.
+ */
+class WalPolicyRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysEveryRecordOfAGroupCommit() throws IOException {
+        Path log = dir.resolve("policies.wal");
+        List<Policy> batch = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            batch.add(policy("POL-" + i));
+        }
+
+        try (WalPolicyRepository repository = new WalPolicyRepository(log)) {
+            repository.saveAll(batch);
+
+            Policy cancelled = policy("POL-7");
+            cancelled.setStatus(PolicyStatus.CANCELLED);
+            repository.save(cancelled);
+            assertTrue(repository.deleteByPolicyNo("POL-9"));
+        }
+
+        try (WalPolicyRepository reopened = new WalPolicyRepository(log)) {
+            assertEquals(499, reopened.findAll().size());
+            assertFalse(reopened.existsByPolicyNo("POL-9"));
+            assertEquals(PolicyStatus.CANCELLED, reopened.findByPolicyNo("POL-7").orElseThrow().getStatus());
+
+            Policy last = reopened.findByPolicyNo("POL-500").orElseThrow();
+            assertEquals("customer", last.getCustomerUsername());
+            assertEquals(InsuranceType.HOME, last.getType());
+            assertEquals(LocalDate.of(2025, 1, 1), last.getStartDate());
+            assertEquals(LocalDate.of(2026, 1, 1), last.getEndDate());
+        }
+    }
+
+    @Test
+    void dropsATornLastRecordAndKeepsAppending() throws IOException {
+        Path log = dir.resolve("policies.wal");
+        try (WalPolicyRepository repository = new WalPolicyRepository(log)) {
+            repository.save(policy("POL-1"));
+            repository.save(policy("POL-2"));
+        }
+        long intact = Files.size(log);
+
+        try (WalPolicyRepository repository = new WalPolicyRepository(log)) {
+            repository.save(policy("POL-3"));
+        }
+        // A crash halfway through writing the third record
+        truncate(log, intact + (Files.size(log) - intact) / 2);
+
+        try (WalPolicyRepository reopened = new WalPolicyRepository(log)) {
+            assertEquals(2, reopened.findAll().size());
+            assertFalse(reopened.existsByPolicyNo("POL-3"));
+            assertEquals(intact, Files.size(log));
+
+            reopened.save(policy("POL-4"));
+        }
+
+        try (WalPolicyRepository reopened = new WalPolicyRepository(log)) {
+            assertEquals(3, reopened.findAll().size());
+            assertTrue(reopened.existsByPolicyNo("POL-4"));
+        }
+    }
+
+    @Test
+    void dropsATornRecordHeader() throws IOException {
+        Path log = dir.resolve("policies.wal");
+        try (WalPolicyRepository repository = new WalPolicyRepository(log)) {
+            repository.save(policy("POL-1"));
+        }
+        long intact = Files.size(log);
+        Files.write(log, new byte[]{0, 0, 0}, StandardOpenOption.APPEND);
+
+        try (WalPolicyRepository reopened = new WalPolicyRepository(log)) {
+            assertEquals(1, reopened.findAll().size());
+            assertEquals(intact, Files.size(log));
+        }
+    }
+
+    @Test
+    void stopsAtARecordWhoseChecksumDoesNotMatch() throws IOException {
+        Path log = dir.resolve("policies.wal");
+        try (WalPolicyRepository repository = new WalPolicyRepository(log)) {
+            repository.save(policy("POL-1"));
+        }
+        long first = Files.size(log);
+
+        try (WalPolicyRepository repository = new WalPolicyRepository(log)) {
+            repository.save(policy("POL-2"));
+            repository.save(policy("POL-3"));
+        }
+        // Flip a payload byte of the second record; it and everything after it are discarded
+        flipByte(log, first + 12);
+
+        try (WalPolicyRepository reopened = new WalPolicyRepository(log)) {
+            assertEquals(1, reopened.findAll().size());
+            assertTrue(reopened.existsByPolicyNo("POL-1"));
+            assertEquals(first, Files.size(log));
+        }
+    }
+
+    @Test
+    void refusesWritesAfterClose() throws IOException {
+        WalPolicyRepository repository = new WalPolicyRepository(dir.resolve("policies.wal"));
+        repository.close();
+
+        assertThrows(IllegalStateException.class, () -> repository.save(policy("POL-1")));
+        assertFalse(repository.existsByPolicyNo("POL-1"));
+    }
+
+    @Test
+    void rollsBackChangesTheLogCouldNotWrite() throws Exception {
+        WalPolicyRepository repository = new WalPolicyRepository(dir.resolve("policies.wal"));
+        Policy original = policy("POL-1");
+        repository.save(original);
+        repository.save(policy("POL-2"));
+
+        breakLog(repository);
+
+        Policy cancelled = original.withStatus(PolicyStatus.CANCELLED);
+        assertThrows(RuntimeException.class, () -> repository.save(cancelled));
+
+        Policy restored = repository.findByPolicyNo("POL-1").orElseThrow();
+        assertSame(original, restored);
+        assertEquals(PolicyStatus.ACTIVE, restored.getStatus());
+
+        // Once failed, the log refuses further writes and memory is left as it was
+        assertThrows(IllegalStateException.class, () -> repository.save(policy("POL-3")));
+        assertThrows(IllegalStateException.class, () -> repository.deleteByPolicyNo("POL-2"));
+        assertFalse(repository.existsByPolicyNo("POL-3"));
+        assertTrue(repository.existsByPolicyNo("POL-2"));
+        assertEquals(List.of("POL-1", "POL-2"), numbers(repository.findSlice(null, 10).content()));
+
+        repository.close();
+    }
+
+    @Test
+    void rollsBackAnUnloggedInsertAndDelete() throws Exception {
+        WalPolicyRepository repository = new WalPolicyRepository(dir.resolve("policies.wal"));
+        repository.save(policy("POL-1"));
+
+        breakLog(repository);
+
+        assertThrows(RuntimeException.class, () -> repository.deleteByPolicyNo("POL-1"));
+        assertTrue(repository.existsByPolicyNo("POL-1"));
+        assertEquals(1, repository.findByCustomerUsername("customer").size());
+
+        repository.close();
+        try (WalPolicyRepository reopened = new WalPolicyRepository(dir.resolve("policies.wal"))) {
+            assertTrue(reopened.existsByPolicyNo("POL-1"));
+        }
+    }
+
+    /**
+     * Closes the log file under the writer, so its next write fails.
+     */
+    private static void breakLog(WalPolicyRepository repository) throws Exception {
+        Field channel = WalPolicyRepository.class.getDeclaredField("channel");
+        channel.setAccessible(true);
+        ((FileChannel) channel.get(repository)).close();
+    }
+
+    private static List<String> numbers(List<Policy> policies) {
+        List<String> numbers = new ArrayList<>();
+        for (Policy p : policies) {
+            numbers.add(p.getPolicyNo());
+        }
+        return numbers;
+    }
+
+    private static Policy policy(String policyNo) {
+        return new Policy(policyNo, "customer", InsuranceType.HOME, 1200.0,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1));
+    }
+
+    private static void truncate(Path file, long length) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(length);
+        }
+    }
+
+    private static void flipByte(Path file, long position) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(position);
+            int b = raf.read();
+            raf.seek(position);
+            raf.write(b ^ 0xFF);
+        }
+    }
+}
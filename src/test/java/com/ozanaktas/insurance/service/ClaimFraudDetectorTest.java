@@ -0,0 +1,91 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.Claim;
+import com.ozanaktas.insurance.service.ClaimFraudDetector.Limits;
+import com.ozanaktas.insurance.service.ClaimFraudDetector.Signal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Count, amount and repeat limits of the fraud detector, and windows dropped by the sweep.
+ */
+class ClaimFraudDetectorTest {
+
+    @Test
+    void byDefaultOneRepeatIsAllowedAndTheSecondIsFlagged() {
+        ClaimFraudDetector detector = new ClaimFraudDetector();
+
+        assertTrue(detector.assess(new Claim("alice", "P-1", "hail on the roof", 1_000)).isEmpty());
+        assertTrue(detector.assess(new Claim("alice", "P-2", "stolen bike", 1_000)).isEmpty());
+        assertEquals(Set.of(Signal.CUSTOMER_REPEATED_AMOUNT),
+                detector.assess(new Claim("alice", "P-3", "cracked tile", 1_000)));
+
+        // Descriptions match ignoring case and punctuation
+        assertTrue(detector.assess(new Claim("bob", "P-4", "Broken window!", 100)).isEmpty());
+        assertTrue(detector.assess(new Claim("bob", "P-5", "broken window", 200)).isEmpty());
+        assertEquals(Set.of(Signal.CUSTOMER_REPEATED_DESCRIPTION),
+                detector.assess(new Claim("bob", "P-6", "BROKEN, window", 300)));
+        assertEquals(2, detector.flaggedCount());
+        assertEquals(6, detector.assessedCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 2, 7})
+    void repeatsAreFlaggedOnlyPastMaxDuplicates(int maxDuplicates) {
+        Limits loose = new Limits(Integer.MAX_VALUE, 1e12, maxDuplicates);
+        ClaimFraudDetector detector = new ClaimFraudDetector(Duration.ofHours(1), 60, loose, loose);
+
+        for (int i = 0; i <= maxDuplicates; i++) {
+            assertTrue(detector.assess(new Claim("alice", "P-1", "claim " + i, 500)).isEmpty(), "claim " + i);
+        }
+        assertEquals(Set.of(Signal.CUSTOMER_REPEATED_AMOUNT, Signal.POLICY_REPEATED_AMOUNT),
+                detector.assess(new Claim("alice", "P-1", "one too many", 500)));
+    }
+
+    @Test
+    void countAndAmountLimitsApplyPerCustomerAndPerPolicy() {
+        ClaimFraudDetector detector = new ClaimFraudDetector();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(detector.assess(new Claim("c" + i, "P-1", "claim " + i, 100 + i)).isEmpty());
+        }
+        assertEquals(Set.of(Signal.POLICY_CLAIM_COUNT), detector.assess(new Claim("c3", "P-1", "claim 3", 103)));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(detector.assess(new Claim("dave", "Q-" + i, "claim " + i, 200 + i)).isEmpty());
+        }
+        assertEquals(Set.of(Signal.CUSTOMER_CLAIM_COUNT), detector.assess(new Claim("dave", "Q-5", "claim 5", 205)));
+
+        assertTrue(detector.assess(new Claim("erin", "R-1", "fire", 24_000)).isEmpty());
+        assertEquals(Set.of(Signal.CUSTOMER_TOTAL_AMOUNT, Signal.POLICY_TOTAL_AMOUNT),
+                detector.assess(new Claim("erin", "R-1", "smoke", 27_000)));
+    }
+
+    @Test
+    void sweptWindowsAreReplacedByFreshOnes() {
+        ClaimFraudDetector detector = new ClaimFraudDetector();
+        detector.assess(new Claim("alice", "P-1", "hail", 1_000));
+        detector.assess(new Claim("alice", "P-1", "flood", 1_000));
+        assertEquals(1, detector.trackedCustomers());
+
+        // Nothing is idle yet: the windows stay and still count the repeats
+        detector.sweep(-1);
+        assertEquals(1, detector.trackedCustomers());
+
+        detector.sweep(Long.MAX_VALUE);
+        assertEquals(0, detector.trackedCustomers());
+        assertEquals(0, detector.trackedPolicies());
+
+        // The third claim of this amount starts over in a new window
+        assertTrue(detector.assess(new Claim("alice", "P-1", "storm", 1_000)).isEmpty());
+        assertEquals(1, detector.trackedCustomers());
+        assertEquals(1, detector.trackedPolicies());
+    }
+}
@@ -0,0 +1,104 @@
+package com.ozanaktas.insurance.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Histogram buckets and percentiles, checked against exact quantiles of the recorded waits.
+ */
+class ClaimMetricsTest {
+
+    @Test
+    void everyValueFallsInABucketWithinAnEighthOfIt() {
+        Random random = new Random(19);
+        int previous = -1;
+        for (long micros = 0; micros < 5_000; micros++) {
+            int bucket = ClaimMetrics.bucketOf(micros);
+            assertTrue(bucket >= previous, "buckets must not go down at " + micros);
+            previous = bucket;
+            assertBounded(micros, bucket);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            long micros = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            assertBounded(micros, ClaimMetrics.bucketOf(micros));
+        }
+        assertBounded(Long.MAX_VALUE, ClaimMetrics.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void percentilesStayWithinTheBucketErrorOfTheExactValue() {
+        Random random = new Random(7);
+        ClaimMetrics metrics = new ClaimMetrics();
+        long[] waits = new long[50_000];
+        for (int i = 0; i < waits.length; i++) {
+            // Log-normal around a few milliseconds, with a long tail
+            waits[i] = (long) Math.exp(8 + 1.5 * random.nextGaussian());
+            metrics.recordProcessed(Duration.ofNanos(waits[i] * 1_000));
+        }
+        Arrays.sort(waits);
+
+        for (double q : new double[]{0.01, 0.25, 0.5, 0.9, 0.99, 0.999, 1.0}) {
+            long exact = waits[(int) Math.ceil(q * waits.length) - 1];
+            long reported = metrics.waitPercentile(q).toNanos() / 1_000;
+            assertTrue(reported >= exact, "p" + q + " " + reported + " < " + exact);
+            assertTrue(reported <= exact + exact / 8, "p" + q + " " + reported + " too far above " + exact);
+        }
+        assertEquals(waits[waits.length - 1], metrics.maxWait().toNanos() / 1_000);
+        assertEquals(metrics.maxWait(), metrics.waitPercentile(1.0));
+        assertEquals(waits.length, metrics.processedCount());
+    }
+
+    @Test
+    void smallAndDegenerateInputs() {
+        ClaimMetrics metrics = new ClaimMetrics();
+        assertEquals(Duration.ZERO, metrics.waitPercentile(0.99));
+
+        metrics.recordProcessed(Duration.ofMillis(3));
+        assertEquals(Duration.ofMillis(3), metrics.waitPercentile(0.5));
+        assertEquals(Duration.ofMillis(3), metrics.waitPercentile(0.0));
+
+        // Clock skew can make a wait negative; it counts as zero
+        metrics.recordProcessed(Duration.ofMillis(-5));
+        assertEquals(Duration.ZERO, metrics.waitPercentile(0.5));
+        assertEquals(Duration.ofMillis(3), metrics.waitPercentile(1.0));
+        assertEquals(2, metrics.snapshot().processed());
+    }
+
+    @Test
+    void concurrentRecordingLosesNothing() throws InterruptedException {
+        ClaimMetrics metrics = new ClaimMetrics();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int id = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    metrics.recordProcessed(Duration.ofNanos((long) (id * 10_000 + i) * 1_000));
+                    metrics.recordSubmitted();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(80_000, metrics.processedCount());
+        assertEquals(Duration.ofNanos(79_999_000L), metrics.maxWait());
+        long median = metrics.waitPercentile(0.5).toNanos() / 1_000;
+        assertTrue(median >= 39_999 && median <= 39_999 + 39_999 / 8, "median " + median);
+    }
+
+    private static void assertBounded(long micros, int bucket) {
+        long upper = ClaimMetrics.upperBound(bucket);
+        assertTrue(upper >= micros, micros + " above its bucket bound " + upper);
+        assertTrue(upper - micros <= micros / 8, micros + " too far below its bucket bound " + upper);
+    }
+}
@@ -0,0 +1,132 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.Claim;
+import com.ozanaktas.insurance.model.ClaimStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Retries, dead letters, per-policy order and undo of claims completed by the engine.
+ */
+class ClaimProcessingEngineTest {
+
+    private final ClaimQueueService queue = new ClaimQueueService(null);
+
+    @Test
+    void retriesAFailingHandlerBeforeCompletingTheClaim() throws InterruptedException {
+        Claim claim = new Claim("alice", "P-1", "flaky", 100);
+        queue.submitClaim(claim);
+        AtomicInteger attempts = new AtomicInteger();
+
+        ClaimProcessingEngine engine = engine(c -> {
+            if (attempts.incrementAndGet() < 3) throw new IllegalStateException("try again");
+        }, 2, null);
+        engine.start();
+        awaitTrue(() -> engine.processedCount() == 1);
+        assertTrue(engine.stop(5, TimeUnit.SECONDS));
+
+        assertEquals(3, attempts.get());
+        assertEquals(2, engine.retryCount());
+        assertEquals(0, engine.failedCount());
+        assertEquals(ClaimStatus.PROCESSED, claim.getStatus());
+        assertEquals(1, queue.processedCount());
+    }
+
+    @Test
+    void deadLettersAClaimThatFailsEveryAttempt() throws InterruptedException {
+        Claim poison = new Claim("alice", "P-1", "poison", 100);
+        Claim next = new Claim("alice", "P-1", "fine", 200);
+        queue.submitClaim(poison);
+        queue.submitClaim(next);
+
+        ClaimProcessingEngine engine = engine(c -> {
+            if (c == poison) throw new IllegalStateException("always");
+        }, 2, null);
+        engine.start();
+        awaitTrue(() -> engine.processedCount() + engine.failedCount() == 2);
+        assertTrue(engine.stop(5, TimeUnit.SECONDS));
+
+        assertEquals(1, engine.failedCount());
+        assertEquals(ClaimProcessingEngine.DEFAULT_MAX_ATTEMPTS - 1, engine.retryCount());
+        assertEquals(ClaimStatus.FAILED, poison.getStatus());
+        assertEquals(List.of(poison), queue.getFailedClaims());
+        assertEquals(ClaimStatus.PROCESSED, next.getStatus());
+        assertEquals(0, queue.queuedCount());
+    }
+
+    @Test
+    void handlesEachPolicysClaimsInSubmissionOrder() throws InterruptedException {
+        int policies = 40;
+        int perPolicy = 50;
+        Map<String, List<Integer>> expected = new ConcurrentHashMap<>();
+        for (int i = 0; i < perPolicy; i++) {
+            for (int p = 0; p < policies; p++) {
+                // Amounts cross every band so a policy's claims would land in different shards unpinned
+                int amount = (i * 7919 + p) % 200_000 + 1;
+                queue.submitClaim(new Claim("c" + p, "P-" + p, String.valueOf(i), amount));
+                expected.computeIfAbsent("P-" + p, k -> new ArrayList<>()).add(i);
+            }
+        }
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+
+        ClaimProcessingEngine engine = engine(c -> {
+            // One lane per policy: the list is only touched by that lane's thread
+            seen.computeIfAbsent(c.getPolicyNo(), k -> new ArrayList<>()).add(Integer.parseInt(c.getDescription()));
+        }, 4, null);
+        engine.start();
+        awaitTrue(() -> engine.processedCount() == (long) policies * perPolicy);
+        assertTrue(engine.stop(5, TimeUnit.SECONDS));
+
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void completionsAreUndoneFromTheStartingUsersStack() throws InterruptedException {
+        UndoRegistry registry = new UndoRegistry();
+        for (int i = 0; i < 10; i++) {
+            queue.submitClaim(new Claim("alice", "P-" + i, "claim " + i, 100));
+        }
+
+        ClaimProcessingEngine engine = engine(c -> { }, 3, registry.forUser("agent"));
+        engine.start();
+        awaitTrue(() -> engine.processedCount() == 10);
+        assertTrue(engine.stop(5, TimeUnit.SECONDS));
+
+        UndoService stack = registry.forUser("agent");
+        assertEquals(10, stack.size());
+        assertTrue(stack.undoLast().isPresent());
+        assertEquals(1, queue.queuedCount());
+        assertEquals(9, queue.processedCount());
+
+        for (int i = 10; i < 14; i++) {
+            queue.submitClaim(new Claim("alice", "P-" + i, "claim " + i, 100));
+        }
+        assertEquals(5, queue.processNextBatch(10, registry.forUser("admin")).size());
+        assertEquals(5, registry.forUser("admin").size());
+        assertEquals(9, stack.size());
+    }
+
+    private ClaimProcessingEngine engine(Consumer<Claim> handler, int workers, UndoService undo) {
+        return new ClaimProcessingEngine(queue, handler, workers, 16, ClaimProcessingEngine.DEFAULT_MAX_ATTEMPTS,
+                ClaimProcessingEngine.namedDaemonThreads("test-worker"), undo);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(2);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.Claim;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query parsing, the gap encoding of posting lists, and removal with compaction.
+ */
+class ClaimTextIndexTest {
+
+    private final ClaimTextIndex index = new ClaimTextIndex();
+    private final List<Claim> added = new ArrayList<>();
+
+    @Test
+    void wordsAreAndedOrSeparatesAlternativesAndNotExcludes() {
+        Claim flood = add("Flood in the basement");
+        Claim water = add("Water damage in the kitchen");
+        Claim both = add("flood water on the roof");
+        Claim rearEnd = add("Rear-end collision at O'Brien street");
+
+        assertEquals(Set.of(both), found("water flood"));
+        assertEquals(Set.of(flood, water, both), found("water OR flood"));
+        assertEquals(Set.of(water, both), found("water OR flood -basement"));
+        assertEquals(Set.of(water, both), found("water OR flood NOT basement"));
+        assertEquals(Set.of(flood), found("flood -water -roof"));
+
+        // Hyphenated words match whole and by part; "o'brien" needs both of its words
+        assertEquals(Set.of(rearEnd), found("rear-end"));
+        assertEquals(Set.of(rearEnd), found("REAR"));
+        assertEquals(Set.of(rearEnd), found("o'brien"));
+
+        // Lower-case "or" is a word, and a clause of exclusions only matches nothing
+        assertTrue(found("water or flood").isEmpty());
+        assertTrue(found("-basement").isEmpty());
+        assertEquals(Set.of(water), found("-flood OR kitchen"));
+        assertTrue(found("OR NOT -").isEmpty());
+        assertTrue(found("   ").isEmpty());
+    }
+
+    @Test
+    void resultsAreNewestFirstUpToTheLimit() {
+        List<Claim> claims = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            claims.add(add("storm " + i));
+        }
+
+        List<UUID> ids = index.search("storm", 3);
+        assertEquals(List.of(claims.get(9).getId(), claims.get(8).getId(), claims.get(7).getId()), ids);
+        assertTrue(index.search("storm", 0).isEmpty());
+    }
+
+    @Test
+    void postingGapsRoundTripAcrossEveryEncodedLength() {
+        // Gaps of 1 to 5 bytes: below and above each 7-bit boundary
+        int[] docs = {0, 1, 128, 256, 16_640, 16_641, 2_113_793, 2_113_794, 270_549_250, Integer.MAX_VALUE - 1};
+        ClaimTextIndex.Postings postings = new ClaimTextIndex.Postings();
+        for (int doc : docs) {
+            postings.append(doc);
+        }
+        postings.append(Integer.MAX_VALUE - 1);
+
+        assertEquals(docs.length, postings.count);
+        assertArrayEquals(docs, postings.decode());
+        assertArrayEquals(new int[]{1, 16_641, 270_549_250},
+                postings.retain(new int[]{1, 2, 16_641, 2_113_795, 270_549_250}));
+        assertArrayEquals(new int[0], postings.retain(new int[]{Integer.MAX_VALUE}));
+    }
+
+    @Test
+    void removedClaimsStopMatchingAndCompactionKeepsTheRest() {
+        List<Claim> claims = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            claims.add(add((i % 2 == 0 ? "hail" : "theft") + " case" + i));
+        }
+        long bytesBefore = index.postingBytes();
+
+        // Removing every hail claim passes the compaction threshold part way through
+        for (int i = 0; i < claims.size(); i += 2) {
+            assertTrue(index.remove(claims.get(i).getId()));
+        }
+        assertFalse(index.remove(claims.get(0).getId()));
+        assertFalse(index.remove(UUID.randomUUID()));
+
+        assertEquals(2000, index.documentCount());
+        assertTrue(index.search("hail", 10).isEmpty());
+        assertTrue(index.search("case0", 10).isEmpty());
+        assertEquals(List.of(claims.get(3999).getId(), claims.get(3997).getId()), index.search("theft", 2));
+        assertEquals(List.of(claims.get(1).getId()), index.search("case1", 10));
+        // One rewrite ran at 1024 removals and dropped their "caseN" terms; later removals are only marked
+        assertEquals(4002 - 1024, index.termCount());
+        assertTrue(index.postingBytes() < bytesBefore);
+
+        Claim later = add("hail again");
+        assertEquals(List.of(later.getId()), index.search("hail", 10));
+    }
+
+    @Test
+    void aDiscardedDeadLetterIsNoLongerSearchable() {
+        ClaimQueueService queue = new ClaimQueueService(null);
+        Claim failed = new Claim("alice", "P-1", "burst pipe", 100);
+        Claim open = new Claim("bob", "P-2", "burst pipe", 200);
+        queue.submitClaim(failed);
+        queue.submitClaim(open);
+        for (Claim c : queue.pollBatch(10)) {
+            if (c == failed) queue.markFailed(c);
+            else queue.requeue(c);
+        }
+        assertEquals(2, queue.searchClaims("pipe", 10).size());
+
+        assertTrue(queue.discardFailed(failed.getId()));
+        assertFalse(queue.discardFailed(failed.getId()));
+        assertEquals(List.of(open), queue.searchClaims("pipe", 10));
+        assertTrue(queue.findById(failed.getId()).isEmpty());
+        assertEquals(0, queue.failedCount());
+    }
+
+    private Claim add(String description) {
+        Claim claim = new Claim("alice", "P-1", description, 100);
+        index.add(claim);
+        added.add(claim);
+        return claim;
+    }
+
+    private Set<Claim> found(String query) {
+        return Set.copyOf(byId(index.search(query, 100)));
+    }
+
+    private List<Claim> byId(List<UUID> ids) {
+        List<Claim> claims = new ArrayList<>();
+        for (UUID id : ids) {
+            for (Claim c : added) {
+                if (c.getId().equals(id)) claims.add(c);
+            }
+        }
+        return claims;
+    }
+}
@@ -0,0 +1,121 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.Claim;
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.repository.InMemoryPolicyRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CSV quoting, JSON escaping, text that straddles the 64 KB buffer, and paged claim exports.
+ */
+class ExportServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final InMemoryPolicyRepository policies = new InMemoryPolicyRepository();
+
+    @Test
+    void quotesCsvFieldsThatNeedIt() throws IOException {
+        policies.save(new Policy("P-1", "plain", InsuranceType.HOME, 100.5,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1)));
+        policies.save(new Policy("P-2", "has,comma \"quoted\"", InsuranceType.HEALTH, 200,
+                LocalDate.of(2025, 1, 1), null));
+        Path target = dir.resolve("policies.csv");
+
+        long rows = service(null).exportPolicies(target, ExportService.Format.CSV);
+
+        List<String> lines = Files.readAllLines(target, StandardCharsets.UTF_8);
+        assertEquals(2, rows);
+        assertEquals("policyNo,customerUsername,type,premium,startDate,endDate,status", lines.get(0));
+        assertTrue(lines.contains("P-1,plain,HOME,100.5,2025-01-01,2026-01-01,ACTIVE"));
+        assertTrue(lines.contains("P-2,\"has,comma \"\"quoted\"\"\",HEALTH,200.0,2025-01-01,,ACTIVE"));
+        assertEquals(3, lines.size());
+    }
+
+    @Test
+    void escapesJsonStringsAndWritesNullsAndNumbersBare() throws IOException {
+        ClaimQueueService claims = new ClaimQueueService(null);
+        claims.submitClaim(new Claim("ayşe", "P-1", "line\nbreak \"quote\" back\\slash\ttab\u0001", 42));
+        Path target = dir.resolve("claims.jsonl");
+
+        long rows = service(claims).exportQueuedClaims(target, ExportService.Format.JSON_LINES);
+
+        List<String> lines = Files.readAllLines(target, StandardCharsets.UTF_8);
+        assertEquals(1, rows);
+        assertEquals(1, lines.size());
+        String line = lines.get(0);
+        assertTrue(line.startsWith("{\"id\":\""), line);
+        assertTrue(line.contains("\"customerUsername\":\"ayşe\""), line);
+        assertTrue(line.contains("\"description\":\"line\\nbreak \\\"quote\\\" back\\\\slash\\ttab\\u0001\""), line);
+        assertTrue(line.contains("\"amount\":42.0,"), line);
+        assertTrue(line.endsWith("\"status\":\"IN_QUEUE\"}"), line);
+    }
+
+    @Test
+    void keepsMultiByteTextIntactAcrossBufferDrains() throws IOException {
+        // Each row is a little over 8 KB of four-byte characters, so surrogate pairs and
+        // multi-byte sequences land on every possible offset of the 64 KB buffer
+        String emoji = "😀";
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 40; i++) {
+            String name = "x".repeat(i) + emoji.repeat(2_048 + i);
+            expected.add(name);
+            policies.save(new Policy("P-" + i, name, InsuranceType.TRAFFIC, 1,
+                    LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1)));
+        }
+        Path target = dir.resolve("policies.csv");
+
+        service(null).exportPolicies(target, ExportService.Format.CSV);
+
+        List<String> lines = Files.readAllLines(target, StandardCharsets.UTF_8);
+        Set<String> names = new HashSet<>();
+        for (String line : lines.subList(1, lines.size())) {
+            names.add(line.split(",")[1]);
+        }
+        assertEquals(expected, names);
+        assertTrue(Files.size(target) > 64 * 1024 * 4);
+    }
+
+    @Test
+    void exportsEveryProcessedClaimAcrossArchivePages() throws IOException {
+        try (ClaimQueueService claims = new ClaimQueueService(null,
+                new ProcessedClaimArchive(dir.resolve("processed.seg"), 500))) {
+            for (int i = 0; i < 2_500; i++) {
+                claims.submitClaim(new Claim("customer" + (i % 50), "P-" + i, "claim " + i, 10 + i));
+            }
+            assertEquals(2_500, claims.processNextBatch(2_500).size());
+            Path target = dir.resolve("processed.csv");
+
+            long rows = service(claims).exportProcessedClaims(target, ExportService.Format.CSV);
+
+            List<String> lines = Files.readAllLines(target, StandardCharsets.UTF_8);
+            assertEquals(2_500, rows);
+            assertEquals(2_501, lines.size());
+            Set<String> ids = new HashSet<>();
+            for (String line : lines.subList(1, lines.size())) {
+                ids.add(line.substring(0, line.indexOf(',')));
+                assertTrue(line.endsWith(",PROCESSED"), line);
+            }
+            assertEquals(2_500, ids.size());
+        }
+    }
+
+    private ExportService service(ClaimQueueService claims) {
+        return new ExportService(policies, claims);
+    }
+}
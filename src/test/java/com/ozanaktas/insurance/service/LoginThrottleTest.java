@@ -0,0 +1,179 @@
+package com.ozanaktas.insurance.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The compare-and-set token bucket, refill, retirement, the per-username failure budget
+ * and the trusted-source bypass.
+ */
+class LoginThrottleTest {
+
+    @Test
+    void bucketRefillsOneTokenPerIntervalAndKeepsPartialProgress() {
+        LoginThrottle.TokenBucket bucket = new LoginThrottle.TokenBucket(3, 100, 0);
+
+        assertTrue(bucket.tryTake(0));
+        assertTrue(bucket.tryTake(0));
+        assertTrue(bucket.tryTake(0));
+        assertFalse(bucket.tryTake(99));
+        assertTrue(bucket.tryTake(150));
+        // Half an interval was already earned at 150, so the next token is due at 200
+        assertFalse(bucket.tryTake(199));
+        assertTrue(bucket.tryTake(200));
+        assertEquals(3, bucket.available(10_000));
+
+        bucket.giveBack(10_000);
+        assertEquals(3, bucket.available(10_000));
+    }
+
+    @Test
+    void concurrentTakersNeverOverdrawTheBucket() throws InterruptedException {
+        LoginThrottle.TokenBucket bucket = new LoginThrottle.TokenBucket(1_000, Long.MAX_VALUE / 4, 0);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                for (int i = 0; i < 500; i++) {
+                    if (bucket.tryTake(0)) granted.incrementAndGet();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(1_000, granted.get());
+        assertEquals(0, bucket.available(0));
+    }
+
+    @Test
+    void aRetiredBucketIsNeverChangedAgain() {
+        LoginThrottle.TokenBucket bucket = new LoginThrottle.TokenBucket(3, 100, 0);
+        bucket.tryTake(0);
+
+        assertFalse(bucket.retireIfIdle(50, 100));
+        assertTrue(bucket.retireIfIdle(500, 100));
+        assertTrue(bucket.isRetired());
+        assertFalse(bucket.tryTake(500));
+        assertFalse(bucket.retireIfIdle(1_000, 100));
+    }
+
+    @Test
+    void rotatingSourcesShareTheUsernamesFailureBudget() {
+        try (LoginThrottle throttle = throttle(3, 1_000)) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(LoginThrottle.Verdict.ALLOWED, throttle.acquire("victim", "10.0.0." + i));
+            }
+            for (int i = 3; i < 20; i++) {
+                assertEquals(LoginThrottle.Verdict.USER_LIMITED, throttle.acquire("victim", "10.0.0." + i));
+            }
+            assertEquals(1, throttle.trackedUsers());
+            assertEquals(0, throttle.trustedPairCount());
+            // Refused attempts hand their global token back
+            assertEquals(1_000 - 3, throttle.globalTokens());
+        }
+    }
+
+    @Test
+    void aTrustedSourceBypassesTheUserAndGlobalBuckets() {
+        try (LoginThrottle throttle = throttle(3, 5)) {
+            LoginThrottle.Verdict first = throttle.acquire("ayse", "home");
+            throttle.onSuccess("ayse", "home", first);
+            assertEquals(1, throttle.trustedPairCount());
+
+            // Guesses from elsewhere drain the username's bucket and then the global one
+            for (int i = 0; i < 3; i++) {
+                throttle.acquire("ayse", "attacker");
+            }
+            assertEquals(LoginThrottle.Verdict.USER_LIMITED, throttle.acquire("ayse", "attacker"));
+            for (int i = 0; i < 10; i++) {
+                throttle.acquire("user" + i, "attacker");
+            }
+            assertEquals(LoginThrottle.Verdict.OVERLOADED, throttle.acquire("someone", "attacker"));
+
+            LoginThrottle.Verdict trusted = throttle.acquire("ayse", "home");
+            assertEquals(LoginThrottle.Verdict.ALLOWED_TRUSTED, trusted);
+            throttle.onSuccess("ayse", "home", trusted);
+
+            // The trusted pair has a budget of its own that wrong passwords still drain
+            for (int i = 0; i < 3; i++) {
+                assertEquals(LoginThrottle.Verdict.ALLOWED_TRUSTED, throttle.acquire("ayse", "home"));
+            }
+            assertEquals(LoginThrottle.Verdict.USER_LIMITED, throttle.acquire("ayse", "home"));
+        }
+    }
+
+    @Test
+    void idleBucketsAreRetiredAndReplaced() throws InterruptedException {
+        try (LoginThrottle throttle = new LoginThrottle(2, Duration.ofMinutes(1), 1_000, Duration.ofMillis(5),
+                Duration.ofMillis(1))) {
+            LoginThrottle.Verdict ok = throttle.acquire("ayse", "home");
+            throttle.onSuccess("ayse", "home", ok);
+            throttle.acquire("ayse", "other");
+            throttle.acquire("ayse", "other");
+            assertEquals(LoginThrottle.Verdict.USER_LIMITED, throttle.acquire("ayse", "other"));
+
+            Thread.sleep(20);
+            throttle.evictIdle();
+
+            assertEquals(0, throttle.trackedUsers());
+            assertEquals(0, throttle.trustedPairCount());
+            // Trust lapsed with the pair's bucket; the username starts over with a full bucket
+            assertEquals(LoginThrottle.Verdict.ALLOWED, throttle.acquire("ayse", "home"));
+            assertEquals(LoginThrottle.Verdict.ALLOWED, throttle.acquire("ayse", "other"));
+            assertEquals(LoginThrottle.Verdict.USER_LIMITED, throttle.acquire("ayse", "other"));
+        }
+    }
+
+    @Test
+    void attemptsRacingTheSweeperDoNotGetAFreshBucket() throws InterruptedException {
+        try (LoginThrottle throttle = new LoginThrottle(5, Duration.ofMinutes(1), 1_000, Duration.ofMillis(1),
+                Duration.ofMinutes(10))) {
+            AtomicInteger allowed = new AtomicInteger();
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        if (throttle.acquire("victim", "s" + i).allowed()) allowed.incrementAndGet();
+                    }
+                }));
+            }
+            // Nothing is idle for ten minutes, so the sweeper must not retire the live bucket
+            Thread sweeper = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    throttle.evictIdle();
+                }
+            });
+            threads.add(sweeper);
+            threads.forEach(Thread::start);
+            for (Thread t : threads) {
+                t.join();
+            }
+
+            assertEquals(5, allowed.get());
+        }
+    }
+
+    private static LoginThrottle throttle(int userBurst, int globalBurst) {
+        return new LoginThrottle(userBurst, Duration.ofMinutes(1), globalBurst, Duration.ofMinutes(1),
+                Duration.ofMinutes(15));
+    }
+}
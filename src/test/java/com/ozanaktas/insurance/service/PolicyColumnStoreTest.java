@@ -0,0 +1,98 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.model.PolicyStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Column scans agree with a plain loop over the same policies, through upserts,
+ * status changes and swap-removes, on both the sequential and the fork/join path.
+ */
+class PolicyColumnStoreTest {
+
+    private static final LocalDate BASE = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void summariesFollowUpsertStatusChangeAndRemove() {
+        PolicyColumnStore store = new PolicyColumnStore();
+        store.upsert(policy("POL-1", InsuranceType.HOME, 100, 0, 365));
+        store.upsert(policy("POL-2", InsuranceType.HEALTH, 200, 0, 365));
+        store.upsert(policy("POL-3", InsuranceType.HOME, 300, 0, 365));
+
+        store.upsert(policy("POL-1", InsuranceType.TRAFFIC, 150, 0, 365));
+        store.updateStatus("POL-2", PolicyStatus.CANCELLED);
+        store.remove("POL-3");
+        store.remove("POL-3");
+
+        PolicyColumnStore.Summary s = store.summarize();
+        assertEquals(2, store.size());
+        assertEquals(2, s.count());
+        assertEquals(350.0, s.premiumSum(), 1e-9);
+        assertEquals(0, s.count(InsuranceType.HOME));
+        assertEquals(1, s.count(InsuranceType.TRAFFIC));
+        assertEquals(1, s.count(PolicyStatus.CANCELLED));
+        assertEquals(200.0, s.premiumSum(PolicyStatus.CANCELLED), 1e-9);
+    }
+
+    @Test
+    void activeOnCountsOpenEndedTermsAndInclusiveBounds() {
+        PolicyColumnStore store = new PolicyColumnStore();
+        store.upsert(policy("POL-1", InsuranceType.HOME, 100, 10, 20));
+        store.upsert(new Policy("POL-2", "customer", InsuranceType.HOME, 100, BASE.plusDays(15), null));
+        store.upsert(new Policy("POL-3", "customer", InsuranceType.HOME, 100, null, BASE.plusDays(12)));
+
+        assertEquals(2, store.summarizeActiveOn(BASE.plusDays(10)).count());
+        assertEquals(2, store.summarizeActiveOn(BASE.plusDays(12)).count());
+        assertEquals(2, store.summarizeActiveOn(BASE.plusDays(20)).count());
+        assertEquals(1, store.summarizeActiveOn(BASE.plusDays(5_000)).count());
+        assertEquals(1, store.summarizeActiveOn(BASE.minusDays(5_000)).count());
+    }
+
+    @Test
+    void largeScansMatchABruteForceCount() {
+        PolicyColumnStore store = new PolicyColumnStore();
+        List<Policy> book = new ArrayList<>();
+        Random random = new Random(42);
+        InsuranceType[] types = InsuranceType.values();
+        for (int i = 0; i < 150_000; i++) {
+            int start = random.nextInt(1_000);
+            Policy p = policy("POL-" + i, types[i % types.length], random.nextInt(5_000), start,
+                    start + random.nextInt(400));
+            if (i % 9 == 0) p.setStatus(PolicyStatus.CANCELLED);
+            store.upsert(p);
+            book.add(p);
+        }
+        for (int i = 0; i < 150_000; i += 7) {
+            store.remove("POL-" + i);
+            book.set(i, null);
+        }
+
+        for (int day : new int[]{0, 250, 600, 1_200}) {
+            LocalDate date = BASE.plusDays(day);
+            long count = 0, homes = 0;
+            double premium = 0;
+            for (Policy p : book) {
+                if (p == null || p.getStartDate().isAfter(date) || p.getEndDate().isBefore(date)) continue;
+                count++;
+                premium += p.getPremium();
+                if (p.getType() == InsuranceType.HOME) homes++;
+            }
+            PolicyColumnStore.Summary s = store.summarizeActiveOn(date);
+            assertEquals(count, s.count(), "count on day " + day);
+            assertEquals(homes, s.count(InsuranceType.HOME), "homes on day " + day);
+            assertEquals(premium, s.premiumSum(), 1e-3, "premium on day " + day);
+        }
+    }
+
+    private static Policy policy(String policyNo, InsuranceType type, double premium, int startDay, int endDay) {
+        return new Policy(policyNo, "customer", type, premium, BASE.plusDays(startDay), BASE.plusDays(endDay));
+    }
+}
@@ -0,0 +1,146 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.model.PolicyStatus;
+import com.ozanaktas.insurance.repository.ConcurrentPolicyRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Header detection, rejected-row output and the row totals of a chunked, parallel import.
+ */
+class PolicyImportServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final ConcurrentPolicyRepository repository = new ConcurrentPolicyRepository();
+    private final PolicyService policyService = new PolicyService(repository);
+    private final PolicyImportService importer = new PolicyImportService(policyService, 3, 4);
+
+    @Test
+    void skipsAHeaderWithByteOrderMarkAndReportsRejectedRows() throws IOException {
+        Path source = write(
+                "﻿customerUsername,type,premium,startDate,endDate,status",
+                "alice,home,1200,2025-01-01,2026-01-01",
+                "bob,TRAFFIC,800.5,2025-02-01,2026-02-01,cancelled",
+                "",
+                "carol,boat,100,2025-01-01,2026-01-01",
+                "dave,health,-5,2025-01-01,2026-01-01",
+                "erin,health,300,2025-01-01",
+                "   ",
+                "frank,health,300,2025-05-01,2025-04-01",
+                "gina,health,300,2025-01-01,2026-01-01,lapsed",
+                "hank,health,450,2025-01-01,2026-01-01,active");
+        Path errors = dir.resolve("errors.tsv");
+
+        PolicyImportService.ImportResult result = importer.importCsv(source, errors, null);
+
+        assertEquals(8, result.rowsRead());
+        assertEquals(3, result.imported());
+        assertEquals(5, result.rejected());
+        assertEquals(result.rowsRead(), result.imported() + result.rejected());
+        assertEquals(3, repository.findAll().size());
+        assertEquals(3, policyService.getStatistics().totalCount());
+        assertEquals(PolicyStatus.CANCELLED, repository.findByCustomerUsername("bob").get(0).getStatus());
+
+        List<String> rejected = sorted(Files.readAllLines(errors, StandardCharsets.UTF_8));
+        assertEquals(5, rejected.size());
+        assertEquals("5\tUnknown insurance type: boat\tcarol,boat,100,2025-01-01,2026-01-01", rejected.get(0));
+        assertTrue(rejected.get(1).startsWith("6\tPremium must be > 0."));
+        assertTrue(rejected.get(2).startsWith("7\tExpected at least 5 columns"));
+        assertTrue(rejected.get(3).startsWith("9\tEnd date must be after start date."));
+        assertTrue(rejected.get(4).startsWith("10\tUnknown policy status: lapsed"));
+    }
+
+    @Test
+    void treatsAFirstLineThatIsNotExactlyTheHeaderAsData() throws IOException {
+        Path source = write(
+                "customerUsername,type,premium,startDate,endDate,notes",
+                "alice,home,1200,2025-01-01,2026-01-01");
+
+        PolicyImportService.ImportResult result = importer.importCsv(source, dir.resolve("errors.tsv"), null);
+
+        assertEquals(2, result.rowsRead());
+        assertEquals(1, result.imported());
+        assertEquals(1, result.rejected());
+    }
+
+    @Test
+    void totalsStayConsistentAcrossManyChunks() throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("customerUsername,type,premium,startDate,endDate");
+        int bad = 0;
+        for (int i = 0; i < 1_000; i++) {
+            if (i % 13 == 0) {
+                lines.add("customer" + i + ",home,oops,2025-01-01,2026-01-01");
+                bad++;
+            } else {
+                lines.add("customer" + i + ",health," + (100 + i) + ",2025-01-01,2026-01-01");
+            }
+        }
+        List<PolicyImportService.ImportProgress> progress = new ArrayList<>();
+
+        PolicyImportService.ImportResult result = new PolicyImportService(policyService, 37, 4)
+                .importCsv(write(lines.toArray(String[]::new)), dir.resolve("errors.tsv"),
+                        p -> {
+                            synchronized (progress) {
+                                progress.add(p);
+                            }
+                        });
+
+        assertEquals(1_000, result.rowsRead());
+        assertEquals(1_000 - bad, result.imported());
+        assertEquals(bad, result.rejected());
+        assertEquals(1_000 - bad, repository.findAll().size());
+        assertEquals(1_000 - bad, repository.findAll().stream().map(Policy::getPolicyNo).distinct().count());
+        assertEquals(28, progress.size());
+    }
+
+    @Test
+    void parsesNamesTheSameUnderATurkishDefaultLocale() throws IOException {
+        Locale saved = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            Path source = write("alice,traffic,900,2025-01-01,2026-01-01,active");
+
+            PolicyImportService.ImportResult result = importer.importCsv(source, dir.resolve("errors.tsv"), null);
+
+            assertEquals(1, result.imported());
+            Policy p = repository.findByCustomerUsername("alice").get(0);
+            assertEquals(InsuranceType.TRAFFIC, p.getType());
+            assertEquals(PolicyStatus.ACTIVE, p.getStatus());
+        } finally {
+            Locale.setDefault(saved);
+        }
+    }
+
+    private Path write(String... lines) throws IOException {
+        Path file = dir.resolve("policies.csv");
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    // Chunks finish in any order; sort rejected rows by line number
+    private static List<String> sorted(List<String> rejected) {
+        List<String> copy = new ArrayList<>(rejected);
+        copy.sort((a, b) -> Long.compare(lineNo(a), lineNo(b)));
+        return copy;
+    }
+
+    private static long lineNo(String rejected) {
+        return Long.parseLong(rejected.substring(0, rejected.indexOf('\t')));
+    }
+}
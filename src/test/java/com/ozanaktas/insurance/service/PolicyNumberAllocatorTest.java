@@ -0,0 +1,78 @@
+package com.ozanaktas.insurance.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Uniqueness and density of leased policy numbers, with and without outside numbers.
+ */
+class PolicyNumberAllocatorTest {
+
+    @Test
+    void concurrentCallersGetDistinctNumbersWithoutBurningBlocks() throws InterruptedException {
+        PolicyNumberAllocator allocator = new PolicyNumberAllocator(null, 100);
+        int threads = 8, perThread = 5_000;
+        Set<String> issued = ConcurrentHashMap.newKeySet();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    assertTrue(issued.add(allocator.next()));
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(threads * perThread, issued.size());
+        // Only the last, partly used block is left over
+        assertTrue(allocator.highWaterMark() <= threads * perThread + 100);
+    }
+
+    @Test
+    void skipsANumberObservedInsideTheCurrentLease() {
+        PolicyNumberAllocator allocator = new PolicyNumberAllocator(null, 10);
+        assertEquals("POL-1", allocator.next());
+
+        allocator.observe("POL-5");
+        for (int i = 0; i < 20; i++) {
+            String n = allocator.next();
+            assertFalse(n.equals("POL-5"));
+            assertTrue(PolicyNumberAllocator.parse(n) > 1);
+        }
+    }
+
+    @Test
+    void leasesAboveObservedAndBlockReservedNumbers() {
+        PolicyNumberAllocator allocator = new PolicyNumberAllocator(null, 10);
+        allocator.observe("POL-3000");
+
+        List<String> block = allocator.nextBlock(3);
+        assertEquals(List.of("POL-3001", "POL-3002", "POL-3003"), block);
+        assertEquals("POL-3004", allocator.next());
+
+        // Non-allocator formats are ignored
+        allocator.observe("CUSTOM-9999");
+        allocator.observe(null);
+        assertEquals("POL-3005", allocator.next());
+    }
+}
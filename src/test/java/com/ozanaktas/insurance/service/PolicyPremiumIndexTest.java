@@ -0,0 +1,98 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * One entry per policy number, and ranges, top-N and percentiles checked against a sort.
+ */
+class PolicyPremiumIndexTest {
+
+    @Test
+    void addingAPolicyAgainReplacesItsEntry() {
+        PolicyPremiumIndex index = new PolicyPremiumIndex();
+        index.add(policy("P-1", InsuranceType.HOME, 100));
+        index.add(policy("P-1", InsuranceType.HOME, 100));
+        index.add(policy("P-1", InsuranceType.HEALTH, 900));
+
+        assertEquals(1, index.size());
+        assertEquals(0, index.countByPremiumBetween(0, 500));
+        assertEquals(900, index.percentile(InsuranceType.HEALTH, 1.0).orElseThrow());
+        assertTrue(index.percentile(InsuranceType.HOME, 1.0).isEmpty());
+
+        // A stale copy still removes the entry indexed under its number
+        index.remove(policy("P-1", InsuranceType.HOME, 100));
+        assertEquals(0, index.size());
+        assertTrue(index.percentile(InsuranceType.HEALTH, 1.0).isEmpty());
+    }
+
+    @Test
+    void aBatchWithRepeatedNumbersKeepsTheLastEntry() {
+        PolicyPremiumIndex index = new PolicyPremiumIndex();
+        index.addAll(List.of(policy("P-1", InsuranceType.HOME, 100), policy("P-2", InsuranceType.HOME, 200),
+                policy("P-1", InsuranceType.HOME, 300)));
+
+        assertEquals(2, index.size());
+        assertEquals(List.of("P-1", "P-2"), numbers(index.top(5)));
+        assertEquals(300, index.top(1).get(0).getPremium());
+    }
+
+    @Test
+    void matchesASortedBookThroughRandomChanges() {
+        Random random = new Random(21);
+        PolicyPremiumIndex index = new PolicyPremiumIndex();
+        Map<String, Policy> book = new HashMap<>();
+        InsuranceType[] types = InsuranceType.values();
+
+        for (int step = 0; step < 20_000; step++) {
+            String no = "P-" + random.nextInt(1_000);
+            if (random.nextInt(5) == 0) {
+                Policy removed = book.remove(no);
+                index.remove(removed != null ? removed : policy(no, InsuranceType.HOME, 1));
+            } else {
+                Policy p = policy(no, types[random.nextInt(types.length)], 1 + random.nextInt(10_000));
+                index.add(p);
+                book.put(no, p);
+            }
+        }
+
+        List<Policy> sorted = new ArrayList<>(book.values());
+        sorted.sort(Comparator.comparingDouble(Policy::getPremium).thenComparing(Policy::getPolicyNo));
+        assertEquals(sorted.size(), index.size());
+        assertEquals(sorted.subList(0, 10), index.bottom(10));
+        assertEquals(sorted.get(sorted.size() - 1), index.top(1).get(0));
+        long inRange = sorted.stream().filter(p -> p.getPremium() >= 2_500 && p.getPremium() <= 7_500).count();
+        assertEquals(inRange, index.countByPremiumBetween(2_500, 7_500));
+        assertEquals(inRange, index.findByPremiumBetween(2_500, 7_500).size());
+        for (double q : new double[]{0.1, 0.5, 0.9, 1.0}) {
+            double exact = sorted.get((int) Math.ceil(q * sorted.size()) - 1).getPremium();
+            assertEquals(exact, index.percentile(q).orElseThrow());
+        }
+        for (InsuranceType type : types) {
+            List<Policy> ofType = sorted.stream().filter(p -> p.getType() == type).toList();
+            assertEquals(ofType.get(ofType.size() - 1).getPremium(), index.percentile(type, 1.0).orElseThrow());
+        }
+    }
+
+    private static List<String> numbers(List<Policy> policies) {
+        List<String> out = new ArrayList<>();
+        policies.forEach(p -> out.add(p.getPolicyNo()));
+        return out;
+    }
+
+    private static Policy policy(String policyNo, InsuranceType type, double premium) {
+        return new Policy(policyNo, "customer", type, premium, LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1));
+    }
+}
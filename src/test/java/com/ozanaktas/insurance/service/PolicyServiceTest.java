@@ -0,0 +1,115 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.InsuranceType;
+import com.ozanaktas.insurance.model.Policy;
+import com.ozanaktas.insurance.repository.ConcurrentPolicyRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Statistics, column store and premium index stay in step with the repository when the
+ * same policy numbers are written concurrently or repeated within one batch.
+ */
+class PolicyServiceTest {
+
+    private final ConcurrentPolicyRepository repository = new ConcurrentPolicyRepository();
+    private final PolicyService service = new PolicyService(repository);
+
+    @Test
+    void concurrentAddsOfTheSamePolicyCountItOnce() throws InterruptedException {
+        int threads = 2, policies = 50, rounds = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int r = 0; r < rounds; r++) {
+                    for (int i = 0; i < policies; i++) {
+                        service.addPolicy(policy("POL-" + i, 100 * (thread + 1) + r));
+                    }
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertConsistent(policies);
+    }
+
+    @Test
+    void aPolicyRepeatedInOneBatchIsCountedOnce() {
+        service.addPolicy(policy("POL-1", 100));
+        service.addPolicies(List.of(policy("POL-1", 200), policy("POL-2", 300), policy("POL-1", 400)));
+
+        assertConsistent(2);
+        assertEquals(400.0, service.getPremiumIndex().percentile(1.0).orElseThrow());
+        assertEquals(300.0, service.getPremiumIndex().percentile(0.5).orElseThrow());
+    }
+
+    @Test
+    void concurrentBatchesOverlappingOnPolicyNumbers() throws InterruptedException {
+        int threads = 4, policies = 100;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int r = 0; r < 50; r++) {
+                    List<Policy> batch = new ArrayList<>();
+                    for (int i = 0; i < policies; i += 1 + thread) {
+                        batch.add(policy("POL-" + i, 10 + thread + r));
+                    }
+                    service.addPolicies(batch);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertConsistent(policies);
+    }
+
+    private void assertConsistent(int expected) {
+        List<Policy> book = repository.findAll();
+        assertEquals(expected, book.size());
+        assertEquals(expected, service.getStatistics().totalCount());
+        assertEquals(expected, service.getPremiumIndex().size());
+        assertEquals(expected, service.getColumnStore().size());
+
+        double sum = 0, max = 0;
+        for (Policy p : book) {
+            sum += p.getPremium();
+            max = Math.max(max, p.getPremium());
+        }
+        assertEquals(sum, service.getStatistics().premiumSum(), 1e-6);
+        assertEquals(max, service.getPremiumIndex().percentile(1.0).orElseThrow());
+        assertEquals(book.size(), service.getPremiumIndex().countByPremiumBetween(0, Double.MAX_VALUE));
+    }
+
+    private static Policy policy(String policyNo, double premium) {
+        return new Policy(policyNo, "customer", InsuranceType.HOME, premium,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1));
+    }
+}
@@ -0,0 +1,158 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.Claim;
+import com.ozanaktas.insurance.model.ClaimStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lookups, removals and paging across the hot and cold tiers, checked against a plain list.
+ */
+class ProcessedClaimArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsAndPagesClaimsInBothTiers() {
+        try (ProcessedClaimArchive archive = new ProcessedClaimArchive(dir.resolve("claims.seg"), 100)) {
+            List<Claim> expected = new ArrayList<>();
+            for (int i = 0; i < 5_000; i++) {
+                Claim c = claim(i);
+                archive.add(c);
+                expected.add(c);
+            }
+
+            assertTrue(archive.hotSize() < 5_000);
+            assertEquals(5_000, archive.longSize());
+            for (Claim c : expected) {
+                assertTrue(archive.contains(c.getId()));
+                assertEquals(c.getDescription(), archive.find(c.getId()).orElseThrow().getDescription());
+            }
+            assertFalse(archive.contains(UUID.randomUUID()));
+            assertPagesMatch(archive, expected);
+        }
+    }
+
+    @Test
+    void removedClaimsDisappearFromLookupsAndPages() {
+        try (ProcessedClaimArchive archive = new ProcessedClaimArchive(dir.resolve("claims.seg"), 100)) {
+            List<Claim> expected = new ArrayList<>();
+            for (int i = 0; i < 3_000; i++) {
+                Claim c = claim(i);
+                archive.add(c);
+                expected.add(c);
+            }
+
+            Random random = new Random(7);
+            for (int n = 0; n < 400; n++) {
+                Claim victim = expected.remove(random.nextInt(expected.size()));
+                assertEquals(victim.getId(), archive.remove(victim.getId()).orElseThrow().getId());
+                assertFalse(archive.contains(victim.getId()));
+                assertTrue(archive.remove(victim.getId()).isEmpty());
+            }
+
+            assertEquals(expected.size(), archive.size());
+            assertPagesMatch(archive, expected);
+        }
+    }
+
+    @Test
+    void compactsOnceMostColdRecordsAreRemoved() {
+        try (ProcessedClaimArchive archive = new ProcessedClaimArchive(dir.resolve("claims.seg"), 100)) {
+            List<Claim> expected = new ArrayList<>();
+            for (int i = 0; i < 6_000; i++) {
+                Claim c = claim(i);
+                archive.add(c);
+                expected.add(c);
+            }
+            long written = archive.segmentRecords();
+
+            // Remove every cold claim but each fifth one
+            List<Claim> kept = new ArrayList<>();
+            for (int i = 0; i < expected.size(); i++) {
+                Claim c = expected.get(i);
+                if (i % 5 == 0 || i >= written) {
+                    kept.add(c);
+                } else {
+                    assertTrue(archive.remove(c.getId()).isPresent());
+                }
+            }
+
+            assertTrue(archive.segmentRecords() < written);
+            assertEquals(kept.size(), archive.size());
+            for (Claim c : kept) {
+                assertTrue(archive.contains(c.getId()));
+            }
+            assertPagesMatch(archive, kept);
+
+            // The compacted archive keeps spilling and indexing new claims
+            for (int i = 6_000; i < 8_000; i++) {
+                Claim c = claim(i);
+                archive.add(c);
+                kept.add(c);
+            }
+            assertPagesMatch(archive, kept);
+            assertTrue(archive.find(kept.get(kept.size() - 1500).getId()).isPresent());
+        }
+    }
+
+    @Test
+    void aClaimProcessedAgainAfterUndoIsKeptOnce() {
+        try (ProcessedClaimArchive archive = new ProcessedClaimArchive(dir.resolve("claims.seg"), 10)) {
+            Claim first = claim(0);
+            archive.add(first);
+            for (int i = 1; i < 3_000; i++) archive.add(claim(i));
+
+            Claim undone = archive.remove(first.getId()).orElseThrow();
+            archive.add(undone);
+            for (int i = 3_000; i < 6_000; i++) archive.add(claim(i));
+
+            assertEquals(6_000, archive.size());
+            assertTrue(archive.contains(first.getId()));
+        }
+    }
+
+    @Test
+    void storesClaimsWithoutTimestampOrStatus() {
+        try (ProcessedClaimArchive archive = new ProcessedClaimArchive(dir.resolve("claims.seg"), 1)) {
+            Claim bare = new Claim(UUID.randomUUID(), null, null, null, 10.0, null, null);
+            archive.add(bare);
+            for (int i = 0; i < 2_000; i++) archive.add(claim(i));
+
+            Claim read = archive.find(bare.getId()).orElseThrow();
+            assertNull(read.getCreatedAt());
+            assertNull(read.getStatus());
+            assertEquals(10.0, read.getAmount());
+        }
+    }
+
+    private static void assertPagesMatch(ProcessedClaimArchive archive, List<Claim> expected) {
+        for (int offset = 0; offset < expected.size(); offset += 97) {
+            List<Claim> page = archive.page(offset, 300);
+            int end = Math.min(expected.size(), offset + 300);
+            assertEquals(end - offset, page.size(), "page at " + offset);
+            for (int i = 0; i < page.size(); i++) {
+                assertEquals(expected.get(offset + i).getId(), page.get(i).getId(), "claim at " + (offset + i));
+            }
+        }
+        assertTrue(archive.page(expected.size(), 10).isEmpty());
+    }
+
+    private static Claim claim(int i) {
+        Claim c = new Claim("customer" + (i % 50), "POL-" + i, "claim " + i, 100 + i);
+        c.setStatus(ClaimStatus.PROCESSED);
+        return c;
+    }
+}
@@ -0,0 +1,98 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.Agent;
+import com.ozanaktas.insurance.model.Customer;
+import com.ozanaktas.insurance.model.Role;
+import com.ozanaktas.insurance.model.User;
+import com.ozanaktas.insurance.repository.ConcurrentUserRepository;
+import com.ozanaktas.insurance.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sessions resolve their user on every validation: updates are visible at once, deleted
+ * users lose their tokens, and expiry and the size cap still apply.
+ */
+class SessionManagerTest {
+
+    private final UserRepository users = new ConcurrentUserRepository();
+
+    @Test
+    void validationSeesTheUserAsItIsNow() {
+        users.save(new Customer("ayse", "pw", "Ayse Yilmaz"));
+        AuthService auth = new AuthService(users);
+        String token = auth.startSession("ayse", "pw").token();
+
+        users.save(new Agent("ayse", "pw", "Ayse Demir"));
+
+        User current = auth.authenticate(token).orElseThrow();
+        assertEquals(Role.AGENT, current.getRole());
+        assertEquals("Ayse Demir", current.getFullName());
+    }
+
+    @Test
+    void aDeletedUsersTokensStopWorkingAndNoNewOnesAreIssued() {
+        users.save(new Customer("ayse", "pw", "Ayse Yilmaz"));
+        SessionManager sessions = new SessionManager();
+        AuthService auth = new AuthService(users, sessions, new LoginThrottle());
+        String first = auth.startSession("ayse", "pw").token();
+        String second = auth.startSession("ayse", "pw").token();
+
+        users.deleteByUsername("ayse");
+
+        assertTrue(auth.authenticate(first).isEmpty());
+        assertTrue(auth.authenticate(second).isEmpty());
+        assertEquals(0, sessions.size());
+        assertTrue(sessions.issue(new Customer("ayse", "pw", "Ayse Yilmaz")).isEmpty());
+    }
+
+    @Test
+    void aUserMissingOnlyFromTheResolverIsSignedOut() {
+        List<User> known = new ArrayList<>(List.of(new Customer("ayse", "pw", "Ayse Yilmaz")));
+        SessionManager sessions = new SessionManager();
+        sessions.setUserResolver(name -> known.stream().filter(u -> u.getUsername().equals(name)).findFirst());
+        String token = sessions.issue(known.get(0)).orElseThrow();
+
+        known.clear();
+
+        assertEquals(Optional.empty(), sessions.validate(token));
+        assertEquals(0, sessions.size());
+    }
+
+    @Test
+    void withoutAResolverNoSessionIsIssued() {
+        assertTrue(new SessionManager().issue(new Customer("ayse", "pw", "Ayse Yilmaz")).isEmpty());
+    }
+
+    @Test
+    void expiredAndEvictedTokensDoNotValidate() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            users.save(new Customer("user" + i, "pw", "User " + i));
+        }
+        SessionManager sessions = new SessionManager(Duration.ofMillis(200), 3);
+        sessions.setUserResolver(users::findByUsername);
+
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tokens.add(sessions.issue(users.findByUsername("user" + i).orElseThrow()).orElseThrow());
+        }
+
+        assertEquals(3, sessions.size());
+        assertTrue(sessions.validate(tokens.get(0)).isEmpty());
+        assertEquals("user3", sessions.validate(tokens.get(3)).orElseThrow().getUsername());
+        assertTrue(sessions.invalidate(tokens.get(3)));
+        assertFalse(sessions.invalidate(tokens.get(3)));
+
+        Thread.sleep(250);
+        assertTrue(sessions.validate(tokens.get(1)).isEmpty());
+        assertTrue(sessions.validate(tokens.get(2)).isEmpty());
+    }
+}
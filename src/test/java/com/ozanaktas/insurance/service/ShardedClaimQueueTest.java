@@ -0,0 +1,169 @@
+package com.ozanaktas.insurance.service;
+
+import com.ozanaktas.insurance.model.Claim;
+import com.ozanaktas.insurance.model.InsuranceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Priority within a shard, its starvation bound, per-policy order, head re-insertion and
+ * snapshots that match the order claims are polled in.
+ */
+class ShardedClaimQueueTest {
+
+    private final ShardedClaimQueue queue = new ShardedClaimQueue(c -> InsuranceType.HOME);
+
+    @Test
+    void servesLargerClaimsOfABandFirst() {
+        Claim small = claim("P-1", 1_500);
+        Claim large = claim("P-2", 9_000);
+        Claim middle = claim("P-3", 5_000);
+        queue.addLast(small);
+        queue.addLast(large);
+        queue.addLast(middle);
+
+        assertSame(large, queue.poll());
+        assertSame(middle, queue.poll());
+        assertSame(small, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void aSmallClaimIsOvertakenByAtMostTheWindow() {
+        Claim small = claim("P-small", 1_000);
+        queue.addLast(small);
+        for (int i = 0; i < 500; i++) {
+            queue.addLast(claim("P-" + i, 9_999));
+        }
+
+        int position = 0;
+        while (queue.poll() != small) {
+            position++;
+        }
+
+        assertTrue(position > 0);
+        assertTrue(position <= ShardedClaimQueue.PRIORITY_WINDOW, "served after " + position);
+    }
+
+    @Test
+    void keepsAPolicysClaimsInSubmissionOrderWhateverTheirAmount() {
+        Claim first = claim("P-A", 1_500);
+        Claim other = claim("P-B", 5_000);
+        Claim second = claim("P-A", 9_500);
+        queue.addLast(first);
+        queue.addLast(other);
+        queue.addLast(second);
+
+        assertSame(other, queue.poll());
+        assertSame(first, queue.poll());
+        assertSame(second, queue.poll());
+    }
+
+    @Test
+    void aClaimPutBackIsServedNext() {
+        for (int i = 0; i < 10; i++) {
+            queue.addLast(claim("P-" + i, 1_000 + i * 800));
+        }
+        Claim taken = queue.poll();
+        Claim after = queue.poll();
+
+        queue.addFirst(after);
+        queue.addFirst(taken);
+
+        assertSame(taken, queue.poll());
+        assertSame(after, queue.poll());
+        assertEquals(8, queue.size());
+    }
+
+    @Test
+    void snapshotListsClaimsInTheOrderTheyArePolled() {
+        Random random = new Random(15);
+        InsuranceType[] types = InsuranceType.values();
+        ShardedClaimQueue mixed = new ShardedClaimQueue(
+                c -> c.getPolicyNo().endsWith("7") ? null : types[Math.floorMod(c.getPolicyNo().hashCode(), types.length)]);
+        for (int i = 0; i < 2_000; i++) {
+            mixed.addLast(claim("P-" + random.nextInt(300), Math.exp(random.nextDouble() * 13)));
+            if (i % 50 == 0) mixed.poll();
+        }
+
+        List<Claim> snapshot = mixed.snapshot();
+        List<Claim> polled = new ArrayList<>();
+        for (Claim c = mixed.poll(); c != null; c = mixed.poll()) {
+            polled.add(c);
+        }
+
+        assertEquals(polled.size(), snapshot.size());
+        for (int i = 0; i < polled.size(); i++) {
+            assertSame(polled.get(i), snapshot.get(i), "position " + i);
+        }
+    }
+
+    @Test
+    void concurrentProducersAndConsumersSeeEveryClaimOnce() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 5_000;
+        Set<UUID> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        CountDownLatch produced = new CountDownLatch(producers);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int id = p;
+            threads.add(new Thread(() -> {
+                Random random = new Random(id);
+                for (int i = 0; i < perProducer; i++) {
+                    queue.addLast(claim("P-" + random.nextInt(500), random.nextInt(200_000)));
+                }
+                produced.countDown();
+            }));
+        }
+        for (int c = 0; c < 4; c++) {
+            threads.add(new Thread(() -> {
+                while (produced.getCount() > 0 || queue.size() > 0) {
+                    Claim claim = queue.poll();
+                    if (claim != null && !seen.add(claim.getId())) duplicates.incrementAndGet();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(0, duplicates.get());
+        assertEquals(producers * perProducer, seen.size());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void boostGrowsAcrossEachBand() {
+        assertEquals(0, ShardedClaimQueue.boost(0));
+        assertEquals(0, ShardedClaimQueue.boost(1_000));
+        assertEquals(ShardedClaimQueue.PRIORITY_WINDOW / 2, ShardedClaimQueue.boost(5_500));
+        assertEquals(ShardedClaimQueue.PRIORITY_WINDOW, ShardedClaimQueue.boost(5_000_000));
+        assertEquals(0, ShardedClaimQueue.boost(-10));
+        Set<Long> boosts = new HashSet<>();
+        for (int amount = 10_000; amount < 100_000; amount += 1_000) {
+            boosts.add(ShardedClaimQueue.boost(amount));
+        }
+        assertTrue(boosts.size() > ShardedClaimQueue.PRIORITY_WINDOW / 2);
+    }
+
+    private static Claim claim(String policyNo, double amount) {
+        return new Claim("customer", policyNo, "claim", amount);
+    }
+}
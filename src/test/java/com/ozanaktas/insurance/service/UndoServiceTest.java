@@ -0,0 +1,105 @@
+package com.ozanaktas.insurance.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Depth and byte budgets, failed undos, and undos that run without holding the stack's lock.
+ */
+class UndoServiceTest {
+
+    @Test
+    void dropsTheOldestActionsPastEitherBudget() {
+        UndoService undo = new UndoService(3, 250);
+        for (int i = 0; i < 5; i++) {
+            undo.push(action("a" + i, 50, () -> { }));
+        }
+        assertEquals(3, undo.size());
+        assertEquals(150, undo.retainedBytes());
+        assertEquals(2, undo.evictedCount());
+
+        undo.push(action("big", 200, () -> { }));
+        assertEquals(2, undo.size());
+        assertEquals(250, undo.retainedBytes());
+        assertEquals(Optional.of("big"), undo.undoLast());
+        assertEquals(Optional.of("a4"), undo.undoLast());
+        assertEquals(Optional.empty(), undo.undoLast());
+        assertEquals(0, undo.retainedBytes());
+    }
+
+    @Test
+    void aFailedUndoGoesBackOnTheStack() {
+        UndoService undo = new UndoService();
+        undo.push(action("fails", 50, () -> {
+            throw new IllegalStateException("nope");
+        }));
+
+        assertEquals(Optional.of("Undo failed: IllegalStateException"), undo.undoLast());
+        assertEquals(1, undo.size());
+        assertEquals(50, undo.retainedBytes());
+        assertEquals(Optional.of("fails"), undo.peekNextDescription());
+    }
+
+    @Test
+    void otherCallersAreNotBlockedWhileAnUndoRuns() throws Exception {
+        UndoService undo = new UndoService();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        undo.push(action("first", 50, () -> { }));
+        undo.push(action("slow", 50, () -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        CompletableFuture<Optional<String>> slow = CompletableFuture.supplyAsync(undo::undoLast);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        // All of these would wait for the slow undo if it ran under the monitor
+        CompletableFuture<Optional<String>> other = CompletableFuture.supplyAsync(() -> {
+            undo.push(action("pushed", 50, () -> { }));
+            return undo.undoLast();
+        });
+        assertEquals(Optional.of("pushed"), other.get(5, TimeUnit.SECONDS));
+        assertEquals(Optional.of("first"), undo.peekNextDescription());
+
+        release.countDown();
+        assertEquals(Optional.of("slow"), slow.get(5, TimeUnit.SECONDS));
+        assertEquals(1, undo.size());
+    }
+
+    @Test
+    void stringEstimateGrowsWithLength() {
+        assertEquals(0, UndoService.stringBytes(null));
+        assertEquals(UndoService.STRING_OVERHEAD_BYTES + 8, UndoService.stringBytes("POL-1001"));
+    }
+
+    private static UndoableAction action(String description, long bytes, Runnable undo) {
+        return new UndoableAction() {
+            @Override
+            public String description() {
+                return description;
+            }
+
+            @Override
+            public void undo() {
+                undo.run();
+            }
+
+            @Override
+            public long retainedBytes() {
+                return bytes;
+            }
+        };
+    }
+}
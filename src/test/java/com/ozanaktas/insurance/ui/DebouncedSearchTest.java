@@ -0,0 +1,90 @@
+package com.ozanaktas.insurance.ui;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Debounced lookups on a {@link SearchExecutor}, delivered straight on the search thread
+ * instead of the FX thread.
+ */
+class DebouncedSearchTest {
+
+    private final SearchExecutor executor = new SearchExecutor();
+    private final BlockingQueue<Object> delivered = new LinkedBlockingQueue<>();
+
+    @AfterEach
+    void closeExecutor() {
+        executor.close();
+    }
+
+    @Test
+    void onlyTheLatestQueryIsDelivered() throws InterruptedException {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        DebouncedSearch<String> search = search(text -> {
+            if (text.equals("a")) {
+                firstStarted.countDown();
+                await(release);
+            }
+            return List.of(text);
+        });
+
+        search.query("a");
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        search.query("ab");
+        release.countDown();
+
+        assertEquals(List.of("ab"), delivered.poll(5, TimeUnit.SECONDS));
+        assertNull(delivered.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void aFailingLookupIsReportedAndTheNextQueryStillRuns() throws InterruptedException {
+        DebouncedSearch<String> search = search(text -> {
+            if (text.equals("boom")) throw new IllegalStateException("index closed");
+            return List.of(text);
+        });
+
+        search.query("boom");
+        assertEquals("Search failed: IllegalStateException (index closed)", delivered.poll(5, TimeUnit.SECONDS));
+
+        search.query("ok");
+        assertEquals(List.of("ok"), delivered.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void cancelAndCloseDropPendingQueries() throws InterruptedException {
+        DebouncedSearch<String> search = search(List::of);
+
+        search.query("a");
+        search.cancel();
+        assertNull(delivered.poll(100, TimeUnit.MILLISECONDS));
+
+        executor.close();
+        search.query("b");
+        assertNull(delivered.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    private DebouncedSearch<String> search(Function<String, List<String>> lookup) {
+        return new DebouncedSearch<>(executor, Runnable::run, 10, lookup, delivered::add, delivered::add);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}